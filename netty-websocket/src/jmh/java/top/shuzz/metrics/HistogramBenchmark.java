@@ -0,0 +1,43 @@
+package top.shuzz.metrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>指标记录开销基准</p>
+ * <p>多线程并发记录直方图与计数器, 与单纯的 LongAdder 自增对照, 建议配合 -t 4 及 -prof gc 观察争用与分配</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class HistogramBenchmark {
+
+    final private Histogram histogram = new Histogram();
+    final private LongAdder counter = new LongAdder();
+
+    @Benchmark
+    public void recordHistogram() {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 10_000_000));
+    }
+
+    @Benchmark
+    public void incrementCounter() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long snapshotQuantile() {
+        return histogram.snapshot().quantile(0.99);
+    }
+}
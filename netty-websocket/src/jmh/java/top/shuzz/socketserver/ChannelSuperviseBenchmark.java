@@ -0,0 +1,200 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>路由层基准</p>
+ * <p>在 1k / 10k / 100k 已注册用户规模下测试用户查找、广播及指定用户推送, 建议配合 -prof gc 观察 gc.alloc.rate.norm</p>
+ * <p>路由基准直接调用 MessageRouter.route / routeBinary, 不受路由模式配置影响</p>
+ * <p>routeTopic 与 routeGroupTargets 向同一组用户推送, 分别使用主题发布及完整的 targets 列表</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChannelSuperviseBenchmark {
+
+    final private static int TARGETS = 100;
+
+    /**
+     * 分组推送的用户数上限
+     */
+    final private static int GROUP_SIZE = 5000;
+
+    final private static String GROUP_TOPIC = "group.bench";
+
+    @Param({"1000", "10000", "100000"})
+    private int users;
+
+    @Param({"512"})
+    private int payloadSize;
+
+    private EmbeddedChannel[] channels;
+
+    private String[] userNames;
+
+    private EmbeddedChannel sender;
+
+    private String broadcastText;
+
+    private ByteBuf broadcastBuf;
+
+    private ByteBuf targetedBuf;
+
+    private ByteBuf binaryTargetedBuf;
+
+    private ByteBuf topicBuf;
+
+    private ByteBuf groupTargetedBuf;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        // 屏蔽逐用户的注册日志
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        final var discard = new DiscardOutboundHandler();
+        channels = new EmbeddedChannel[users];
+        userNames = new String[users];
+        for (int i = 0; i < users; i++) {
+            // EmbeddedChannel 默认共用同一 ID, 需显式分配以区分通道组成员
+            channels[i] = new EmbeddedChannel(DefaultChannelId.newInstance(), discard);
+            userNames[i] = "user-" + i;
+            ChannelSupervise.addChannel(channels[i]);
+            ChannelSupervise.addUser(userNames[i], channels[i]);
+        }
+
+        sender = new EmbeddedChannel(DefaultChannelId.newInstance(), discard, new NioWebSocketHandler("localhost", 8081, "/ws"));
+        ChannelSupervise.addUser("sender", sender);
+
+        final var dataBody = StrUtil.repeat('x', payloadSize);
+        broadcastText = JSONUtil.toJsonStr(new WebSocketMsgDto("sender", null, dataBody));
+
+        final var targets = new ArrayList<String>(TARGETS);
+        for (int i = 0; i < TARGETS; i++) {
+            targets.add(userNames[(int) ((long) i * users / TARGETS)]);
+        }
+        final var targetedText = JSONUtil.toJsonStr(new WebSocketMsgDto("sender", targets, dataBody));
+
+        broadcastBuf = Unpooled.directBuffer().writeBytes(broadcastText.getBytes(StandardCharsets.UTF_8));
+        targetedBuf = Unpooled.directBuffer().writeBytes(targetedText.getBytes(StandardCharsets.UTF_8));
+
+        // 二进制信封: 目标 ID 及不透明载荷
+        binaryTargetedBuf = Unpooled.directBuffer();
+        binaryTargetedBuf.writeByte(BinaryEnvelope.TYPE_SEND).writeByte(0).writeShort(TARGETS);
+        targets.forEach(target -> binaryTargetedBuf.writeInt(ChannelSupervise.internUserId(target)));
+        binaryTargetedBuf.writeInt(payloadSize).writeBytes(dataBody.getBytes(StandardCharsets.UTF_8));
+
+        // 同一组用户: 订阅主题, 或列入 targets
+        final var group = new ArrayList<String>(GROUP_SIZE);
+        for (int i = 0; i < Math.min(GROUP_SIZE, users); i++) {
+            TopicRegistry.subscribe(channels[i], GROUP_TOPIC);
+            group.add(userNames[i]);
+        }
+        final var topicText = "{\"topic\":\"" + GROUP_TOPIC + "\",\"source\":\"sender\",\"dataBody\":\"" + dataBody + "\"}";
+        topicBuf = Unpooled.directBuffer().writeBytes(topicText.getBytes(StandardCharsets.UTF_8));
+        groupTargetedBuf = Unpooled.directBuffer().writeBytes(
+                JSONUtil.toJsonStr(new WebSocketMsgDto("sender", group, dataBody)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (final var ch : channels) {
+            ChannelSupervise.removeUserByChannel(ch);
+            ChannelSupervise.removeChannel(ch);
+            ch.finishAndReleaseAll();
+        }
+        ChannelSupervise.removeUserByChannel(sender);
+        ChannelSupervise.removeChannel(sender);
+        sender.finishAndReleaseAll();
+        broadcastBuf.release();
+        targetedBuf.release();
+        binaryTargetedBuf.release();
+        topicBuf.release();
+        groupTargetedBuf.release();
+    }
+
+    @Benchmark
+    public Object lookupUserChannel() {
+        return ChannelSupervise.getUserChannel(userNames[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object lookupChannelClientName() {
+        return ChannelSupervise.getChannelClientName(channels[nextIndex()]);
+    }
+
+    @Benchmark
+    public void broadcastMsg() {
+        ChannelSupervise.broadcastMsg(sender, broadcastText);
+    }
+
+    @Benchmark
+    public void routeBroadcast() {
+        MessageRouter.route(sender, broadcastBuf);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TARGETS)
+    public void routeTargeted() {
+        MessageRouter.route(sender, targetedBuf);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TARGETS)
+    public void routeBinaryTargeted() {
+        MessageRouter.routeBinary(sender, binaryTargetedBuf);
+    }
+
+    @Benchmark
+    public void routeTopic() {
+        MessageRouter.route(sender, topicBuf);
+    }
+
+    @Benchmark
+    public void routeGroupTargets() {
+        MessageRouter.route(sender, groupTargetedBuf);
+    }
+
+    private int nextIndex() {
+        final var i = cursor;
+        cursor = i + 1 == users ? 0 : i + 1;
+        return i;
+    }
+
+    /**
+     * 丢弃出站数据, 避免接收方堆积待读消息
+     */
+    @ChannelHandler.Sharable
+    private static class DiscardOutboundHandler extends ChannelOutboundHandlerAdapter {
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            promise.trySuccess();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.core.util.StrUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket08FrameEncoder;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>扇出帧编码基准</p>
+ * <p>对比逐接收方构建 TextWebSocketFrame 与预编码共享帧的吞吐量及单接收方内存分配(gc.alloc.rate.norm)</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameFanoutBenchmark {
+
+    final private static int RECIPIENTS = 1000;
+
+    @Param({"256", "4096"})
+    private int payloadSize;
+
+    private String msgText;
+
+    private EmbeddedChannel[] channels;
+
+    @Setup
+    public void setup() {
+        msgText = "{\"dataBody\":\"" + StrUtil.repeat('x', payloadSize) + "\"}";
+        channels = new EmbeddedChannel[RECIPIENTS];
+        for (int i = 0; i < RECIPIENTS; i++) {
+            channels[i] = new EmbeddedChannel(new WebSocket08FrameEncoder(false));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (final var ch : channels) {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public void framePerRecipient() {
+        for (final var ch : channels) {
+            ch.writeAndFlush(new TextWebSocketFrame(msgText), ch.voidPromise());
+            drain(ch);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public void sharedPreEncodedFrame() {
+        final var frame = PreEncodedFrame.text(PooledByteBufAllocator.DEFAULT, msgText);
+        for (final var ch : channels) {
+            ch.writeAndFlush(frame.retainedDuplicate(), ch.voidPromise());
+            drain(ch);
+        }
+        frame.release();
+    }
+
+    private static void drain(final EmbeddedChannel ch) {
+        Object out;
+        while ((out = ch.readOutbound()) != null) {
+            ReferenceCountUtil.release(out);
+        }
+    }
+}
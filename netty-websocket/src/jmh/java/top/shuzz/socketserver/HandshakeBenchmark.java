@@ -0,0 +1,112 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.dialect.console.ConsoleLog;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>握手基准</p>
+ * <p>handshake 将完整的升级请求写入 HTTP 编解码器及业务处理器, 至 101 响应写出及用户注册完成, 随后关闭连接; 其吞吐量即单个 I/O 线程的握手速率上限, 用于估算大规模重连时的主机规模</p>
+ * <p>parseClientName 与 parseClientNameLegacy 对比 URI 解析的开销, 后者为原先基于 split / Stream 的实现</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandshakeBenchmark {
+
+    final private static int NAMES = 1024;
+
+    private WebSocketServerHandshakerFactory handshakerFactory;
+
+    private ByteBuf[] requests;
+
+    private String[] uris;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        // 屏蔽逐连接的注册日志, 未引入日志框架时 Hutool 使用控制台输出
+        Logger.getLogger("").setLevel(Level.WARNING);
+        ConsoleLog.setLevel(cn.hutool.log.level.Level.WARN);
+
+        handshakerFactory = NioWebSocketHandler.newHandshakerFactory("localhost", 8081, "/ws");
+        requests = new ByteBuf[NAMES];
+        uris = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            uris[i] = "/ws/user-" + i;
+            final var request = "GET " + uris[i] + " HTTP/1.1\r\n"
+                    + "Host: localhost:8081\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                    + "Sec-WebSocket-Version: 13\r\n"
+                    + "\r\n";
+            requests[i] = Unpooled.directBuffer().writeBytes(request.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (final var request : requests) {
+            request.release();
+        }
+    }
+
+    /**
+     * 握手路径较长, JIT 预热较慢, 需延长预热时间
+     */
+    @Benchmark
+    @Warmup(iterations = 10, time = 2)
+    public int handshake() {
+        final var index = cursor++ & (NAMES - 1);
+        final var channel = new EmbeddedChannel(DefaultChannelId.newInstance(),
+                new HttpServerCodec(), new HttpObjectAggregator(8192), new NioWebSocketHandler(handshakerFactory));
+        channel.writeInbound(requests[index].retainedDuplicate());
+        final ByteBuf response = channel.readOutbound();
+        final var length = response.readableBytes();
+        response.release();
+        channel.finishAndReleaseAll();
+        return length;
+    }
+
+    @Benchmark
+    public String parseClientName() {
+        return NioWebSocketHandler.parseClientName(uris[cursor++ & (NAMES - 1)]);
+    }
+
+    @Benchmark
+    public String parseClientNameLegacy() {
+        final var decoder = new QueryStringDecoder(uris[cursor++ & (NAMES - 1)]);
+        final var uriParams = Optional.of(decoder.path())
+                .map(uri -> uri.split("/"))
+                .map(Arrays::asList)
+                .stream()
+                .flatMap(Collection::stream)
+                .filter(StrUtil::isNotBlank)
+                .toList();
+        return uriParams.size() == 2 ? uriParams.get(1) : null;
+    }
+}
@@ -0,0 +1,132 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.log.dialect.console.ConsoleLog;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>通道管理容器内存占用</p>
+ * <p>注册指定数量的连接并加入用户, 以注册前后 Full GC 后的堆占用之差计算每个连接的占用字节数, 以 bytesPerConnection 辅助计数输出</p>
+ * <p>registry 为 {@link ChannelSupervise} 当前实现; legacy 为原先以通道 ID 文本, 通道组及装箱用户 ID 管理连接的实现, 作为对照</p>
+ * <p>通道及用户名在注册前创建, 不计入结果; 单次执行, 耗时无参考意义</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-XX:+UseSerialGC"})
+public class RegistryFootprintBenchmark {
+
+    @Param({"100000"})
+    private int connections;
+
+    @Param({"registry", "legacy"})
+    private String impl;
+
+    private EmbeddedChannel[] channels;
+
+    private String[] userNames;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+
+        public long bytesPerConnection;
+    }
+
+    @Setup
+    public void setup() {
+        // 屏蔽逐用户的注册日志
+        Logger.getLogger("").setLevel(Level.WARNING);
+        ConsoleLog.setLevel(cn.hutool.log.level.Level.WARN);
+
+        channels = new EmbeddedChannel[connections];
+        userNames = new String[connections];
+        for (int i = 0; i < connections; i++) {
+            // EmbeddedChannel 默认共用同一 ID, 需显式分配以区分通道组成员
+            channels[i] = new EmbeddedChannel(DefaultChannelId.newInstance());
+            userNames[i] = "user-" + i;
+        }
+    }
+
+    @Benchmark
+    public void register(final Footprint footprint) {
+        final var before = usedHeap();
+        if ("legacy".equals(impl)) {
+            for (int i = 0; i < connections; i++) {
+                LegacySupervise.addChannel(channels[i]);
+                LegacySupervise.addUser(userNames[i], channels[i]);
+            }
+        } else {
+            for (int i = 0; i < connections; i++) {
+                ChannelSupervise.addChannel(channels[i]);
+                ChannelSupervise.addUser(userNames[i], channels[i]);
+            }
+        }
+        footprint.bytesPerConnection = (usedHeap() - before) / connections;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 原先的通道管理容器, 仅保留注册路径
+     */
+    private static final class LegacySupervise {
+
+        final private static ChannelGroup SOCKET_GROUP = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        final private static ChannelGroup JOINED_GROUP = new DefaultChannelGroup("joined", GlobalEventExecutor.INSTANCE);
+        final private static ConcurrentHashMap<String, ChannelId> CHANNEL_MAP = new ConcurrentHashMap<>();
+        final private static ConcurrentHashMap<String, Channel> USER_MAP = new ConcurrentHashMap<>();
+        final private static ConcurrentSkipListSet<String> USER_INDEX = new ConcurrentSkipListSet<>();
+        final private static ConcurrentHashMap<String, Integer> USER_IDS = new ConcurrentHashMap<>();
+        final private static AttributeKey<String> USER_NAME = AttributeKey.valueOf("legacyUserName");
+        final private static AttributeKey<Integer> USER_ID = AttributeKey.valueOf("legacyUserId");
+
+        private static String[] userNames = new String[1024];
+        private static int userIdCount = 1;
+
+        private static void addChannel(final Channel ch) {
+            SOCKET_GROUP.add(ch);
+            CHANNEL_MAP.put(ch.id().asLongText(), ch.id());
+        }
+
+        private static void addUser(final String userName, final Channel ch) {
+            ch.attr(USER_ID).set(USER_IDS.computeIfAbsent(userName, name -> {
+                final var id = userIdCount++;
+                if (id >= userNames.length) {
+                    userNames = Arrays.copyOf(userNames, userNames.length << 1);
+                }
+                userNames[id] = name;
+                return id;
+            }));
+            ch.attr(USER_NAME).set(userName);
+            USER_MAP.put(userName, ch);
+            USER_INDEX.add(userName);
+            JOINED_GROUP.add(ch);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>消息解析基准</p>
+ * <p>测试不同数据体大小下 WebSocketMsgDto 完整反序列化与路由信封解析的开销</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebSocketMsgDtoBenchmark {
+
+    @Param({"256", "4096", "65536"})
+    private int payloadSize;
+
+    private String msgText;
+
+    private ByteBuf msgBuf;
+
+    @Setup
+    public void setup() {
+        final var dataBody = JSONUtil.createObj()
+                .set("type", "snapshot")
+                .set("values", StrUtil.repeat('x', payloadSize));
+        msgText = JSONUtil.toJsonStr(new WebSocketMsgDto("sender", List.of("user-1", "user-2", "user-3"), dataBody));
+        msgBuf = Unpooled.directBuffer().writeBytes(msgText.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        msgBuf.release();
+    }
+
+    @Benchmark
+    public Object parseMsgDto() {
+        return JSONUtil.toBean(msgText, WebSocketMsgDto.class);
+    }
+
+    @Benchmark
+    public Object parseEnvelope() {
+        return WebSocketMsgEnvelopeParser.parse(msgBuf);
+    }
+}
@@ -1,7 +1,9 @@
 package top.shuzz;
 
+import top.shuzz.cluster.ClusterNode;
 import top.shuzz.config.ConfigHelper;
 import top.shuzz.socketserver.WebSocketServer;
+import top.shuzz.store.OfflineStore;
 import top.shuzz.httpserver.HttpServer;
 
 /**
@@ -12,19 +14,30 @@ public class AppMain {
 
     public static void main(String[] args) {
 
+        // 启动集群节点, 未启用集群模式时不执行任何操作
+        ClusterNode.start();
+
+        // 启动离线消息存储, 未启用时不执行任何操作
+        OfflineStore.start();
+
+        // 统一端口模式: WebSocket 端口同时提供 HTTP API, 不再单独启动 HTTP 服务
+        final var unified = "UNIFIED".equalsIgnoreCase(ConfigHelper.getConfigString("server", "SERVER_MODE"));
+
         // 创建 HTTP 服务线程
         final var httpServerPort = ConfigHelper.getConfigInteger("server", "HTTP_PORT");
         final var httpStarter = new Thread(() -> HttpServer.initAndStart(httpServerPort), "http-service");
 
         // 创建 WebSocket 服务线程
         final var wsServerPort = ConfigHelper.getConfigInteger("server", "WEB_SOCKET_PORT");
-        final var webSocketStarter = new Thread(() -> WebSocketServer.initAndStart("localhost", wsServerPort), "websocket-service");
+        final var webSocketStarter = new Thread(() -> WebSocketServer.initAndStart("localhost", wsServerPort, unified), "websocket-service");
 
         // 启动 WebSocket 服务
         webSocketStarter.start();
 
         // 启动 HTTP 服务
-        httpStarter.start();
+        if (!unified) {
+            httpStarter.start();
+        }
 
 
         /*Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -0,0 +1,59 @@
+package top.shuzz.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>集群用户目录</p>
+ * <p>记录其他节点上的在线用户所在节点, 由各节点广播的 JOIN / LEAVE 记录维护, 每个节点持有一份完整副本</p>
+ * <p>用户的离开仅在其仍归属于发出记录的节点时生效, 不影响已在其他节点重新登录的用户</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class ClusterDirectory {
+
+    /**
+     * 用户名-节点 ID 映射
+     */
+    final private ConcurrentHashMap<String, String> userNodes = new ConcurrentHashMap<>();
+
+    public void join(final String userName, final String nodeId) {
+        userNodes.put(userName, nodeId);
+    }
+
+    public void leave(final String userName, final String nodeId) {
+        userNodes.remove(userName, nodeId);
+    }
+
+    /**
+     * 查询用户所在节点
+     *
+     * @param userName 用户名
+     * @return 节点 ID, 用户不在其他节点在线时返回 null
+     */
+    public String locate(final String userName) {
+        return userNodes.get(userName);
+    }
+
+    /**
+     * 移除指定节点的全部用户
+     *
+     * @param nodeId 节点 ID
+     * @return 移除的用户名
+     */
+    public List<String> purge(final String nodeId) {
+        final var removed = new ArrayList<String>();
+        for (final var entry : userNodes.entrySet()) {
+            if (nodeId.equals(entry.getValue()) && userNodes.remove(entry.getKey(), nodeId)) {
+                removed.add(entry.getKey());
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return userNodes.size();
+    }
+}
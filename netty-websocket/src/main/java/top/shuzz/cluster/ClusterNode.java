@@ -0,0 +1,294 @@
+package top.shuzz.cluster;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import top.shuzz.config.ConfigHelper;
+import top.shuzz.socketserver.ChannelSupervise;
+import top.shuzz.socketserver.MessageRouter;
+import top.shuzz.store.OfflineStore;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>集群节点</p>
+ * <p>本节点用户的加入/离开广播至所有节点, 各节点据此维护用户目录; 目标用户不在本节点时按目录将消息转发至其所在节点</p>
+ * <p>指定目标的消息按目标节点分组, 每个节点仅转发一份并携带该节点上的全部目标; 群发消息每个节点仅转发一份, 由接收节点在本地扇出</p>
+ * <p>主题消息每个节点转发一份, 由接收节点按本地订阅扇出</p>
+ * <p>来自其他节点的消息仅在本节点投递, 不再继续转发</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class ClusterNode {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 节点间传输层实现
+     */
+    public enum TransportType {
+        /**
+         * Netty TCP 全互联
+         */
+        MESH
+    }
+
+    /**
+     * 是否启用集群模式
+     */
+    final public static boolean ENABLED = Optional.ofNullable(ConfigHelper.getConfigBoolean("cluster", "CLUSTER_ENABLED")).orElse(false);
+
+    /**
+     * 当前节点 ID, 未配置时随机生成
+     */
+    final public static String NODE_ID = Optional.ofNullable(ConfigHelper.getConfigString("cluster", "NODE_ID"))
+            .filter(StrUtil::isNotEmpty).orElseGet(IdUtil::fastSimpleUUID);
+
+    final private static ClusterDirectory DIRECTORY = new ClusterDirectory();
+
+    final private static LongAdder FORWARDED_COUNT = new LongAdder();
+    final private static LongAdder BROADCAST_COUNT = new LongAdder();
+    final private static LongAdder RECEIVED_COUNT = new LongAdder();
+
+    private static volatile ClusterTransport transport;
+
+    /**
+     * 启动集群节点, 未启用集群模式时不执行任何操作
+     */
+    public static void start() {
+        if (!ENABLED) return;
+
+        final var secret = ConfigHelper.getConfigString("cluster", "CLUSTER_SECRET");
+        if (StrUtil.isEmpty(secret)) {
+            LOGGER.error("Cluster Secret Not Configured, Cluster Mode Disabled");
+            return;
+        }
+
+        final var clusterTransport = newTransport(secret);
+        transport = clusterTransport;
+        try {
+            clusterTransport.start(NODE_ID, new RecordReceiver());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error(e, "Cluster Node Start Interrupted");
+            transport = null;
+            clusterTransport.shutdown();
+        }
+    }
+
+    private static ClusterTransport newTransport(final String secret) {
+        final var type = Optional.ofNullable(ConfigHelper.getConfigString("cluster", "CLUSTER_TRANSPORT"))
+                .map(String::toUpperCase).map(TransportType::valueOf).orElse(TransportType.MESH);
+        final var bindAddress = Optional.ofNullable(ConfigHelper.getConfigString("cluster", "CLUSTER_BIND_ADDRESS"))
+                .filter(StrUtil::isNotEmpty).orElse("127.0.0.1");
+        final var port = Optional.ofNullable(ConfigHelper.getConfigInteger("cluster", "CLUSTER_PORT")).orElse(9091);
+        final var threads = Optional.ofNullable(ConfigHelper.getConfigInteger("cluster", "CLUSTER_THREADS")).orElse(1);
+        final var batchMaxBytes = Optional.ofNullable(ConfigHelper.getConfigInteger("cluster", "CLUSTER_BATCH_MAX_BYTES")).orElse(64 * 1024);
+        final var reconnectMillis = Optional.ofNullable(ConfigHelper.getConfigInteger("cluster", "CLUSTER_RECONNECT_MS")).orElse(1000);
+        final var peers = Optional.ofNullable(ConfigHelper.getConfigString("cluster", "CLUSTER_PEERS"))
+                .map(s -> StrUtil.split(s, ',', true, true)).orElse(List.of())
+                .stream().map(ClusterNode::parseAddress).toList();
+
+        return switch (type) {
+            case MESH -> new NettyMeshTransport(bindAddress, port, secret, peers, threads, batchMaxBytes, reconnectMillis);
+        };
+    }
+
+    private static InetSocketAddress parseAddress(final String address) {
+        final var index = address.lastIndexOf(':');
+        if (index <= 0) throw new IllegalArgumentException("Invalid Cluster Peer Address: " + address);
+        return new InetSocketAddress(address.substring(0, index), Integer.parseInt(address.substring(index + 1)));
+    }
+
+    /**
+     * 广播本节点用户加入
+     *
+     * @param userName 用户名
+     */
+    public static void announceJoin(final String userName) {
+        final var clusterTransport = transport;
+        if (clusterTransport != null && !clusterTransport.peers().isEmpty() && isEncodable(userName)) {
+            clusterTransport.sendAll(ClusterRecord.join(PooledByteBufAllocator.DEFAULT, userName));
+        }
+    }
+
+    /**
+     * 广播本节点用户离开
+     *
+     * @param userName 用户名
+     */
+    public static void announceLeave(final String userName) {
+        final var clusterTransport = transport;
+        if (clusterTransport != null && !clusterTransport.peers().isEmpty() && isEncodable(userName)) {
+            clusterTransport.sendAll(ClusterRecord.leave(PooledByteBufAllocator.DEFAULT, userName));
+        }
+    }
+
+    /**
+     * 查询用户所在的其他节点
+     *
+     * @param userName 用户名
+     * @return 节点 ID, 用户不在其他节点在线时返回 null
+     */
+    public static String locate(final String userName) {
+        return DIRECTORY.locate(userName);
+    }
+
+    /**
+     * <p>转发指定目标的消息</p>
+     * <p>目标按所在节点分组, 每个节点转发一份; 不在任何节点在线或名称超出记录长度上限的目标被忽略</p>
+     *
+     * @param opcode  客户端消息帧操作码
+     * @param source  发送方用户名
+     * @param targets 不在本节点在线的目标用户名
+     * @param payload 消息载荷, 本方法不改变其引用计数
+     */
+    public static void forward(final int opcode, final String source, final List<String> targets, final ByteBuf payload) {
+        final var clusterTransport = transport;
+        if (clusterTransport == null || !isEncodable(source)) return;
+
+        final var nodeTargets = new HashMap<String, List<String>>();
+        for (final var target : targets) {
+            final var nodeId = DIRECTORY.locate(target);
+            if (nodeId != null && isEncodable(target)) {
+                nodeTargets.computeIfAbsent(nodeId, k -> new ArrayList<>()).add(target);
+            }
+        }
+
+        nodeTargets.forEach((nodeId, users) -> {
+            final var record = ClusterRecord.message(PooledByteBufAllocator.DEFAULT, opcode, source, users, payload);
+            if (clusterTransport.send(nodeId, record)) {
+                FORWARDED_COUNT.increment();
+            }
+        });
+    }
+
+    /**
+     * <p>转发群发消息</p>
+     * <p>记录仅编码一次, 由所有节点共享</p>
+     *
+     * @param opcode  客户端消息帧操作码
+     * @param source  发送方用户名, 可为 null
+     * @param payload 消息载荷, 本方法不改变其引用计数
+     */
+    public static void broadcast(final int opcode, final String source, final ByteBuf payload) {
+        final var clusterTransport = transport;
+        if (clusterTransport == null || clusterTransport.peers().isEmpty() || source != null && !isEncodable(source)) return;
+
+        clusterTransport.sendAll(ClusterRecord.message(PooledByteBufAllocator.DEFAULT, opcode,
+                Optional.ofNullable(source).orElse(""), List.of(), payload));
+        BROADCAST_COUNT.increment();
+    }
+
+    /**
+     * <p>转发主题消息</p>
+     * <p>记录仅编码一次, 由所有节点共享</p>
+     *
+     * @param opcode  客户端消息帧操作码
+     * @param source  发送方用户名
+     * @param topic   主题
+     * @param payload 消息载荷, 本方法不改变其引用计数
+     */
+    public static void publish(final int opcode, final String source, final String topic, final ByteBuf payload) {
+        final var clusterTransport = transport;
+        if (clusterTransport == null || clusterTransport.peers().isEmpty() || source != null && !isEncodable(source)) return;
+
+        clusterTransport.sendAll(ClusterRecord.publish(PooledByteBufAllocator.DEFAULT, opcode,
+                Optional.ofNullable(source).orElse(""), topic, payload));
+        BROADCAST_COUNT.increment();
+    }
+
+    /**
+     * 名称超出记录长度上限时不转发, 避免长度前缀被截断
+     */
+    private static boolean isEncodable(final String name) {
+        if (ClusterRecord.isEncodable(name)) return true;
+        LOGGER.warn("Name Exceeds {} Bytes, Not Forwarded To Cluster", ClusterRecord.MAX_STRING_LENGTH);
+        return false;
+    }
+
+    /**
+     * 当前集群统计
+     */
+    public static ClusterStatVo currentStat() {
+        final var clusterTransport = transport;
+        return new ClusterStatVo(
+                ENABLED,
+                NODE_ID,
+                clusterTransport == null ? List.of() : List.copyOf(clusterTransport.peers()),
+                DIRECTORY.size(),
+                FORWARDED_COUNT.sum(),
+                BROADCAST_COUNT.sum(),
+                RECEIVED_COUNT.sum(),
+                clusterTransport == null ? 0 : clusterTransport.batchCount()
+        );
+    }
+
+    /**
+     * 处理来自其他节点的记录
+     */
+    private static final class RecordReceiver implements ClusterTransport.Receiver {
+
+        @Override
+        public void onPeerUp(String nodeId) {
+            // 向新节点同步本节点的全部在线用户
+            final var users = ChannelSupervise.currentUsers();
+            users.forEach(user -> transport.send(nodeId, ClusterRecord.join(PooledByteBufAllocator.DEFAULT, user)));
+            LOGGER.info("Cluster Peer [{}] Up, {} Local User(s) Announced", nodeId, users.size());
+        }
+
+        @Override
+        public void onPeerDown(String nodeId) {
+            final var removed = DIRECTORY.purge(nodeId);
+            removed.forEach(ChannelSupervise::releaseUserId);
+            LOGGER.warn("Cluster Peer [{}] Down, {} Remote User(s) Removed", nodeId, removed.size());
+        }
+
+        @Override
+        public void onRecord(String nodeId, ByteBuf record) {
+            switch (record.readUnsignedByte()) {
+                case ClusterRecord.TYPE_JOIN -> {
+                    final var userName = ClusterRecord.readString(record);
+                    DIRECTORY.join(userName, nodeId);
+                    // 分配本节点的用户 ID, 二进制消息投递时以此标识发送方; 须在登记目录后分配, 目录中的用户 ID 不会被回收
+                    ChannelSupervise.internUserId(userName);
+                    // 本节点保存的离线消息转发至用户所在节点
+                    OfflineStore.replay(userName);
+                }
+                case ClusterRecord.TYPE_LEAVE -> {
+                    final var userName = ClusterRecord.readString(record);
+                    DIRECTORY.leave(userName, nodeId);
+                    ChannelSupervise.releaseUserId(userName);
+                }
+                case ClusterRecord.TYPE_MESSAGE -> {
+                    final var opcode = record.readUnsignedByte();
+                    final var source = ClusterRecord.readString(record);
+                    final var targets = ClusterRecord.readTargets(record);
+                    final var payload = ClusterRecord.readPayload(record);
+
+                    RECEIVED_COUNT.increment();
+                    MessageRouter.deliver(PooledByteBufAllocator.DEFAULT, opcode, source, targets, payload);
+                }
+                case ClusterRecord.TYPE_PUBLISH -> {
+                    record.skipBytes(1);
+                    ClusterRecord.readString(record);
+                    final var topic = ClusterRecord.readString(record);
+                    final var payload = ClusterRecord.readPayload(record);
+
+                    RECEIVED_COUNT.increment();
+                    MessageRouter.deliverTopic(PooledByteBufAllocator.DEFAULT, topic, payload);
+                }
+                default -> throw ClusterRecord.malformed();
+            }
+        }
+    }
+}
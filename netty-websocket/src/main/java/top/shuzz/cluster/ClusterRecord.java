@@ -0,0 +1,242 @@
+package top.shuzz.cluster;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>节点间通信记录</p>
+ * <p>每条记录以 4 字节长度前缀开头, 多条记录可直接拼接为一个批次写出; 所有整数均为大端序, 字符串为 2 字节长度前缀的 UTF-8 文本</p>
+ * <pre>
+ * HELLO     | 0x01 | nodeId | mac:32                                                         |
+ * CHALLENGE | 0x06 | nonce:16                                                                |
+ * JOIN      | 0x02 | userName                                                                |
+ * LEAVE     | 0x03 | userName                                                                |
+ * MESSAGE   | 0x04 | opcode:1 | source | targetCount:4 | target * targetCount | payloadLength:4 | payload |
+ * PUBLISH   | 0x05 | opcode:1 | source | topic | payloadLength:4 | payload |
+ * </pre>
+ * <p>连接建立后双方各自发送 CHALLENGE, 收到对端的 CHALLENGE 后以 HELLO 回应, mac 为以共享密钥对连接方向, 对端随机数及本节点 ID 计算的 HMAC-SHA256</p>
+ * <p>MESSAGE 的 targetCount 为 0 时在接收节点群发, 载荷为客户端原始消息数据(文本消息)或信封载荷(二进制消息)</p>
+ * <p>字符串的 UTF-8 字节数不超过 {@value #MAX_STRING_LENGTH}, 超出时编码方法抛出 {@link IllegalArgumentException}, 调用方可先以 {@link #isEncodable(String)} 过滤</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class ClusterRecord {
+
+    final public static int TYPE_HELLO = 0x01;
+    final public static int TYPE_JOIN = 0x02;
+    final public static int TYPE_LEAVE = 0x03;
+    final public static int TYPE_MESSAGE = 0x04;
+    final public static int TYPE_PUBLISH = 0x05;
+    final public static int TYPE_CHALLENGE = 0x06;
+
+    /**
+     * CHALLENGE 随机数字节数
+     */
+    final public static int NONCE_LENGTH = 16;
+
+    /**
+     * HELLO 消息认证码字节数
+     */
+    final public static int MAC_LENGTH = 32;
+
+    /**
+     * 长度前缀字节数
+     */
+    final public static int LENGTH_FIELD_LENGTH = 4;
+
+    /**
+     * 字符串 UTF-8 字节数上限, 受 2 字节长度前缀限制
+     */
+    final public static int MAX_STRING_LENGTH = 0xFFFF;
+
+    private ClusterRecord() {}
+
+    /**
+     * 字符串能否编码至记录
+     *
+     * @param value 字符串
+     * @return UTF-8 字节数不超过 {@value #MAX_STRING_LENGTH} 时返回 true
+     */
+    public static boolean isEncodable(final String value) {
+        return ByteBufUtil.utf8Bytes(value) <= MAX_STRING_LENGTH;
+    }
+
+    /**
+     * 编码 HELLO 记录
+     */
+    public static ByteBuf hello(final ByteBufAllocator alloc, final String nodeId, final byte[] mac) {
+        final var length = 1 + stringLength(nodeId) + MAC_LENGTH;
+        final var record = alloc.directBuffer(LENGTH_FIELD_LENGTH + length);
+        record.writeInt(length);
+        record.writeByte(TYPE_HELLO);
+        writeString(record, nodeId);
+        record.writeBytes(mac, 0, MAC_LENGTH);
+        return record;
+    }
+
+    /**
+     * 编码 CHALLENGE 记录
+     */
+    public static ByteBuf challenge(final ByteBufAllocator alloc, final byte[] nonce) {
+        final var length = 1 + NONCE_LENGTH;
+        final var record = alloc.directBuffer(LENGTH_FIELD_LENGTH + length);
+        record.writeInt(length);
+        record.writeByte(TYPE_CHALLENGE);
+        record.writeBytes(nonce, 0, NONCE_LENGTH);
+        return record;
+    }
+
+    /**
+     * 编码 JOIN 记录
+     */
+    public static ByteBuf join(final ByteBufAllocator alloc, final String userName) {
+        return named(alloc, TYPE_JOIN, userName);
+    }
+
+    /**
+     * 编码 LEAVE 记录
+     */
+    public static ByteBuf leave(final ByteBufAllocator alloc, final String userName) {
+        return named(alloc, TYPE_LEAVE, userName);
+    }
+
+    /**
+     * <p>编码 MESSAGE 记录</p>
+     * <p>载荷仅复制一次且不改变其读索引</p>
+     *
+     * @param alloc   缓冲区分配器
+     * @param opcode  客户端消息帧操作码
+     * @param source  发送方用户名
+     * @param targets 目标用户名, 为空时表示群发
+     * @param payload 消息载荷
+     * @return 完整的记录数据
+     */
+    public static ByteBuf message(final ByteBufAllocator alloc, final int opcode, final String source,
+                                  final List<String> targets, final ByteBuf payload) {
+        final var payloadLength = payload.readableBytes();
+        var length = 1 + 1 + stringLength(source) + 4 + 4 + payloadLength;
+        for (final var target : targets) {
+            length += stringLength(target);
+        }
+
+        final var record = alloc.directBuffer(LENGTH_FIELD_LENGTH + length);
+        record.writeInt(length);
+        record.writeByte(TYPE_MESSAGE);
+        record.writeByte(opcode);
+        writeString(record, source);
+        record.writeInt(targets.size());
+        for (final var target : targets) {
+            writeString(record, target);
+        }
+        record.writeInt(payloadLength);
+        record.writeBytes(payload, payload.readerIndex(), payloadLength);
+        return record;
+    }
+
+    /**
+     * <p>编码 PUBLISH 记录</p>
+     * <p>载荷仅复制一次且不改变其读索引</p>
+     *
+     * @param alloc   缓冲区分配器
+     * @param opcode  客户端消息帧操作码
+     * @param source  发送方用户名
+     * @param topic   主题
+     * @param payload 消息载荷
+     * @return 完整的记录数据
+     */
+    public static ByteBuf publish(final ByteBufAllocator alloc, final int opcode, final String source,
+                                  final String topic, final ByteBuf payload) {
+        final var payloadLength = payload.readableBytes();
+        final var length = 1 + 1 + stringLength(source) + stringLength(topic) + 4 + payloadLength;
+
+        final var record = alloc.directBuffer(LENGTH_FIELD_LENGTH + length);
+        record.writeInt(length);
+        record.writeByte(TYPE_PUBLISH);
+        record.writeByte(opcode);
+        writeString(record, source);
+        writeString(record, topic);
+        record.writeInt(payloadLength);
+        record.writeBytes(payload, payload.readerIndex(), payloadLength);
+        return record;
+    }
+
+    /**
+     * 读取字符串并推进读索引
+     *
+     * @throws IllegalArgumentException 数据不足
+     */
+    public static String readString(final ByteBuf buf) {
+        if (!buf.isReadable(2)) throw malformed();
+        final var length = buf.readUnsignedShort();
+        if (!buf.isReadable(length)) throw malformed();
+        final var value = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return value;
+    }
+
+    /**
+     * 读取 MESSAGE 记录的目标用户名并推进读索引
+     *
+     * @throws IllegalArgumentException 目标数与数据不符
+     */
+    public static List<String> readTargets(final ByteBuf buf) {
+        if (!buf.isReadable(4)) throw malformed();
+        final var count = buf.readInt();
+        // 每个目标至少占用长度前缀 2 字节, 先行校验以免按伪造的目标数分配
+        if (count < 0 || count > buf.readableBytes() / 2) throw malformed();
+        final var targets = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            targets.add(readString(buf));
+        }
+        return targets;
+    }
+
+    /**
+     * 读取载荷并推进读索引, 返回原数据的切片
+     *
+     * @throws IllegalArgumentException 载荷长度与数据不符
+     */
+    public static ByteBuf readPayload(final ByteBuf buf) {
+        if (!buf.isReadable(4)) throw malformed();
+        final var length = buf.readInt();
+        if (length < 0 || length != buf.readableBytes()) throw malformed();
+        return buf.readSlice(length);
+    }
+
+    private static ByteBuf named(final ByteBufAllocator alloc, final int type, final String name) {
+        final var length = 1 + stringLength(name);
+        final var record = alloc.directBuffer(LENGTH_FIELD_LENGTH + length);
+        record.writeInt(length);
+        record.writeByte(type);
+        writeString(record, name);
+        return record;
+    }
+
+    /**
+     * 字符串编码后的字节数, 在分配记录缓冲区前调用, 超出上限时不分配缓冲区
+     *
+     * @throws IllegalArgumentException 字符串超出长度上限, 2 字节长度前缀将被截断
+     */
+    private static int stringLength(final String value) {
+        final var length = ByteBufUtil.utf8Bytes(value);
+        if (length > MAX_STRING_LENGTH) throw new IllegalArgumentException("Cluster Record String Too Long: " + length);
+        return 2 + length;
+    }
+
+    private static void writeString(final ByteBuf buf, final String value) {
+        final var lengthIndex = buf.writerIndex();
+        buf.writeShort(0);
+        final var length = ByteBufUtil.writeUtf8(buf, value);
+        buf.setShort(lengthIndex, length);
+    }
+
+    static IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Malformed Cluster Record");
+    }
+}
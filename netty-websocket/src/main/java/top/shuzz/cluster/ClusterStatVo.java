@@ -0,0 +1,105 @@
+package top.shuzz.cluster;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 集群节点统计
+ * @author heng
+ * @since 2026/10/18
+ */
+public class ClusterStatVo implements Serializable {
+
+    private boolean enabled;
+    private String nodeId;
+    private List<String> peers;
+    private int remoteUserCount;
+    private long forwardedCount;
+    private long broadcastCount;
+    private long receivedCount;
+    private long batchCount;
+
+    public ClusterStatVo() {}
+
+    public ClusterStatVo(final boolean enabled,
+                         final String nodeId,
+                         final List<String> peers,
+                         final int remoteUserCount,
+                         final long forwardedCount,
+                         final long broadcastCount,
+                         final long receivedCount,
+                         final long batchCount) {
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.peers = peers;
+        this.remoteUserCount = remoteUserCount;
+        this.forwardedCount = forwardedCount;
+        this.broadcastCount = broadcastCount;
+        this.receivedCount = receivedCount;
+        this.batchCount = batchCount;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    public void setPeers(List<String> peers) {
+        this.peers = peers;
+    }
+
+    public int getRemoteUserCount() {
+        return remoteUserCount;
+    }
+
+    public void setRemoteUserCount(int remoteUserCount) {
+        this.remoteUserCount = remoteUserCount;
+    }
+
+    public long getForwardedCount() {
+        return forwardedCount;
+    }
+
+    public void setForwardedCount(long forwardedCount) {
+        this.forwardedCount = forwardedCount;
+    }
+
+    public long getBroadcastCount() {
+        return broadcastCount;
+    }
+
+    public void setBroadcastCount(long broadcastCount) {
+        this.broadcastCount = broadcastCount;
+    }
+
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+
+    public void setReceivedCount(long receivedCount) {
+        this.receivedCount = receivedCount;
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public void setBatchCount(long batchCount) {
+        this.batchCount = batchCount;
+    }
+}
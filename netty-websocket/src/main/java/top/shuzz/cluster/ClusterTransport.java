@@ -0,0 +1,77 @@
+package top.shuzz.cluster;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Set;
+
+/**
+ * <p>节点间传输层</p>
+ * <p>负责节点间连接的建立、节点身份交换及记录的批量传输, 记录格式见 {@link ClusterRecord}</p>
+ * <p>写出的记录所有权转移至传输层, 同一目标节点的记录按提交顺序送达</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public interface ClusterTransport {
+
+    /**
+     * 启动传输层
+     *
+     * @param nodeId   当前节点 ID
+     * @param receiver 记录接收方
+     * @throws InterruptedException 启动等待被中断
+     */
+    void start(String nodeId, Receiver receiver) throws InterruptedException;
+
+    /**
+     * 向指定节点发送记录
+     *
+     * @param nodeId 目标节点 ID
+     * @param record 记录数据
+     * @return 目标节点不可达时返回 false, 记录已被释放
+     */
+    boolean send(String nodeId, ByteBuf record);
+
+    /**
+     * 向所有已连接节点发送记录, 各节点共享同一记录数据
+     *
+     * @param record 记录数据
+     */
+    void sendAll(ByteBuf record);
+
+    /**
+     * 当前可发送的节点 ID
+     */
+    Set<String> peers();
+
+    /**
+     * 已写出的批次数
+     */
+    long batchCount();
+
+    /**
+     * 关闭传输层
+     */
+    void shutdown();
+
+    /**
+     * 记录接收方, 回调在传输层 I/O 线程内执行
+     */
+    interface Receiver {
+
+        /**
+         * 到达目标节点的发送链路已就绪
+         */
+        void onPeerUp(String nodeId);
+
+        /**
+         * 来自目标节点的接收链路已断开
+         */
+        void onPeerDown(String nodeId);
+
+        /**
+         * 收到来自目标节点的记录, 记录数据不含长度前缀, 回调返回后即被释放
+         */
+        void onRecord(String nodeId, ByteBuf record);
+    }
+}
@@ -0,0 +1,443 @@
+package top.shuzz.cluster;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.AttributeKey;
+import io.netty.util.internal.PlatformDependent;
+import top.shuzz.transport.NettyTransport;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>基于 Netty TCP 全互联的节点间传输层</p>
+ * <p>每个节点监听集群端口并主动连接所有配置的节点, 主动建立的连接仅用于发送, 被动接受的连接仅用于接收, 连接断开后定时重连</p>
+ * <p>发往同一节点的记录先进入无锁队列, 由该连接的 I/O 线程批量取出后合并为一次写出及一次刷新</p>
+ * <p>仅监听配置的集群网卡地址; 连接建立后双方以共享密钥相互认证(CHALLENGE/HELLO, 见 {@link ClusterRecord}), 认证前收到其他记录或超时未完成认证即关闭连接</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class NettyMeshTransport implements ClusterTransport {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 单条记录最大长度
+     */
+    final private static int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * 单个批次最大记录数
+     */
+    final private static int MAX_BATCH_RECORDS = 256;
+
+    /**
+     * 认证超时时间(毫秒)
+     */
+    final private static long HANDSHAKE_TIMEOUT_MS = 10_000;
+
+    final private static String MAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * HELLO 认证码的连接方向标识, 防止将一个方向的 HELLO 反射至另一方向
+     */
+    final private static byte DIRECTION_CONNECT = 0x01;
+    final private static byte DIRECTION_ACCEPT = 0x02;
+
+    final private static SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * 发送连接关联的链路
+     */
+    final private static AttributeKey<PeerLink> LINK = AttributeKey.valueOf("clusterLink");
+
+    /**
+     * 接收连接关联的节点 ID
+     */
+    final private static AttributeKey<String> PEER_NODE = AttributeKey.valueOf("clusterPeerNode");
+
+    /**
+     * 本端发送的 CHALLENGE 随机数
+     */
+    final private static AttributeKey<byte[]> NONCE = AttributeKey.valueOf("clusterNonce");
+
+    final private String bindAddress;
+    final private int port;
+    final private SecretKeySpec secret;
+    final private List<InetSocketAddress> peerAddresses;
+    final private int threads;
+    final private int batchMaxBytes;
+    final private long reconnectMillis;
+
+    /**
+     * 已就绪的发送链路, 以节点 ID 为键
+     */
+    final private ConcurrentHashMap<String, PeerLink> links = new ConcurrentHashMap<>();
+
+    /**
+     * 接收连接, 以节点 ID 为键
+     */
+    final private ConcurrentHashMap<String, Channel> inboundChannels = new ConcurrentHashMap<>();
+
+    final private LongAdder batchCount = new LongAdder();
+
+    private volatile boolean running;
+    private String nodeId;
+    private Receiver receiver;
+    private EventLoopGroup group;
+    private Bootstrap bootstrap;
+
+    public NettyMeshTransport(final String bindAddress,
+                              final int port,
+                              final String secret,
+                              final List<InetSocketAddress> peerAddresses,
+                              final int threads,
+                              final int batchMaxBytes,
+                              final long reconnectMillis) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.secret = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        this.peerAddresses = peerAddresses;
+        this.threads = threads;
+        this.batchMaxBytes = batchMaxBytes;
+        this.reconnectMillis = reconnectMillis;
+    }
+
+    @Override
+    public void start(final String nodeId, final Receiver receiver) throws InterruptedException {
+        this.nodeId = nodeId;
+        this.receiver = receiver;
+        this.running = true;
+
+        final var transport = NettyTransport.current();
+        group = transport.newEventLoopGroup(threads, "cluster");
+
+        final var handler = new RecordHandler();
+        final var initializer = new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline()
+                        .addLast("frame-decoder", new LengthFieldBasedFrameDecoder(MAX_RECORD_LENGTH,
+                                0, ClusterRecord.LENGTH_FIELD_LENGTH, 0, ClusterRecord.LENGTH_FIELD_LENGTH))
+                        .addLast("cluster-handler", handler);
+            }
+        };
+
+        new ServerBootstrap()
+                .group(group)
+                .channel(transport.serverChannelClass())
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(initializer)
+                .bind(bindAddress, port).sync();
+
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(transport.socketChannelClass())
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(initializer);
+
+        peerAddresses.forEach(address -> connect(new PeerLink(address)));
+        LOGGER.info("Cluster Transport Started, Node [{}] Listening On {}:{}, {} Peer(s) Configured", nodeId, bindAddress, port, peerAddresses.size());
+    }
+
+    @Override
+    public boolean send(final String nodeId, final ByteBuf record) {
+        final var link = links.get(nodeId);
+        if (link == null) {
+            record.release();
+            return false;
+        }
+        return link.send(record);
+    }
+
+    @Override
+    public void sendAll(final ByteBuf record) {
+        try {
+            for (final var link : links.values()) {
+                link.send(record.retainedDuplicate());
+            }
+        } finally {
+            record.release();
+        }
+    }
+
+    @Override
+    public Set<String> peers() {
+        return Collections.unmodifiableSet(links.keySet());
+    }
+
+    @Override
+    public long batchCount() {
+        return batchCount.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    private void connect(final PeerLink link) {
+        if (!running) return;
+
+        bootstrap.connect(link.address).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                scheduleReconnect(link);
+                return;
+            }
+            future.channel().attr(LINK).set(link);
+        });
+    }
+
+    private void scheduleReconnect(final PeerLink link) {
+        if (running && !link.self) {
+            group.schedule(() -> connect(link), reconnectMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 计算 HELLO 认证码
+     *
+     * @param direction 发送 HELLO 一方的连接方向
+     * @param nonce     接收 HELLO 一方发送的随机数
+     * @param nodeId    发送 HELLO 一方的节点 ID
+     */
+    private byte[] mac(final byte direction, final byte[] nonce, final String nodeId) {
+        try {
+            final var mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secret);
+            mac.update(direction);
+            mac.update(nonce);
+            return mac.doFinal(nodeId.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 发送连接收到对端 HELLO 后链路就绪
+     */
+    private void onLinkReady(final PeerLink link, final Channel ch, final String peerId) {
+        if (nodeId.equals(peerId)) {
+            // 配置的节点地址指向当前节点
+            link.self = true;
+            ch.close();
+            return;
+        }
+
+        link.nodeId = peerId;
+        link.channel = ch;
+        links.put(peerId, link);
+        LOGGER.info("Cluster Link To [{}] {} Established", peerId, link.address);
+        receiver.onPeerUp(peerId);
+    }
+
+    /**
+     * 记录处理器, 所有连接共享
+     */
+    @ChannelHandler.Sharable
+    private final class RecordHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            final var ch = ctx.channel();
+            final var nonce = new byte[ClusterRecord.NONCE_LENGTH];
+            RANDOM.nextBytes(nonce);
+            ch.attr(NONCE).set(nonce);
+            ctx.writeAndFlush(ClusterRecord.challenge(ctx.alloc(), nonce));
+
+            ch.eventLoop().schedule(() -> {
+                if (ch.attr(PEER_NODE).get() == null && ch.isActive()) {
+                    LOGGER.warn("Cluster Connection {} Handshake Timeout", ch.remoteAddress());
+                    ch.close();
+                }
+            }, HANDSHAKE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            ctx.fireChannelActive();
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf record) throws Exception {
+            if (!record.isReadable()) throw ClusterRecord.malformed();
+
+            final var ch = ctx.channel();
+            final var peerId = ch.attr(PEER_NODE).get();
+            if (peerId != null) {
+                receiver.onRecord(peerId, record);
+                return;
+            }
+
+            // 认证完成前仅接受 CHALLENGE 及 HELLO, 认证失败后同一批次中的其余记录丢弃
+            if (!ch.isActive()) return;
+            final var outbound = ch.attr(LINK).get() != null;
+            switch (record.readUnsignedByte()) {
+                case ClusterRecord.TYPE_CHALLENGE -> {
+                    if (record.readableBytes() != ClusterRecord.NONCE_LENGTH) throw ClusterRecord.malformed();
+                    final var peerNonce = new byte[ClusterRecord.NONCE_LENGTH];
+                    record.readBytes(peerNonce);
+                    final var direction = outbound ? DIRECTION_CONNECT : DIRECTION_ACCEPT;
+                    ctx.writeAndFlush(ClusterRecord.hello(ctx.alloc(), nodeId, mac(direction, peerNonce, nodeId)));
+                }
+                case ClusterRecord.TYPE_HELLO -> onHello(ctx, record, outbound);
+                default -> throw ClusterRecord.malformed();
+            }
+        }
+
+        private void onHello(final ChannelHandlerContext ctx, final ByteBuf record, final boolean outbound) {
+            final var ch = ctx.channel();
+            final var peerId = ClusterRecord.readString(record);
+            if (record.readableBytes() != ClusterRecord.MAC_LENGTH) throw ClusterRecord.malformed();
+            final var peerMac = new byte[ClusterRecord.MAC_LENGTH];
+            record.readBytes(peerMac);
+
+            // 对端方向与本端相反
+            final var direction = outbound ? DIRECTION_ACCEPT : DIRECTION_CONNECT;
+            if (!MessageDigest.isEqual(peerMac, mac(direction, ch.attr(NONCE).get(), peerId))) {
+                LOGGER.warn("Cluster Connection {} Authentication Failed, Claimed Node [{}]", ch.remoteAddress(), peerId);
+                ch.close();
+                return;
+            }
+
+            ch.attr(PEER_NODE).set(peerId);
+            final var link = ch.attr(LINK).get();
+            if (link != null) {
+                onLinkReady(link, ch, peerId);
+            } else {
+                inboundChannels.put(peerId, ch);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            final var ch = ctx.channel();
+            final var link = ch.attr(LINK).get();
+            if (link != null) {
+                if (link.nodeId != null && links.remove(link.nodeId, link)) {
+                    LOGGER.warn("Cluster Link To [{}] {} Lost", link.nodeId, link.address);
+                }
+                link.channel = null;
+                link.releaseQueued();
+                scheduleReconnect(link);
+            } else {
+                final var peerId = ch.attr(PEER_NODE).get();
+                // 仅在该节点当前的接收连接断开时处理, 重连后旧连接的断开不影响新连接
+                if (peerId != null && !nodeId.equals(peerId) && inboundChannels.remove(peerId, ch)) {
+                    receiver.onPeerDown(peerId);
+                }
+            }
+            ctx.fireChannelInactive();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            LOGGER.warn("Cluster Connection {} Error: {}", ctx.channel().remoteAddress(), cause.getMessage());
+            ctx.close();
+        }
+    }
+
+    /**
+     * 到达单个节点的发送链路
+     */
+    private final class PeerLink {
+
+        final private InetSocketAddress address;
+
+        /**
+         * 待发送记录, 多线程写入, 仅由连接所属 I/O 线程取出
+         */
+        final private Queue<ByteBuf> queue = PlatformDependent.newMpscQueue();
+        final private AtomicBoolean drainScheduled = new AtomicBoolean();
+        final private Runnable drainTask = this::drain;
+
+        private volatile Channel channel;
+        private volatile String nodeId;
+        private volatile boolean self;
+
+        private PeerLink(final InetSocketAddress address) {
+            this.address = address;
+        }
+
+        private boolean send(final ByteBuf record) {
+            final var ch = channel;
+            if (ch == null) {
+                record.release();
+                return false;
+            }
+
+            queue.offer(record);
+            if (drainScheduled.compareAndSet(false, true)) {
+                ch.eventLoop().execute(drainTask);
+            }
+            return true;
+        }
+
+        /**
+         * 取出所有待发送记录, 按批次大小合并写出后统一刷新
+         */
+        private void drain() {
+            drainScheduled.set(false);
+            final var ch = channel;
+            if (ch == null || !ch.isActive()) {
+                releaseQueued();
+                return;
+            }
+
+            CompositeByteBuf batch = null;
+            ByteBuf record;
+            while ((record = queue.poll()) != null) {
+                if (batch == null) {
+                    batch = ch.alloc().compositeDirectBuffer(MAX_BATCH_RECORDS);
+                }
+                batch.addComponent(true, record);
+                if (batch.numComponents() >= MAX_BATCH_RECORDS || batch.readableBytes() >= batchMaxBytes) {
+                    writeBatch(ch, batch);
+                    batch = null;
+                }
+            }
+            if (batch != null) {
+                writeBatch(ch, batch);
+            }
+            ch.flush();
+        }
+
+        private void writeBatch(final Channel ch, final CompositeByteBuf batch) {
+            ch.write(batch, ch.voidPromise());
+            batchCount.increment();
+        }
+
+        private void releaseQueued() {
+            ByteBuf record;
+            while ((record = queue.poll()) != null) {
+                record.release();
+            }
+        }
+    }
+}
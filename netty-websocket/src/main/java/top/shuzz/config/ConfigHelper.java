@@ -10,12 +10,23 @@ import java.util.Optional;
  */
 public class ConfigHelper {
 
+    /**
+     * 调试模式, 启用时各通道记录收发数据(LoggingHandler)
+     */
+    final public static boolean DEBUG_MODE = Optional.ofNullable(getConfigBoolean("app", "DEBUG_MODE")).orElse(false);
+
     public static Integer getConfigInteger(final String group, final String key) {
         final Setting setting = new Setting("conf.setting");
         return Optional.of(setting).map(s -> s.get(group, key)).map(Integer::parseInt).orElse(null);
     }
 
 
+    public static String getConfigString(final String group, final String key) {
+        final Setting setting = new Setting("conf.setting");
+        return Optional.of(setting).map(s -> s.get(group, key)).map(String::trim).orElse(null);
+    }
+
+
     public static Boolean getConfigBoolean(final String group, final String key) {
         final Setting setting = new Setting("conf.setting");
         return Optional.of(setting).map(s -> s.get(group, key)).map(Boolean::parseBoolean).orElse(null);
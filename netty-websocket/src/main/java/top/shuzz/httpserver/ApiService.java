@@ -1,13 +1,35 @@
 package top.shuzz.httpserver;
 
+import cn.hutool.core.convert.Convert;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSON;
 import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONException;
+import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import top.shuzz.cluster.ClusterNode;
+import top.shuzz.config.ConfigHelper;
+import top.shuzz.metrics.Metrics;
+import top.shuzz.socketserver.AdmissionControl;
 import top.shuzz.socketserver.ChannelSupervise;
+import top.shuzz.socketserver.IdleReaper;
+import top.shuzz.socketserver.MessageRouter;
+import top.shuzz.socketserver.ResumableSession;
+import top.shuzz.socketserver.SlowConsumerHandler;
+import top.shuzz.socketserver.TopicRegistry;
+import top.shuzz.socketserver.WriteBatch;
+import top.shuzz.store.OfflineStore;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * API 服务
@@ -16,8 +38,43 @@ import java.util.Map;
  */
 public class ApiService {
 
+    final private static Log LOGGER = LogFactory.get();
+
     final private static String API_PREFIX = "/api";
 
+    /**
+     * 指标接口, 参数 format=prometheus 时以 Prometheus 文本格式响应
+     */
+    final public static String METRICS_PATH = API_PREFIX + "/metrics";
+
+    /**
+     * 在线用户列表接口, 按用户名升序分页, 参数 prefix 过滤用户名前缀, cursor 为上一页返回的 nextCursor, limit 为每页数量
+     */
+    final public static String USERS_PATH = API_PREFIX + "/ws-users";
+
+    final private static int USERS_DEFAULT_LIMIT = 1000;
+    final private static int USERS_MAX_LIMIT = 10000;
+
+    /**
+     * 消息发布接口, 请求体为单条消息, 消息数组或 {"messages": [...]}
+     */
+    final public static String PUBLISH_PATH = API_PREFIX + "/publish";
+
+    /**
+     * 消息发布接口令牌, 请求须携带 Authorization: Bearer &lt;token&gt;; 未配置时接口关闭
+     */
+    final private static byte[] PUBLISH_TOKEN = Optional.ofNullable(ConfigHelper.getConfigString("server", "PUBLISH_TOKEN"))
+            .filter(StrUtil::isNotBlank)
+            .map(token -> token.getBytes(StandardCharsets.UTF_8))
+            .orElse(null);
+
+    final private static String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * 未指定消息源时使用的发送方名称
+     */
+    final private static String DEFAULT_SOURCE = "Server";
+
     /**
      * GET 请求处理器
      * @param uri URI请求地址
@@ -32,8 +89,142 @@ public class ApiService {
                 final var stat = ChannelSupervise.currentConnections();
                 yield JSONUtil.parseObj(stat, false);
             }
-            case API_PREFIX + "/ws-users" -> new JSONArray(ChannelSupervise.currentUsers());
+            case API_PREFIX + "/ws-topics" -> JSONUtil.parseObj(TopicRegistry.currentTopics(), false);
+            case API_PREFIX + "/ws-sessions" -> JSONUtil.parseObj(ResumableSession.currentStat(), false);
+            case API_PREFIX + "/ws-idle" -> JSONUtil.parseObj(IdleReaper.currentStat(), false);
+            case API_PREFIX + "/ws-outbound" -> JSONUtil.parseObj(SlowConsumerHandler.currentStat(), false);
+            case API_PREFIX + "/ws-admission" -> JSONUtil.parseObj(AdmissionControl.currentStat(), false);
+            case API_PREFIX + "/cluster" -> JSONUtil.parseObj(ClusterNode.currentStat(), false);
+            case API_PREFIX + "/ws-offline" -> JSONUtil.parseObj(OfflineStore.currentStat(), false);
+            case METRICS_PATH -> JSONUtil.parseObj(Metrics.snapshot(), false);
             default -> null;
         };
     }
+
+    /**
+     * POST 请求处理器
+     * @param uri URI请求地址
+     * @param body 请求体
+     * @param alloc 缓冲区分配器
+     * @return 响应数据
+     * @throws IllegalArgumentException 请求体格式错误
+     */
+    public static JSON handlePostRequest(final String uri, final String body, final ByteBufAllocator alloc) {
+        if (StrUtil.isEmptyIfStr(uri)) return null;
+
+        return switch (uri) {
+            case PUBLISH_PATH -> publish(body, alloc);
+            default -> null;
+        };
+    }
+
+    /**
+     * <p>校验消息发布请求的令牌</p>
+     * <p>消息发布接口可指定任意发送方, 仅对持有令牌的调用方开放; 未配置令牌时始终拒绝</p>
+     * @param authorization Authorization 请求头
+     * @return 是否允许发布
+     */
+    public static boolean isPublishAuthorized(final String authorization) {
+        if (PUBLISH_TOKEN == null || authorization == null || !authorization.startsWith(BEARER_PREFIX)) return false;
+        final var token = authorization.substring(BEARER_PREFIX.length()).trim().getBytes(StandardCharsets.UTF_8);
+        // 定长比较, 避免按耗时猜测令牌
+        return MessageDigest.isEqual(PUBLISH_TOKEN, token);
+    }
+
+    /**
+     * <p>发布消息至 WebSocket 用户</p>
+     * <p>每条消息含 targets 时推送至指定用户, 含 topic 时发布至主题, 消息对象本身作为消息数据原样推送, 未指定 source 时以 {@value #DEFAULT_SOURCE} 填充</p>
+     * <p>整批消息共用一个 {@link WriteBatch}, 每个接收通道仅提交一次写任务并刷新一次</p>
+     * @param body 请求体
+     * @param alloc 缓冲区分配器
+     * @return 单条消息时为该消息的结果, 批量时为按顺序排列的结果数组
+     */
+    private static JSON publish(final String body, final ByteBufAllocator alloc) {
+        if (StrUtil.isBlank(body)) throw new IllegalArgumentException("Empty Body");
+
+        final JSON json;
+        try {
+            json = JSONUtil.parse(body);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+
+        if (json instanceof JSONArray messages) {
+            return new JSONArray(publishAll(messages, alloc));
+        }
+        if (json instanceof JSONObject object) {
+            return object.get("messages") instanceof JSONArray messages
+                    ? new JSONArray(publishAll(messages, alloc))
+                    : publishAll(List.of(object), alloc).get(0);
+        }
+        throw new IllegalArgumentException("Malformed JSON");
+    }
+
+    private static List<JSONObject> publishAll(final List<?> messages, final ByteBufAllocator alloc) {
+        final var batch = new WriteBatch();
+        final var results = new ArrayList<JSONObject>(messages.size());
+        try {
+            for (final var message : messages) {
+                results.add(message instanceof JSONObject object
+                        ? publishOne(batch, object, alloc)
+                        : JSONUtil.createObj().set("error", "Not An Object"));
+            }
+        } finally {
+            LOGGER.debug("Published {} Message(s), {} Frame(s) To {} Channel(s)", messages.size(), batch.frameCount(), batch.channelCount());
+            batch.flush();
+        }
+        return results;
+    }
+
+    private static JSONObject publishOne(final WriteBatch batch, final JSONObject message, final ByteBufAllocator alloc) {
+        final var source = Optional.ofNullable(message.getStr("source")).filter(StrUtil::isNotBlank).orElse(DEFAULT_SOURCE);
+        final var topic = message.getStr("topic");
+        final var targets = Optional.ofNullable(message.getJSONArray("targets")).map(array -> array.toList(String.class)).orElse(List.of());
+        if (topic == null && targets.isEmpty()) {
+            return JSONUtil.createObj().set("error", "No Targets Or Topic");
+        }
+        if (topic != null && !TopicRegistry.isValidTopic(topic, false)) {
+            return JSONUtil.createObj().set("error", "Invalid Topic");
+        }
+
+        message.set("source", source);
+        final var content = ByteBufUtil.writeUtf8(alloc, message.toString());
+        try {
+            // 与客户端消息一致, 同时指定时主题优先
+            if (topic != null) {
+                return JSONUtil.createObj()
+                        .set("topic", topic)
+                        .set("subscribers", MessageRouter.publishBatched(batch, alloc, source, topic, content));
+            }
+            return JSONUtil.createObj()
+                    .set("targets", JSONUtil.parseObj(MessageRouter.sendBatched(batch, alloc, source, targets, content), false));
+        } finally {
+            content.release();
+        }
+    }
+
+    /**
+     * 在线用户列表, 以分块方式流式输出
+     * @param params 请求参数
+     * @return 用户列表分块输入
+     */
+    public static UserListChunkedInput userList(final Map<String, List<String>> params) {
+        final var limit = Math.min(Math.max(1, Convert.toInt(firstParam(params, "limit"), USERS_DEFAULT_LIMIT)), USERS_MAX_LIMIT);
+        final var users = ChannelSupervise.iterateUsers(firstParam(params, "prefix"), firstParam(params, "cursor"));
+        return new UserListChunkedInput(users, limit);
+    }
+
+    private static String firstParam(final Map<String, List<String>> params, final String name) {
+        return Optional.ofNullable(params.get(name)).filter(values -> !values.isEmpty()).map(values -> values.get(0)).orElse(null);
+    }
+
+    /**
+     * 是否请求 Prometheus 文本格式的指标
+     * @param uri URI请求地址
+     * @param params 请求参数
+     */
+    public static boolean isPrometheusRequest(final String uri, final Map<String, List<String>> params) {
+        return METRICS_PATH.equals(uri)
+                && Optional.ofNullable(params.get("format")).map(values -> values.contains("prometheus")).orElse(false);
+    }
 }
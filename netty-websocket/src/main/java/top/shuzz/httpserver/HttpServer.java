@@ -3,8 +3,8 @@ package top.shuzz.httpserver;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import top.shuzz.transport.EventLoops;
+import top.shuzz.transport.NettyTransport;
 
 /**
  * HTTP 服务器
@@ -18,26 +18,29 @@ public class HttpServer {
     public static void initAndStart(final Integer port) {
         LOGGER.info("HTTP Server Starting...");
 
-        final var acceptGroup = new NioEventLoopGroup();
-        final var workerGroup = new NioEventLoopGroup();
+        final var transport = NettyTransport.current();
+
+        // 与 WebSocket 服务共用事件循环组
+        EventLoops.retain();
 
         try {
             final var serverBootstrap = new ServerBootstrap();
             serverBootstrap
-                    .group(acceptGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .group(EventLoops.acceptGroup(), EventLoops.workerGroup())
+                    .channel(transport.serverChannelClass())
                     .childHandler(new NioHttpChannelInitializer());
 
-            final var serverChannel = serverBootstrap.bind(port).channel();
+            final var serverChannels = transport.bind(serverBootstrap, port, EventLoops.ACCEPTOR_THREADS);
 
-            LOGGER.info("HTTP Server Started, Listening on {}", port);
+            LOGGER.info("HTTP Server Started, Listening on {} With {} Listener(s)", port, serverChannels.size());
 
-            serverChannel.closeFuture().sync();
+            for (final var serverChannel : serverChannels) {
+                serverChannel.closeFuture().sync();
+            }
         } catch (Exception e) {
             LOGGER.error(e, "HTTP Server Error Occurred");
         } finally {
-            acceptGroup.shutdownGracefully();
-            workerGroup.shutdownGracefully();
+            EventLoops.release();
 
             LOGGER.info("HTTP Server Closed, Bye.");
         }
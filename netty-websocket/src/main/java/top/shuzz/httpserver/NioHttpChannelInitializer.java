@@ -1,11 +1,16 @@
 package top.shuzz.httpserver;
 
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import top.shuzz.config.ConfigHelper;
+
+import java.util.Optional;
 
 /**
  * @author heng
@@ -13,14 +18,32 @@ import io.netty.handler.stream.ChunkedWriteHandler;
  */
 public class NioHttpChannelInitializer extends ChannelInitializer<SocketChannel> {
 
+    /**
+     * 请求体最大字节数, 批量发布消息时需容纳整批消息
+     */
+    final public static int MAX_CONTENT_LENGTH = Optional.ofNullable(
+            ConfigHelper.getConfigInteger("server", "HTTP_MAX_CONTENT_LENGTH")).orElse(8 * 1024 * 1024);
+
     @Override
     protected void initChannel(SocketChannel ch) throws Exception {
         final var pipeline = ch.pipeline();
-        pipeline.addLast("logger", new LoggingHandler());
+        if (ConfigHelper.DEBUG_MODE) {
+            pipeline.addLast("logger", new LoggingHandler(LogLevel.INFO));
+        }
         pipeline.addLast("http-codec", new HttpServerCodec());
-        pipeline.addLast("aggregator", new HttpObjectAggregator(65536));
-        pipeline.addLast("http-chunked", new ChunkedWriteHandler());
+        pipeline.addLast("aggregator", new HttpObjectAggregator(MAX_CONTENT_LENGTH));
 
+        addApiHandlers(pipeline);
+    }
+
+    /**
+     * <p>添加 API 处理器</p>
+     * <p>统一端口模式下由分派处理器在识别为 API 请求后调用, 追加于 HTTP 编解码器及聚合器之后</p>
+     *
+     * @param pipeline 通道处理链
+     */
+    public static void addApiHandlers(final ChannelPipeline pipeline) {
+        pipeline.addLast("http-chunked", new ChunkedWriteHandler());
         pipeline.addLast("nio-http-handler", new NioHttpHandler());
     }
 }
@@ -1,14 +1,18 @@
 package top.shuzz.httpserver;
 
+import cn.hutool.json.JSON;
 import cn.hutool.json.JSONNull;
 import cn.hutool.json.JSONUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.stream.ChunkedInput;
+import top.shuzz.metrics.Metrics;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
@@ -23,6 +27,8 @@ public class NioHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
 
     final private static Log LOGGER = LogFactory.get();
 
+    final private static String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
 
@@ -36,6 +42,18 @@ public class NioHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
 
                 LOGGER.info("GET Request => [{}], [{}]", path, JSONUtil.toJsonStr(params));
 
+                // 处理在线用户列表, 分块流式输出
+                if (ApiService.USERS_PATH.equals(path)) {
+                    this.handleChunkedResponse(ctx, request, ApiService.userList(params));
+                    return;
+                }
+
+                // 处理 Prometheus 指标采集
+                if (ApiService.isPrometheusRequest(path, params)) {
+                    this.handleResponse(ctx, HttpResponseStatus.OK, request, PROMETHEUS_CONTENT_TYPE, Metrics.prometheus());
+                    return;
+                }
+
                 // 处理GET业务
                 final var result = ApiService.handleGetRequest(path, params);
 
@@ -58,14 +76,56 @@ public class NioHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
                         );
             }
             case "POST" -> { // 处理 POST 请求
+                final var path = new QueryStringDecoder(uri, StandardCharsets.UTF_8).path();
+
+                // 消息发布需校验令牌, 校验失败时不解析请求体
+                if (ApiService.PUBLISH_PATH.equals(path)
+                        && !ApiService.isPublishAuthorized(request.headers().get(HttpHeaderNames.AUTHORIZATION))) {
+                    LOGGER.warn("POST Request => [{}] Unauthorized From {}", path, ctx.channel().remoteAddress());
+                    this.handleJsonResponse(
+                            ctx,
+                            HttpResponseStatus.UNAUTHORIZED,
+                            request,
+                            JSONUtil.toJsonStr(Map.of("code", 401, "msg", "UNAUTHORIZED", "data", JSONNull.NULL))
+                    );
+                    return;
+                }
+
                 final var reqBody = this.parseHttpBodyPayloadAsJsonStr(request);
-                LOGGER.info("POST Request => [{}], [{}]", uri, reqBody);
+                // 批量发布的请求体可能较大, 仅记录长度
+                LOGGER.info("POST Request => [{}], [{} Bytes]", path, request.content().readableBytes());
+
+                // 处理POST业务
+                final JSON result;
+                try {
+                    result = ApiService.handlePostRequest(path, reqBody, ctx.alloc());
+                } catch (IllegalArgumentException e) {
+                    this.handleJsonResponse(
+                            ctx,
+                            HttpResponseStatus.BAD_REQUEST,
+                            request,
+                            JSONUtil.toJsonStr(Map.of("code", 400, "msg", "BAD_REQUEST", "data", e.getMessage()))
+                    );
+                    return;
+                }
 
-                this.handleJsonResponse(
-                        ctx,
-                        HttpResponseStatus.OK,
-                        request,
-                        JSONUtil.toJsonStr(Map.of("code", 0, "msg", "OK", "data", JSONNull.NULL)));
+                Optional.ofNullable(result)
+                        .ifPresentOrElse(
+                                // 处理正常响应
+                                r -> this.handleJsonResponse(
+                                        ctx,
+                                        HttpResponseStatus.OK,
+                                        request,
+                                        JSONUtil.toJsonStr(Map.of("code", 0, "msg", "OK", "data", r))
+                                ),
+                                // 处理不存在API响应
+                                () -> this.handleJsonResponse(
+                                        ctx,
+                                        HttpResponseStatus.BAD_REQUEST,
+                                        request,
+                                        JSONUtil.toJsonStr(Map.of("code", 400, "msg", "BAD_REQUEST", "data", "NO SUCH API"))
+                                )
+                        );
             }
             // 处理其他请求
             default -> this.handleJsonResponse(
@@ -100,9 +160,50 @@ public class NioHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
                                     final HttpResponseStatus httpResponseStatus,
                                     final FullHttpRequest request,
                                     final String responseJsonStr) {
+        this.handleResponse(ctx, httpResponseStatus, request, "application/json", responseJsonStr);
+    }
+
+    /**
+     * 处理分块 JSON 响应
+     * @param ctx 通信上下文
+     * @param request HTTP 请求体
+     * @param input JSON 分块输入
+     */
+    private void handleChunkedResponse(final ChannelHandlerContext ctx,
+                                       final FullHttpRequest request,
+                                       final ChunkedInput<ByteBuf> input) {
+        final var response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set("Content-Type", "application/json");
+        HttpUtil.setTransferEncodingChunked(response, true);
+
+        final var keepAlive = HttpUtil.isKeepAlive(request);
+        if (keepAlive) {
+            response.headers().set("Connection", "keep-alive");
+        }
+        ctx.write(response);
+        // 由 ChunkedWriteHandler 按可写状态逐块写出, 末尾附加 LastHttpContent
+        final var future = ctx.writeAndFlush(new HttpChunkedInput(input));
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    /**
+     * 处理文本响应
+     * @param ctx 通信上下文
+     * @param httpResponseStatus HTTP 状态
+     * @param request HTTP 请求体
+     * @param contentType 响应内容类型
+     * @param responseStr 响应文本
+     */
+    private void handleResponse(final ChannelHandlerContext ctx,
+                                final HttpResponseStatus httpResponseStatus,
+                                final FullHttpRequest request,
+                                final String contentType,
+                                final String responseStr) {
 
         // 获取数据二进制字节流
-        final var responseJsonBytes = Optional.ofNullable(responseJsonStr)
+        final var responseJsonBytes = Optional.ofNullable(responseStr)
                 .map(resJson -> resJson.getBytes(StandardCharsets.UTF_8))
                 .orElse(new byte[0]);
 
@@ -115,7 +216,7 @@ public class NioHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
 
         // 设置响应头
         response.headers()
-                .set("Content-Type", "application/json")
+                .set("Content-Type", contentType)
                 .setInt("Content-Length", response.content().readableBytes());
 
         if (HttpUtil.isKeepAlive(request)) {
@@ -0,0 +1,119 @@
+package top.shuzz.httpserver;
+
+import cn.hutool.json.JSONUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.util.Iterator;
+
+/**
+ * <p>用户列表分块输出</p>
+ * <p>由 ChunkedWriteHandler 按通道可写状态逐块拉取, 用户名直接编码进池化缓冲区, 不构建中间列表或完整的响应字符串</p>
+ * <p>响应体格式: {"code":0,"msg":"OK","data":["..."],"nextCursor":"..."}, 无后续分页时 nextCursor 为 null</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class UserListChunkedInput implements ChunkedInput<ByteBuf> {
+
+    /**
+     * 单块大小(字节), 超过后结束当前块
+     */
+    final private static int CHUNK_SIZE = 8192;
+
+    final private static String HEAD = "{\"code\":0,\"msg\":\"OK\",\"data\":[";
+    final private static String TAIL = "],\"nextCursor\":";
+
+    final private Iterator<String> users;
+    final private int limit;
+
+    private int written;
+    private String last;
+    private boolean started;
+    private boolean ended;
+
+    /**
+     * @param users 有序的用户名迭代器
+     * @param limit 本页最多输出的用户数
+     */
+    public UserListChunkedInput(final Iterator<String> users, final int limit) {
+        this.users = users;
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return ended;
+    }
+
+    @Override
+    public void close() {
+        ended = true;
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) {
+        if (ended) return null;
+
+        final var buf = allocator.buffer(CHUNK_SIZE + 256);
+        if (!started) {
+            started = true;
+            ByteBufUtil.writeAscii(buf, HEAD);
+        }
+
+        while (buf.readableBytes() < CHUNK_SIZE && written < limit && users.hasNext()) {
+            final var name = users.next();
+            if (written++ > 0) buf.writeByte(',');
+            writeString(buf, name);
+            last = name;
+        }
+
+        if (written >= limit || !users.hasNext()) {
+            ended = true;
+            ByteBufUtil.writeAscii(buf, TAIL);
+            // 恰好取满一页且仍有后续用户时返回游标
+            if (written >= limit && users.hasNext()) {
+                writeString(buf, last);
+            } else {
+                ByteBufUtil.writeAscii(buf, "null");
+            }
+            buf.writeByte('}');
+        }
+        return buf;
+    }
+
+    @Override
+    public long length() {
+        return -1;
+    }
+
+    @Override
+    public long progress() {
+        return written;
+    }
+
+    /**
+     * 写入 JSON 字符串, 仅在含有需转义的字符时经由 Hutool 转义
+     */
+    private static void writeString(final ByteBuf buf, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\' || c == '<' || c == 0x2028 || c == 0x2029) {
+                ByteBufUtil.writeUtf8(buf, JSONUtil.quote(value));
+                return;
+            }
+        }
+        buf.writeByte('"');
+        ByteBufUtil.writeUtf8(buf, value);
+        buf.writeByte('"');
+    }
+}
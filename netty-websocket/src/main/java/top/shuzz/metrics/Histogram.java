@@ -0,0 +1,137 @@
+package top.shuzz.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>对数线性直方图</p>
+ * <p>参考 HdrHistogram 的分桶方式: 每个 2 的幂区间等分为 {@value #SUB_BUCKETS} 个桶, 覆盖全部非负 long 值, 相对误差不超过 12.5%</p>
+ * <p>计数按线程分条存储, 不同 I/O 线程写入不同的数组, 记录时仅做一次原子自增, 不分配对象</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class Histogram {
+
+    final private static int SUB_BUCKET_BITS = 3;
+    final private static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 桶数量: 小于 SUB_BUCKETS 的值各占一个桶, 其余每个 2 的幂区间 SUB_BUCKETS 个桶
+     */
+    final private static int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * 分条数, 须为 2 的幂
+     */
+    final private static int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+    final private AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+    final private LongAdder sum = new LongAdder();
+    final private LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public Histogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+    }
+
+    /**
+     * 记录数值, 负数按 0 记录
+     */
+    public void record(final long value) {
+        final var v = Math.max(0, value);
+        stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)].incrementAndGet(bucketOf(v));
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * 生成当前快照, 与并发写入之间不保证原子性
+     */
+    public Snapshot snapshot() {
+        final var counts = new long[BUCKET_COUNT];
+        var total = 0L;
+        for (final var stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                final var count = stripe.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        return new Snapshot(counts, total, sum.sum(), max.get());
+    }
+
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        final var magnitude = 63 - Long.numberOfLeadingZeros(value);
+        final var sub = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    static long upperBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS - 1) return bucket;
+        if (bucket == BUCKET_COUNT - 1) return Long.MAX_VALUE;
+        return lowerBoundOf(bucket + 1) - 1;
+    }
+
+    private static long lowerBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        final var magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (magnitude - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static final class Snapshot {
+
+        final private long[] counts;
+        final private long count;
+        final private long sum;
+        final private long max;
+
+        private Snapshot(final long[] counts, final long count, final long sum, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * 分位数, 返回所在桶的上界且不超过最大值
+         *
+         * @param quantile 分位(0 - 1)
+         */
+        public long quantile(final double quantile) {
+            if (count == 0) return 0;
+            final var rank = Math.max(1, (long) Math.ceil(quantile * count));
+            var seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBoundOf(i), max);
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package top.shuzz.metrics;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>运行指标</p>
+ * <p>热路径上的指标均为静态字段, 计数器使用分条的 LongAdder, 分布使用 {@link Histogram}, 记录时不分配对象且无需按名称查找</p>
+ * <p>瞬时值(连接数, 写队列深度等)以 {@link #gauge} 注册, 仅在采集时计算</p>
+ * <p>以 JSON 或 Prometheus 文本格式输出, JSON 中的速率为相邻两次采集(间隔不小于 1 秒)之间的平均值</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class Metrics {
+
+    /**
+     * 入站数据帧数
+     */
+    final public static LongAdder MESSAGES_IN = new LongAdder();
+
+    /**
+     * 入站数据帧载荷字节数(解压后)
+     */
+    final public static LongAdder BYTES_IN = new LongAdder();
+
+    /**
+     * 出站帧数(合并后)
+     */
+    final public static LongAdder MESSAGES_OUT = new LongAdder();
+
+    /**
+     * 出站字节数(压缩后)
+     */
+    final public static LongAdder BYTES_OUT = new LongAdder();
+
+    /**
+     * 因超出数据帧速率限制被丢弃的入站消息数
+     */
+    final public static LongAdder THROTTLED_MESSAGES = new LongAdder();
+
+    /**
+     * 因超出群发速率限制被丢弃的入站消息数
+     */
+    final public static LongAdder THROTTLED_BROADCASTS = new LongAdder();
+
+    /**
+     * 路由耗时(纳秒), 自消息进入路由器至扇出完成, 含业务队列等待时间
+     */
+    final public static Histogram ROUTE_LATENCY = new Histogram();
+
+    /**
+     * 单条消息的扇出目标数
+     */
+    final public static Histogram FANOUT = new Histogram();
+
+    final private static long START_NANOS = System.nanoTime();
+
+    final private static Map<String, Gauge> GAUGES = new LinkedHashMap<>();
+
+    /**
+     * 上次计算速率时的计数, 依次为入站帧数, 入站字节数, 出站帧数, 出站字节数
+     */
+    final private static long[] lastCounts = new long[4];
+    final private static double[] lastRates = new double[4];
+    private static long lastRateNanos = START_NANOS;
+
+    private Metrics() {}
+
+    /**
+     * 注册瞬时值指标, 重复注册时覆盖
+     *
+     * @param name     指标名称(Prometheus 命名)
+     * @param help     指标说明
+     * @param supplier 采集时调用
+     */
+    public static void gauge(final String name, final String help, final LongSupplier supplier) {
+        synchronized (GAUGES) {
+            GAUGES.put(name, new Gauge(help, supplier));
+        }
+    }
+
+    /**
+     * JSON 格式的指标
+     */
+    public static Map<String, Object> snapshot() {
+        final var counts = new long[]{MESSAGES_IN.sum(), BYTES_IN.sum(), MESSAGES_OUT.sum(), BYTES_OUT.sum()};
+        final var rates = rates(counts);
+
+        final var result = new LinkedHashMap<String, Object>();
+        result.put("uptimeSeconds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - START_NANOS));
+        result.put("messagesIn", counts[0]);
+        result.put("bytesIn", counts[1]);
+        result.put("messagesOut", counts[2]);
+        result.put("bytesOut", counts[3]);
+        result.put("messagesInPerSecond", rates[0]);
+        result.put("bytesInPerSecond", rates[1]);
+        result.put("messagesOutPerSecond", rates[2]);
+        result.put("bytesOutPerSecond", rates[3]);
+        result.put("throttledMessages", THROTTLED_MESSAGES.sum());
+        result.put("throttledBroadcasts", THROTTLED_BROADCASTS.sum());
+        result.put("routeLatencyNanos", histogram(ROUTE_LATENCY.snapshot()));
+        result.put("fanout", histogram(FANOUT.snapshot()));
+        synchronized (GAUGES) {
+            GAUGES.forEach((name, gauge) -> result.put(StrUtil.toCamelCase(name), gauge.supplier.getAsLong()));
+        }
+        return result;
+    }
+
+    /**
+     * Prometheus 文本格式(0.0.4)的指标
+     */
+    public static String prometheus() {
+        final var out = new StringBuilder(2048);
+        counter(out, "ws_messages_in_total", "Inbound data frames", MESSAGES_IN.sum());
+        counter(out, "ws_bytes_in_total", "Inbound data frame payload bytes", BYTES_IN.sum());
+        counter(out, "ws_messages_out_total", "Outbound frames", MESSAGES_OUT.sum());
+        counter(out, "ws_bytes_out_total", "Outbound bytes", BYTES_OUT.sum());
+        counter(out, "ws_throttled_messages_total", "Inbound messages dropped by the per-connection message rate limit", THROTTLED_MESSAGES.sum());
+        counter(out, "ws_throttled_broadcasts_total", "Inbound broadcasts dropped by the per-connection broadcast rate limit", THROTTLED_BROADCASTS.sum());
+        summary(out, "ws_route_latency_seconds", "Routing latency", ROUTE_LATENCY.snapshot(), 1e-9);
+        summary(out, "ws_fanout_size", "Recipients per routed message", FANOUT.snapshot(), 1);
+        synchronized (GAUGES) {
+            GAUGES.forEach((name, gauge) -> {
+                out.append("# HELP ").append(name).append(' ').append(gauge.help).append('\n');
+                out.append("# TYPE ").append(name).append(" gauge\n");
+                out.append(name).append(' ').append(gauge.supplier.getAsLong()).append('\n');
+            });
+        }
+        return out.toString();
+    }
+
+    private static synchronized double[] rates(final long[] counts) {
+        final var now = System.nanoTime();
+        final var elapsed = now - lastRateNanos;
+        if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+            for (int i = 0; i < counts.length; i++) {
+                lastRates[i] = (counts[i] - lastCounts[i]) * 1e9 / elapsed;
+                lastCounts[i] = counts[i];
+            }
+            lastRateNanos = now;
+        }
+        return lastRates.clone();
+    }
+
+    private static Map<String, Object> histogram(final Histogram.Snapshot snapshot) {
+        final var result = new LinkedHashMap<String, Object>();
+        result.put("count", snapshot.count());
+        result.put("mean", snapshot.mean());
+        result.put("p50", snapshot.quantile(0.5));
+        result.put("p90", snapshot.quantile(0.9));
+        result.put("p99", snapshot.quantile(0.99));
+        result.put("p999", snapshot.quantile(0.999));
+        result.put("max", snapshot.max());
+        return result;
+    }
+
+    private static void counter(final StringBuilder out, final String name, final String help, final long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summary(final StringBuilder out, final String name, final String help,
+                                final Histogram.Snapshot snapshot, final double scale) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" summary\n");
+        for (final var quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(snapshot.quantile(quantile) * scale).append('\n');
+        }
+        out.append(name).append("_sum ").append(snapshot.sum() * scale).append('\n');
+        out.append(name).append("_count ").append(snapshot.count()).append('\n');
+    }
+
+    private static final class Gauge {
+
+        final private String help;
+        final private LongSupplier supplier;
+
+        private Gauge(final String help, final LongSupplier supplier) {
+            this.help = help;
+            this.supplier = supplier;
+        }
+    }
+}
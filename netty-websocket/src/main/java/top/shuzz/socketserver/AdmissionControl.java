@@ -0,0 +1,197 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+import top.shuzz.config.ConfigHelper;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>连接准入控制</p>
+ * <p>连接建立后, 初始化处理链之前依次检查全局连接数上限, 单 IP 连接数上限及握手速率(令牌桶), 任一不满足即拒绝</p>
+ * <p>被拒绝的连接仅添加 {@link #REJECT_HANDLER}, 不创建 HTTP 编解码器, 不进行握手及通道注册, 收到首个数据包后以预编码的 503 响应并关闭</p>
+ * <p>统一端口模式下 API 请求同样受限</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class AdmissionControl {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 全局连接数上限, 0 表示不限制
+     */
+    final private static int MAX_CONNECTIONS = Optional.ofNullable(ConfigHelper.getConfigInteger("admission", "MAX_CONNECTIONS")).orElse(0);
+
+    /**
+     * 单 IP 连接数上限, 0 表示不限制
+     */
+    final private static int MAX_CONNECTIONS_PER_IP = Optional.ofNullable(ConfigHelper.getConfigInteger("admission", "MAX_CONNECTIONS_PER_IP")).orElse(0);
+
+    /**
+     * 每秒允许的握手数, 0 表示不限制
+     */
+    final private static int HANDSHAKE_RATE = Optional.ofNullable(ConfigHelper.getConfigInteger("admission", "HANDSHAKE_RATE")).orElse(0);
+
+    /**
+     * 握手突发数, 即令牌桶容量, 0 表示与每秒握手数相同
+     */
+    final private static int HANDSHAKE_BURST = Optional.ofNullable(ConfigHelper.getConfigInteger("admission", "HANDSHAKE_BURST"))
+            .filter(burst -> burst > 0)
+            .orElse(Math.max(1, HANDSHAKE_RATE));
+
+    /**
+     * 被拒绝的连接等待请求的最长时间(毫秒), 超时后直接关闭
+     */
+    final private static long REJECT_TIMEOUT_MS = 3000;
+
+    final private static TokenBucket HANDSHAKE_BUCKET = HANDSHAKE_RATE > 0 ? new TokenBucket(HANDSHAKE_RATE, HANDSHAKE_BURST) : null;
+
+    /**
+     * 已准入的连接数
+     */
+    final private static AtomicInteger CONNECTIONS = new AtomicInteger();
+
+    /**
+     * 各 IP 已准入的连接数, 仅在启用单 IP 上限时维护
+     */
+    final private static Map<InetAddress, Integer> ADDRESS_CONNECTIONS = new ConcurrentHashMap<>();
+
+    final private static LongAdder REJECTED_BY_LIMIT = new LongAdder();
+    final private static LongAdder REJECTED_BY_ADDRESS = new LongAdder();
+    final private static LongAdder REJECTED_BY_RATE = new LongAdder();
+
+    final private static ByteBuf SERVICE_UNAVAILABLE = Unpooled.unreleasableBuffer(Unpooled.directBuffer().writeBytes((
+            "HTTP/1.1 503 Service Unavailable\r\n"
+                    + "Content-Type: text/plain; charset=utf-8\r\n"
+                    + "Content-Length: 11\r\n"
+                    + "Retry-After: 1\r\n"
+                    + "Connection: close\r\n"
+                    + "\r\n"
+                    + "SERVER BUSY").getBytes(StandardCharsets.US_ASCII)).asReadOnly());
+
+    /**
+     * 被拒绝连接的处理器
+     */
+    final static ChannelHandler REJECT_HANDLER = new RejectHandler();
+
+    private AdmissionControl() {}
+
+    /**
+     * <p>检查是否准入连接</p>
+     * <p>准入的连接计入连接数, 通道关闭时释放</p>
+     *
+     * @param ch 新建立的连接
+     * @return 拒绝时返回 false
+     */
+    public static boolean admit(final Channel ch) {
+        if (CONNECTIONS.incrementAndGet() > MAX_CONNECTIONS && MAX_CONNECTIONS > 0) {
+            CONNECTIONS.decrementAndGet();
+            REJECTED_BY_LIMIT.increment();
+            return false;
+        }
+
+        final var address = MAX_CONNECTIONS_PER_IP > 0 ? remoteAddress(ch) : null;
+        if (address != null && !acquireAddress(address)) {
+            CONNECTIONS.decrementAndGet();
+            REJECTED_BY_ADDRESS.increment();
+            return false;
+        }
+
+        // 速率检查置于最后, 被连接数上限拒绝的连接不消耗令牌
+        if (HANDSHAKE_BUCKET != null && !HANDSHAKE_BUCKET.tryAcquire()) {
+            CONNECTIONS.decrementAndGet();
+            if (address != null) releaseAddress(address);
+            REJECTED_BY_RATE.increment();
+            return false;
+        }
+
+        ch.closeFuture().addListener(future -> {
+            CONNECTIONS.decrementAndGet();
+            if (address != null) releaseAddress(address);
+        });
+        return true;
+    }
+
+    /**
+     * 准入控制统计
+     */
+    public static WebSocketAdmissionStatVo currentStat() {
+        return new WebSocketAdmissionStatVo(
+                MAX_CONNECTIONS,
+                MAX_CONNECTIONS_PER_IP,
+                HANDSHAKE_RATE,
+                CONNECTIONS.get(),
+                ADDRESS_CONNECTIONS.size(),
+                REJECTED_BY_LIMIT.sum(),
+                REJECTED_BY_ADDRESS.sum(),
+                REJECTED_BY_RATE.sum()
+        );
+    }
+
+    private static boolean acquireAddress(final InetAddress address) {
+        final var acquired = new boolean[1];
+        ADDRESS_CONNECTIONS.compute(address, (key, count) -> {
+            final int current = count == null ? 0 : count;
+            if (current >= MAX_CONNECTIONS_PER_IP) return count;
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private static void releaseAddress(final InetAddress address) {
+        ADDRESS_CONNECTIONS.computeIfPresent(address, (key, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private static InetAddress remoteAddress(final Channel ch) {
+        return ch.remoteAddress() instanceof InetSocketAddress socketAddress ? socketAddress.getAddress() : null;
+    }
+
+    /**
+     * <p>被拒绝连接的处理器</p>
+     * <p>丢弃收到的数据, 写出 503 响应后关闭连接; 未发送请求的连接在 {@value #REJECT_TIMEOUT_MS} 毫秒后关闭</p>
+     */
+    @ChannelHandler.Sharable
+    private static class RejectHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            final var ch = ctx.channel();
+            IdleReaper.TIMER.newTimeout(timeout -> ch.close(), REJECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            LOGGER.debug("Connection [{}] Rejected", ch.remoteAddress());
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            ReferenceCountUtil.release(msg);
+            final var config = ctx.channel().config();
+            // 同一次读循环中的后续数据包仅丢弃
+            if (!config.isAutoRead()) return;
+            config.setAutoRead(false);
+            ctx.writeAndFlush(SERVICE_UNAVAILABLE.duplicate()).addListener(ChannelFutureListener.CLOSE);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>二进制消息信封</p>
+ * <p>二进制帧使用定长头部描述路由信息, 载荷作为不透明字节原样转发, 路由过程不进行任何文本编解码</p>
+ * <p>所有整数均为大端序, 用户以注册时分配的整数 ID 标识, 可通过 RESOLVE 消息查询; RESOLVE 为只读查询, 未加入或 ID 已回收的用户名返回 0</p>
+ * <p>用户 ID 在用户在线(本节点或集群其他节点)或保留可恢复会话期间有效; 此后 ID 可能被回收, 过期的 ID 不再指向任何用户, 客户端须重新 RESOLVE.
+ * 重放的离线消息若发送方 ID 已回收, sourceId 为 0</p>
+ * <pre>
+ * SEND     (客户端 -> 服务端) | 0x01 | flags:1 | targetCount:2 | targetId:4 * targetCount | payloadLength:4 | payload |
+ * RESOLVE  (客户端 -> 服务端) | 0x02 | flags:1 | nameCount:2   | (nameLength:2 | UTF-8 name) * nameCount          |
+ * ACK      (客户端 -> 服务端) | 0x03 | flags:1 | reserved:2    | seq:8                                             |
+ * DELIVER  (服务端 -> 客户端) | 0x81 | flags:1 | reserved:2    | sourceId:4 | payloadLength:4 | payload           |
+ * DELIVER_SEQ (服务端 -> 客户端) | 0x83 | flags:1 | reserved:2 | seq:8 | sourceId:4 | payloadLength:4 | payload  |
+ * RESOLVED (服务端 -> 客户端) | 0x82 | flags:1 | idCount:2     | userId:4 * idCount                                |
+ * ERROR    (服务端 -> 客户端) | 0xFF | code:1  | reserved:2    |
+ * </pre>
+ * <p>SEND 的 targetCount 为 0 时群发至所有已加入用户; 已启用可恢复会话的客户端以 DELIVER_SEQ 代替 DELIVER 接收消息, 见 {@link ResumableSession}</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class BinaryEnvelope {
+
+    final public static int TYPE_SEND = 0x01;
+    final public static int TYPE_RESOLVE = 0x02;
+    final public static int TYPE_ACK = 0x03;
+    final public static int TYPE_DELIVER = 0x81;
+    final public static int TYPE_RESOLVED = 0x82;
+    final public static int TYPE_DELIVER_SEQ = 0x83;
+    final public static int TYPE_ERROR = 0xFF;
+
+    /**
+     * 发送方尚未加入
+     */
+    final public static int ERROR_NOT_JOINED = 0x01;
+
+    /**
+     * 消息格式错误
+     */
+    final public static int ERROR_MALFORMED = 0x02;
+
+    /**
+     * 发送方超出消息速率限制, 消息已丢弃
+     */
+    final public static int ERROR_RATE_LIMITED = 0x03;
+
+    /**
+     * 通用头部长度: 类型, 标志位及计数
+     */
+    final private static int HEADER_LENGTH = 4;
+
+    /**
+     * DELIVER 头部长度
+     */
+    final private static int DELIVER_HEADER_LENGTH = 12;
+
+    /**
+     * ACK 消息长度
+     */
+    final private static int ACK_LENGTH = 12;
+
+    private BinaryEnvelope() {}
+
+    /**
+     * 读取消息类型
+     *
+     * @param buf 消息数据
+     * @return 消息类型, 数据不足头部长度时返回 -1
+     */
+    public static int type(final ByteBuf buf) {
+        return buf.isReadable(HEADER_LENGTH) ? buf.getUnsignedByte(buf.readerIndex()) : -1;
+    }
+
+    /**
+     * 读取计数字段(目标数或名称数)
+     */
+    public static int count(final ByteBuf buf) {
+        return buf.getUnsignedShort(buf.readerIndex() + 2);
+    }
+
+    /**
+     * 读取 SEND 消息的第 i 个目标 ID
+     */
+    public static int targetId(final ByteBuf buf, final int i) {
+        return buf.getInt(buf.readerIndex() + HEADER_LENGTH + (i << 2));
+    }
+
+    /**
+     * <p>获取 SEND 消息的载荷</p>
+     * <p>返回原数据的切片, 不复制且不改变引用计数</p>
+     *
+     * @param buf SEND 消息数据
+     * @return 载荷切片
+     * @throws IllegalArgumentException 载荷长度与数据不符
+     */
+    public static ByteBuf payload(final ByteBuf buf) {
+        final var lengthIndex = buf.readerIndex() + HEADER_LENGTH + (count(buf) << 2);
+        if (lengthIndex + 4 > buf.writerIndex()) throw malformed();
+
+        final var payloadLength = buf.getInt(lengthIndex);
+        if (payloadLength < 0 || lengthIndex + 4 + payloadLength != buf.writerIndex()) throw malformed();
+        return buf.slice(lengthIndex + 4, payloadLength);
+    }
+
+    /**
+     * 读取 RESOLVE 消息中的用户名
+     *
+     * @param buf RESOLVE 消息数据
+     * @return 用户名列表
+     * @throws IllegalArgumentException 消息格式错误
+     */
+    public static String[] names(final ByteBuf buf) {
+        final var names = new String[count(buf)];
+        var index = buf.readerIndex() + HEADER_LENGTH;
+        for (int i = 0; i < names.length; i++) {
+            if (index + 2 > buf.writerIndex()) throw malformed();
+            final var length = buf.getUnsignedShort(index);
+            index += 2;
+            if (index + length > buf.writerIndex()) throw malformed();
+            names[i] = buf.toString(index, length, StandardCharsets.UTF_8);
+            index += length;
+        }
+        if (index != buf.writerIndex()) throw malformed();
+        return names;
+    }
+
+    /**
+     * 读取 ACK 消息中的序号
+     *
+     * @throws IllegalArgumentException 消息长度错误
+     */
+    public static long ackSeq(final ByteBuf buf) {
+        if (buf.readableBytes() != ACK_LENGTH) throw malformed();
+        return buf.getLong(buf.readerIndex() + HEADER_LENGTH);
+    }
+
+    /**
+     * <p>编码 DELIVER 帧</p>
+     * <p>WebSocket 帧头部, 信封头部及载荷一次写入, 载荷仅复制一次且不改变其读索引</p>
+     *
+     * @param alloc    缓冲区分配器
+     * @param sourceId 发送方用户 ID
+     * @param payload  消息载荷
+     * @return 完整的预编码二进制帧
+     */
+    public static ByteBuf encodeDeliver(final ByteBufAllocator alloc, final int sourceId, final ByteBuf payload) {
+        final var payloadLength = payload.readableBytes();
+        final var frame = PreEncodedFrame.allocate(alloc, PreEncodedFrame.OPCODE_BINARY, DELIVER_HEADER_LENGTH + payloadLength);
+        frame.writeByte(TYPE_DELIVER);
+        frame.writeByte(0);
+        frame.writeShort(0);
+        frame.writeInt(sourceId);
+        frame.writeInt(payloadLength);
+        frame.writeBytes(payload, payload.readerIndex(), payloadLength);
+        return frame;
+    }
+
+    /**
+     * <p>由 DELIVER 信封编码 DELIVER_SEQ 帧</p>
+     * <p>仅新建帧头部及信封头部, 发送方 ID 及载荷以切片方式共享</p>
+     *
+     * @param alloc   缓冲区分配器
+     * @param seq     消息序号
+     * @param deliver DELIVER 信封(不含 WebSocket 帧头部), 本方法不改变其引用计数
+     * @return 完整的预编码二进制帧
+     */
+    static ByteBuf sequenced(final ByteBufAllocator alloc, final long seq, final ByteBuf deliver) {
+        final var body = deliver.retainedSlice(deliver.readerIndex() + HEADER_LENGTH, deliver.readableBytes() - HEADER_LENGTH);
+        final var header = PreEncodedFrame.allocateHeader(alloc, PreEncodedFrame.OPCODE_BINARY, HEADER_LENGTH + 8 + body.readableBytes(), HEADER_LENGTH + 8);
+        header.writeByte(TYPE_DELIVER_SEQ);
+        header.writeByte(deliver.getByte(deliver.readerIndex() + 1));
+        header.writeShort(0);
+        header.writeLong(seq);
+        return alloc.compositeDirectBuffer(2).addComponents(true, header, body);
+    }
+
+    /**
+     * 编码 RESOLVED 帧
+     *
+     * @param alloc   缓冲区分配器
+     * @param userIds 用户 ID, 与 RESOLVE 请求中的用户名顺序一致
+     * @return 完整的预编码二进制帧
+     */
+    public static ByteBuf encodeResolved(final ByteBufAllocator alloc, final int[] userIds) {
+        final var frame = PreEncodedFrame.allocate(alloc, PreEncodedFrame.OPCODE_BINARY, HEADER_LENGTH + (userIds.length << 2));
+        frame.writeByte(TYPE_RESOLVED);
+        frame.writeByte(0);
+        frame.writeShort(userIds.length);
+        for (final var userId : userIds) {
+            frame.writeInt(userId);
+        }
+        return frame;
+    }
+
+    /**
+     * 编码 ERROR 帧
+     *
+     * @param alloc 缓冲区分配器
+     * @param code  错误码
+     * @return 完整的预编码二进制帧
+     */
+    public static ByteBuf encodeError(final ByteBufAllocator alloc, final int code) {
+        final var frame = PreEncodedFrame.allocate(alloc, PreEncodedFrame.OPCODE_BINARY, HEADER_LENGTH);
+        frame.writeByte(TYPE_ERROR);
+        frame.writeByte(code);
+        frame.writeShort(0);
+        return frame;
+    }
+
+    private static IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Malformed Binary Message");
+    }
+}
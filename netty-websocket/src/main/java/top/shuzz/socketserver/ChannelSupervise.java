@@ -2,20 +2,25 @@ package top.shuzz.socketserver;
 
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelId;
-import io.netty.channel.group.ChannelGroup;
-import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
-import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.AttributeKey;
+import top.shuzz.cluster.ClusterNode;
+import top.shuzz.metrics.Metrics;
 
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * 通信通道管理容器
+ * <p>通信通道管理容器</p>
+ * <p>连接以 {@link SessionRegistry} 分配的整数会话 ID 标识, 会话随通道属性保存; 用户以 {@link UserTable} 分配的整数用户 ID 标识</p>
+ * <p>用户 ID 在用户离开本节点, 且不在集群其他节点在线, 也无可恢复会话时回收, 回收后旧 ID 不再解析为任何用户</p>
+ * <p>按用户查找通道依次经由用户名到用户 ID 的开放寻址表, 用户 ID 到会话 ID 的页表及会话 ID 到会话的分片页表, 至多一次字符串哈希, 不使用通道 ID 文本</p>
  *
  * @author heng
  * @since 2023/6/21
@@ -25,32 +30,64 @@ public class ChannelSupervise {
     final private static Log LOGGER = LogFactory.get();
 
     /**
-     * <p>通信通道组</p>
-     * <p>用于管理客户端的通信连接</p>
+     * <p>通道会话属性</p>
+     * <p>用于通信通道-会话的反向映射, 会话中记录已加入的用户 ID</p>
      */
-    final private static ChannelGroup SOCKET_GROUP = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    final private static AttributeKey<SessionRegistry.Session> SESSION = AttributeKey.valueOf("session");
 
     /**
-     * <p>通信通道映射表</p>
-     * <p>用于存储通信ID文本值与通信通道对象的映射</p>
+     * <p>用户表</p>
+     * <p>用户名与用户 ID 的双向映射及用户-会话绑定</p>
      */
-    final private static ConcurrentHashMap<String, ChannelId> CHANNEL_MAP = new ConcurrentHashMap<>();
+    final private static UserTable USERS = new UserTable();
 
     /**
-     * <p>用户映射表</p>
-     * <p>用于管理用户-通信ID文本值的映射</p>
+     * <p>有序用户名索引</p>
+     * <p>与用户-会话绑定同步维护, 供用户列表按前缀过滤及游标分页, 遍历时无需复制或排序</p>
      */
-    final private static ConcurrentHashMap<String, String> USER_MAP = new ConcurrentHashMap<>();
+    final private static ConcurrentSkipListSet<String> USER_INDEX = new ConcurrentSkipListSet<>();
 
     /**
-     * 添加用户与通信ID的绑定
+     * 已加入用户的会话数, 即群发消息的扇出目标数
+     */
+    final private static AtomicInteger JOINED_COUNT = new AtomicInteger();
+
+    /**
+     * <p>添加用户与通信通道的绑定</p>
+     * <p>若该用户已绑定其他通道, 旧通道将被解除绑定并返回, 由调用方负责关闭</p>
+     * <p>用户表已满时不加入, 通道的用户 ID 保持为 0, 由调用方拒绝连接</p>
      *
-     * @param userName  用户名
-     * @param channelId 通信通道ID文本值
+     * @param userName      用户名
+     * @param socketChannel Socket 通信通道对象
+     * @return 被替换的旧通信通道, 不存在时返回 null
      */
-    public static void addUser(final String userName, final String channelId) {
-        USER_MAP.put(userName, channelId);
-        LOGGER.info("User [{}:{}] Joined", userName, channelId);
+    public static Channel addUser(final String userName, final Channel socketChannel) {
+        final var session = sessionOf(socketChannel);
+        // 分配与绑定须原子完成, 否则 ID 可能在绑定前被回收
+        final var binding = USERS.bind(userName, session.id());
+        if (binding == null) {
+            LOGGER.warn("User Table Full, User [{}:{}] Rejected", userName, session.id());
+            return null;
+        }
+        final var userId = binding.userId();
+        final var previousId = binding.previousSessionId();
+        if (session.join(userId) == 0) {
+            JOINED_COUNT.incrementAndGet();
+        }
+        USER_INDEX.add(userName);
+
+        Channel previous = null;
+        if (previousId != 0 && previousId != session.id()) {
+            // 解除旧通道的反向映射, 避免其关闭前继续以该用户身份通信
+            final var previousSession = SessionRegistry.get(previousId);
+            if (previousSession != null && previousSession.leave(userId)) {
+                JOINED_COUNT.decrementAndGet();
+                previous = previousSession.channel();
+            }
+        }
+        LOGGER.info("User [{}:{}] Joined", userName, session.id());
+        ClusterNode.announceJoin(userName);
+        return previous;
     }
 
     /**
@@ -59,32 +96,141 @@ public class ChannelSupervise {
      * @param userName 待移除用户名
      */
     public static void removeUser(final String userName) {
-        USER_MAP.remove(userName);
+        final var userId = USERS.find(userName);
+        if (userId == 0) return;
+
+        final var sessionId = USERS.unbind(userId);
+        if (sessionId == 0) return;
+
+        final var session = SessionRegistry.get(sessionId);
+        if (session != null && session.leave(userId)) {
+            JOINED_COUNT.decrementAndGet();
+        }
+        unindexUser(userId, userName);
+        ClusterNode.announceLeave(userName);
+        releaseUserId(userName);
     }
 
     /**
-     * 移除用户-通信通道映射
+     * <p>移除用户-通信通道映射</p>
+     * <p>仅当该用户仍绑定于此通道时移除, 不影响重复登录后的新通道</p>
      *
-     * @param channelId 通道ID文本值
+     * @param socketChannel Socket 通信通道对象
      */
-    public static void removeUserByChannelId(final String channelId) {
-        USER_MAP.entrySet().removeIf(item -> {
-            final var ret = item.getValue().equals(channelId);
-            if (ret) {
-                LOGGER.info("User [{}:{}] Leaved", item.getKey(), channelId);
-            }
-            return ret;
-        });
+    public static void removeUserByChannel(final Channel socketChannel) {
+        final var session = socketChannel.attr(SESSION).get();
+        if (session == null) return;
+
+        final var userId = session.leave();
+        if (userId == 0) return;
+
+        JOINED_COUNT.decrementAndGet();
+        // 解绑前读取用户名, 解绑后该 ID 可能被回收
+        final var userName = USERS.name(userId);
+        if (USERS.unbind(userId, session.id())) {
+            unindexUser(userId, userName);
+            LOGGER.info("User [{}:{}] Leaved", userName, session.id());
+            ClusterNode.announceLeave(userName);
+            releaseUserId(userName);
+        }
+    }
+
+    /**
+     * 从有序索引中移除用户名, 移除期间该用户重新加入时恢复索引
+     */
+    private static void unindexUser(final int userId, final String userName) {
+        USER_INDEX.remove(userName);
+        if (USERS.session(userId) != 0) {
+            USER_INDEX.add(userName);
+        }
+    }
+
+    /**
+     * 获取用户关联通信通道
+     *
+     * @param userName 用户名
+     * @return 通信通道对象
+     */
+    public static Channel getUserChannel(final String userName) {
+        return userName == null ? null : getUserChannel(USERS.find(userName));
     }
 
     /**
-     * 获取用户关联通信通道ID
+     * <p>获取用户 ID</p>
+     * <p>用户名首次出现时分配新 ID, 无论该用户是否在线; 仅在用户加入(本节点或集群其他节点)时调用, 不得以客户端提供的任意用户名调用</p>
+     * <p>调用前须已登记引用该用户名的状态(如集群目录), 并在该状态移除后调用 {@link #releaseUserId(String)}</p>
      *
      * @param userName 用户名
-     * @return 通信通道ID文本值
+     * @return 用户 ID, 用户表已满时返回 0
+     */
+    public static int internUserId(final String userName) {
+        return USERS.intern(userName);
+    }
+
+    /**
+     * <p>回收用户 ID</p>
+     * <p>仅当用户不在本节点及集群其他节点在线, 且无可恢复会话时回收; 引用该用户名的状态移除后调用</p>
+     *
+     * @param userName 用户名
+     */
+    public static void releaseUserId(final String userName) {
+        if (userName == null) return;
+        USERS.release(userName, name -> ClusterNode.locate(name) != null || ResumableSession.isRetained(name));
+    }
+
+    /**
+     * <p>查找用户 ID</p>
+     * <p>不分配新 ID, 可用于客户端提供的用户名</p>
+     *
+     * @param userName 用户名
+     * @return 用户 ID, 用户名未出现过时返回 0
+     */
+    public static int findUserId(final String userName) {
+        return USERS.find(userName);
+    }
+
+    /**
+     * 获取用户 ID 对应的用户名
+     *
+     * @param userId 用户 ID
+     * @return 用户名, ID 无效时返回 null
+     */
+    public static String getUserName(final int userId) {
+        return USERS.name(userId);
+    }
+
+    /**
+     * <p>获取用户 ID 关联通信通道</p>
+     * <p>会话槽位可被复用, 须校验会话当前加入的仍为该用户</p>
+     *
+     * @param userId 用户 ID
+     * @return 通信通道对象, 用户不在线时返回 null
+     */
+    public static Channel getUserChannel(final int userId) {
+        final var session = SessionRegistry.get(USERS.session(userId));
+        return session != null && session.userId() == userId ? session.channel() : null;
+    }
+
+    /**
+     * 获取通信通道关联的用户 ID
+     *
+     * @param socketChannel Socket 通信通道对象
+     * @return 用户 ID, 未加入时返回 0
      */
-    public static String getUserChannelId(final String userName) {
-        return USER_MAP.get(userName);
+    public static int getChannelUserId(final Channel socketChannel) {
+        final var session = socketChannel.attr(SESSION).get();
+        return session == null ? 0 : session.userId();
+    }
+
+    /**
+     * 获取通信通道的会话 ID
+     *
+     * @param socketChannel Socket 通信通道对象
+     * @return 会话 ID, 未注册时返回 0
+     */
+    public static int getChannelSessionId(final Channel socketChannel) {
+        final var session = socketChannel.attr(SESSION).get();
+        return session == null ? 0 : session.id();
     }
 
     /**
@@ -93,59 +239,143 @@ public class ChannelSupervise {
      * @param socketChannel Socket 通信通道对象
      */
     public static void addChannel(final Channel socketChannel) {
-        SOCKET_GROUP.add(socketChannel);
-        CHANNEL_MAP.put(socketChannel.id().asLongText(), socketChannel.id());
+        sessionOf(socketChannel);
     }
 
     /**
-     * 移除被管理的通信通道
+     * <p>移除被管理的通信通道</p>
+     * <p>仍加入用户时一并解除绑定</p>
      *
      * @param socketChannel Socket 通信通道对象
      */
     public static void removeChannel(final Channel socketChannel) {
-        SOCKET_GROUP.remove(socketChannel);
-        CHANNEL_MAP.remove(socketChannel.id().asLongText());
+        removeUserByChannel(socketChannel);
+        final var session = socketChannel.attr(SESSION).getAndSet(null);
+        if (session != null) {
+            SessionRegistry.unregister(session);
+        }
     }
 
     /**
-     * 获取目标通信通道
+     * 获取会话 ID 关联通信通道
      *
-     * @param channelId 目标通信通道ID文本值
-     * @return 通信通道对象
+     * @param sessionId 会话 ID
+     * @return 通信通道对象, 会话不存在时返回 null
      */
-    public static Channel getTargetChannel(final String channelId) {
-        return Optional.ofNullable(channelId)
-                .map(id -> SOCKET_GROUP.find(CHANNEL_MAP.get(channelId)))
-                .orElse(null);
+    public static Channel getSessionChannel(final int sessionId) {
+        final var session = SessionRegistry.get(sessionId);
+        return session == null ? null : session.channel();
     }
 
-    public static String getChannelClientName(final String channelId) {
-        return Optional.ofNullable(channelId)
-                .flatMap(id -> USER_MAP.entrySet()
-                        .stream()
-                        .filter(e -> id.equals(e.getValue())).findFirst()
-                        .map(Map.Entry::getKey)
-                )
-                .orElse(null);
+    /**
+     * 获取通道会话, 未注册时注册
+     */
+    private static SessionRegistry.Session sessionOf(final Channel socketChannel) {
+        final var attr = socketChannel.attr(SESSION);
+        final var session = attr.get();
+        if (session != null) return session;
+
+        final var created = SessionRegistry.register(socketChannel);
+        final var existing = attr.setIfAbsent(created);
+        if (existing == null) return created;
+        SessionRegistry.unregister(created);
+        return existing;
+    }
+
+    /**
+     * 获取通信通道关联的用户名
+     *
+     * @param socketChannel Socket 通信通道对象
+     * @return 用户名, 未加入时返回 null
+     */
+    public static String getChannelClientName(final Channel socketChannel) {
+        if (socketChannel == null) return null;
+        final var session = socketChannel.attr(SESSION).get();
+        return session == null ? null : USERS.name(session.userId());
     }
 
     /**
      * <p>发送广播信息</p>
-     * <p>该消息将会被排除源消息通道</p>
+     * <p>消息仅推送至已加入用户的通道, 并排除源消息通道</p>
+     *
+     * @param source  消息的源通道
+     * @param msgText 消息文本
+     */
+    public static void broadcastMsg(final Channel source, final String msgText) {
+        final var frame = PreEncodedFrame.text(PooledByteBufAllocator.DEFAULT, msgText);
+        final var payloadOffset = PreEncodedFrame.payloadOffset(frame);
+        final var deflatedFrame = PerMessageDeflate.encode(PooledByteBufAllocator.DEFAULT, PreEncodedFrame.OPCODE_TEXT,
+                frame.slice(payloadOffset, frame.readableBytes() - payloadOffset));
+        broadcastFrame(source, frame, deflatedFrame, false);
+    }
+
+    /**
+     * <p>发送广播帧</p>
+     * <p>预编码帧由各接收通道共享, 调用后帧的所有权转移至本方法</p>
+     *
+     * @param source 消息的源通道
+     * @param frame  预编码帧数据
+     * @see PreEncodedFrame
+     */
+    public static void broadcastFrame(final Channel source, final ByteBuf frame) {
+        broadcastFrame(source, frame, null, false);
+    }
+
+    /**
+     * <p>发送广播帧</p>
+     * <p>已协商压缩的通道接收压缩帧, 其余通道接收原始帧; 两种帧均由各接收通道共享, 调用后帧的所有权转移至本方法</p>
+     * <p>单次遍历会话注册表, 排除源消息通道; 已启用可恢复会话的通道由会话单独写出</p>
      *
-     * @param sourceId 消息的源通道ID
-     * @param msgText  消息文本
+     * @param source        消息的源通道
+     * @param frame         预编码帧数据
+     * @param deflatedFrame 压缩后的预编码帧数据, 为 null 时所有通道接收原始帧
+     * @param json          文本帧载荷是否为 JSON, 决定可恢复会话的下发格式
+     * @see PerMessageDeflate
      */
-    public static void broadcastMsg(final ChannelId sourceId, final String msgText) {
-        // LOGGER.info("SOCKET_GROUP = {}", JSONUtil.toJsonPrettyStr(SOCKET_GROUP.stream().map(ch -> ch.id().asLongText()).toList()));
+    public static void broadcastFrame(final Channel source, final ByteBuf frame, final ByteBuf deflatedFrame, final boolean json) {
+        ResumableSession.broadcast(source, frame, json);
+        try {
+            SessionRegistry.forEach(session -> {
+                if (session.userId() == 0) return;
+                final var ch = session.channel();
+                if (ch == source || ResumableSession.ENABLED && ResumableSession.SEQUENCED_MATCHER.matches(ch)) return;
+                final var shared = deflatedFrame != null && PerMessageDeflate.NEGOTIATED_MATCHER.matches(ch) ? deflatedFrame : frame;
+                ch.writeAndFlush(shared.retainedDuplicate(), ch.voidPromise());
+            });
+        } finally {
+            frame.release();
+            if (deflatedFrame != null) deflatedFrame.release();
+        }
+    }
 
-        SOCKET_GROUP.stream()
-                // 过滤源通道
-                .filter(ch -> !ch.id().equals(sourceId))
-                // 过滤未加入用户组的通道
-                .filter(ch -> USER_MAP.contains(ch.id().asLongText()))
-                // 推送消息
-                .forEach(ch -> ch.writeAndFlush(new TextWebSocketFrame(msgText)));
+    /**
+     * 注册连接相关的瞬时值指标
+     */
+    public static void registerMetrics() {
+        Metrics.gauge("ws_connections", "Open WebSocket connections", SessionRegistry::size);
+        Metrics.gauge("ws_users", "Joined users", JOINED_COUNT::get);
+        Metrics.gauge("ws_write_queue_bytes", "Bytes pending in channel outbound buffers", () -> {
+            final var total = new long[1];
+            SessionRegistry.forEach(session -> {
+                final var outboundBuffer = session.channel().unsafe().outboundBuffer();
+                if (outboundBuffer != null) total[0] += outboundBuffer.totalPendingWriteBytes();
+            });
+            return total[0];
+        });
+        Metrics.gauge("ws_unwritable_channels", "Channels above the write buffer high water mark", () -> {
+            final var total = new long[1];
+            SessionRegistry.forEach(session -> {
+                if (!session.channel().isWritable()) total[0]++;
+            });
+            return total[0];
+        });
+    }
+
+    /**
+     * 已加入用户的通道数, 即群发消息的扇出目标数
+     */
+    public static int joinedCount() {
+        return JOINED_COUNT.get();
     }
 
     /**
@@ -154,16 +384,55 @@ public class ChannelSupervise {
     public static WebSocketCountStatVo currentConnections() {
         /*LOGGER.debug("");
         LOGGER.debug("================================ Current Connection(s) Info ================================");
-        LOGGER.debug("SOCKET_GROUP: {}", SOCKET_GROUP.size());
-        LOGGER.debug(" CHANNEL_MAP: {}", CHANNEL_MAP.size());
-        LOGGER.debug("    USER_MAP: {}", USER_MAP.size());
+        LOGGER.debug("    SESSIONS: {}", SessionRegistry.size());
+        LOGGER.debug("      JOINED: {}", JOINED_COUNT.get());
         LOGGER.debug("================================ Current Connection(s) Info ================================");
         LOGGER.debug("");*/
 
-        return new WebSocketCountStatVo(SOCKET_GROUP.size(), CHANNEL_MAP.size(), USER_MAP.size());
+        return new WebSocketCountStatVo(SessionRegistry.size(), JOINED_COUNT.get());
     }
 
     public static List<String> currentUsers() {
-        return USER_MAP.keySet().stream().toList();
+        return List.copyOf(USER_INDEX);
+    }
+
+    /**
+     * <p>按用户名升序遍历在线用户</p>
+     * <p>返回有序索引的视图, 弱一致: 遍历期间加入或离开的用户可能出现也可能不出现</p>
+     *
+     * @param prefix 用户名前缀, 为空时不过滤
+     * @param cursor 游标(上一页最后一个用户名), 为空时从头开始
+     * @return 自游标之后, 以 prefix 开头的用户名
+     */
+    public static Iterator<String> iterateUsers(final String prefix, final String cursor) {
+        final var from = Optional.ofNullable(prefix).orElse("");
+        final var tail = cursor != null && cursor.compareTo(from) >= 0
+                ? USER_INDEX.tailSet(cursor, false)
+                : USER_INDEX.tailSet(from, true);
+        if (from.isEmpty()) return tail.iterator();
+        return new Iterator<>() {
+
+            final private Iterator<String> delegate = tail.iterator();
+            private String next = advance();
+
+            private String advance() {
+                if (!delegate.hasNext()) return null;
+                final var name = delegate.next();
+                return name.startsWith(from) ? name : null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null) throw new NoSuchElementException();
+                final var current = next;
+                next = advance();
+                return current;
+            }
+        };
     }
 }
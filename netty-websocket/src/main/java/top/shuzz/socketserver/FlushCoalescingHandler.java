@@ -0,0 +1,269 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import top.shuzz.config.ConfigHelper;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Optional;
+
+/**
+ * <p>出站刷新合并处理器</p>
+ * <p>将同一通道的多次 flush 合并为每个事件循环周期一次, 待刷新消息数或字节数达到阈值时立即刷新, 减少 write 系统调用及网络包数量</p>
+ * <p>通道读取期间的 flush 推迟至读取完成时执行</p>
+ * <p>通过子协议 {@value #MERGE_SUBPROTOCOL} 选择合并的客户端, 同一刷新周期内的文本消息合并为一个文本帧, 各消息以换行符分隔; 含换行符的消息不参与合并</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class FlushCoalescingHandler extends ChannelDuplexHandler {
+
+    /**
+     * 消息合并子协议
+     */
+    final public static String MERGE_SUBPROTOCOL = "batch.ndjson";
+
+    /**
+     * 是否启用刷新合并
+     */
+    final public static boolean ENABLED = Optional.ofNullable(ConfigHelper.getConfigBoolean("outbound", "FLUSH_COALESCING")).orElse(false);
+
+    /**
+     * 是否允许客户端选择消息合并
+     */
+    final public static boolean MERGING_ENABLED = ENABLED
+            && Optional.ofNullable(ConfigHelper.getConfigBoolean("outbound", "FRAME_MERGING")).orElse(false);
+
+    /**
+     * 待刷新消息数阈值
+     */
+    final private static int MAX_MESSAGES = Optional.ofNullable(ConfigHelper.getConfigInteger("outbound", "FLUSH_MAX_MESSAGES")).orElse(64);
+
+    /**
+     * 待刷新字节数阈值
+     */
+    final private static int MAX_BYTES = Optional.ofNullable(ConfigHelper.getConfigInteger("outbound", "FLUSH_MAX_BYTES")).orElse(64 * 1024);
+
+    final private static byte FRAME_SEPARATOR = '\n';
+
+    final private static ClosedChannelException CHANNEL_CLOSED = new ClosedChannelException();
+
+    private ChannelHandlerContext ctx;
+
+    private int pendingMessages;
+    private long pendingBytes;
+
+    private boolean readInProgress;
+    private boolean flushOnReadComplete;
+    private boolean flushScheduled;
+
+    /**
+     * 是否合并文本消息
+     */
+    private boolean merging;
+
+    /**
+     * 待合并的文本消息载荷及其写出承诺
+     */
+    final private ArrayList<Object> mergeMessages = new ArrayList<>();
+    final private ArrayList<ChannelPromise> mergePromises = new ArrayList<>();
+    private int mergeBytes;
+
+    final private Runnable flushTask = () -> {
+        flushScheduled = false;
+        if (pendingMessages > 0 && !readInProgress) {
+            flushNow(ctx);
+        }
+    };
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    /**
+     * 启用文本消息合并, 需在通道所属 I/O 线程内调用
+     */
+    public void enableMerging() {
+        merging = true;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        final var size = sizeOf(msg);
+        if (merging && isMergeable(msg)) {
+            final var length = payloadOf(msg).readableBytes();
+            // 合并帧载荷不超过字节数阈值: 加入后将超出时先写出已合并的消息, 超出阈值的单条消息按原样写出
+            if (mergeBytes + length > MAX_BYTES) {
+                writeMerged(ctx);
+            }
+            mergeMessages.add(msg);
+            mergePromises.add(promise);
+            mergeBytes += length + 1;
+        } else {
+            // 保证写出顺序, 先写出已合并的消息
+            writeMerged(ctx);
+            ctx.write(msg, promise);
+        }
+        pendingMessages++;
+        pendingBytes += size;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (pendingMessages == 0) {
+            ctx.flush();
+            return;
+        }
+
+        if (pendingMessages >= MAX_MESSAGES || pendingBytes >= MAX_BYTES) {
+            flushNow(ctx);
+            return;
+        }
+
+        if (readInProgress) {
+            flushOnReadComplete = true;
+            return;
+        }
+
+        // 推迟至当前已排队的任务之后统一刷新
+        if (!flushScheduled) {
+            flushScheduled = true;
+            ctx.executor().execute(flushTask);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        readInProgress = false;
+        if (flushOnReadComplete) {
+            flushOnReadComplete = false;
+            flushNow(ctx);
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushNow(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseMerged();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        flushNow(ctx);
+    }
+
+    private void flushNow(final ChannelHandlerContext ctx) {
+        writeMerged(ctx);
+        pendingMessages = 0;
+        pendingBytes = 0;
+        flushOnReadComplete = false;
+        ctx.flush();
+    }
+
+    /**
+     * 写出待合并的文本消息, 仅一条消息时按原样写出
+     */
+    private void writeMerged(final ChannelHandlerContext ctx) {
+        final var count = mergeMessages.size();
+        if (count == 0) return;
+
+        if (count == 1) {
+            ctx.write(mergeMessages.get(0), mergePromises.get(0));
+        } else {
+            final var payloadLength = mergeBytes - 1;
+            final var frame = ctx.alloc().directBuffer(PreEncodedFrame.headerLength(payloadLength) + payloadLength);
+            PreEncodedFrame.writeHeader(frame, PreEncodedFrame.OPCODE_TEXT, payloadLength);
+            for (int i = 0; i < count; i++) {
+                final var msg = mergeMessages.get(i);
+                if (i > 0) frame.writeByte(FRAME_SEPARATOR);
+                final var payload = payloadOf(msg);
+                frame.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+                ReferenceCountUtil.release(msg);
+            }
+
+            final var promises = new ArrayList<>(mergePromises);
+            promises.removeIf(ChannelPromise::isVoid);
+            if (promises.isEmpty()) {
+                ctx.write(frame, ctx.voidPromise());
+            } else {
+                ctx.write(frame).addListener((ChannelFutureListener) future -> promises.forEach(p -> {
+                    if (future.isSuccess()) {
+                        p.trySuccess();
+                    } else {
+                        p.tryFailure(future.cause());
+                    }
+                }));
+            }
+        }
+
+        mergeMessages.clear();
+        mergePromises.clear();
+        mergeBytes = 0;
+    }
+
+    private void releaseMerged() {
+        for (int i = 0; i < mergeMessages.size(); i++) {
+            ReferenceCountUtil.release(mergeMessages.get(i));
+            mergePromises.get(i).tryFailure(CHANNEL_CLOSED);
+        }
+        mergeMessages.clear();
+        mergePromises.clear();
+        mergeBytes = 0;
+    }
+
+    /**
+     * 完整且未压缩的文本帧, 载荷不含换行符时可合并
+     */
+    private static boolean isMergeable(final Object msg) {
+        if (msg instanceof ByteBuf frame) {
+            if (!frame.isReadable(2) || (frame.getByte(frame.readerIndex()) & 0xFF) != (PreEncodedFrame.FIN | PreEncodedFrame.OPCODE_TEXT)) {
+                return false;
+            }
+        } else if (msg instanceof TextWebSocketFrame frame) {
+            if (!frame.isFinalFragment() || frame.rsv() != 0) return false;
+        } else {
+            return false;
+        }
+
+        final var payload = payloadOf(msg);
+        return payload.indexOf(payload.readerIndex(), payload.writerIndex(), FRAME_SEPARATOR) < 0;
+    }
+
+    /**
+     * 获取帧载荷, 预编码帧跳过帧头部
+     */
+    private static ByteBuf payloadOf(final Object msg) {
+        if (msg instanceof ByteBuf frame) {
+            final var offset = PreEncodedFrame.payloadOffset(frame);
+            return frame.slice(frame.readerIndex() + offset, frame.readableBytes() - offset);
+        }
+        return ((TextWebSocketFrame) msg).content();
+    }
+
+    private static int sizeOf(final Object msg) {
+        if (msg instanceof ByteBuf buf) return buf.readableBytes();
+        if (msg instanceof ByteBufHolder holder) return holder.content().readableBytes();
+        return 0;
+    }
+}
@@ -0,0 +1,174 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import top.shuzz.config.ConfigHelper;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>空闲连接回收处理器</p>
+ * <p>读空闲超时(持续未收到任何数据)的连接被关闭, 随通道关闭从通道管理容器中移除, 用于回收半开连接</p>
+ * <p>写空闲或读空闲达到心跳间隔时, 服务端向已加入的用户发送 Ping, 客户端的 Pong 即刷新读空闲计时</p>
+ * <p>所有通道共享一个时间轮, 每个通道仅持有一个超时任务, 到期时按最近的读写时间重新计算下次检查时间, 读写本身不创建或取消定时任务</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class IdleReaper extends ChannelDuplexHandler {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 读空闲超时(秒), 0 表示不检测
+     */
+    final private static long READER_IDLE_NANOS = TimeUnit.SECONDS.toNanos(
+            Optional.ofNullable(ConfigHelper.getConfigInteger("idle", "READER_IDLE_SECONDS")).orElse(90));
+
+    /**
+     * 心跳间隔(秒), 写空闲或读空闲达到该时长时发送 Ping, 0 表示不发送
+     */
+    final private static long WRITER_IDLE_NANOS = TimeUnit.SECONDS.toNanos(
+            Optional.ofNullable(ConfigHelper.getConfigInteger("idle", "WRITER_IDLE_SECONDS")).orElse(30));
+
+    /**
+     * 是否启用空闲检测
+     */
+    final public static boolean ENABLED = READER_IDLE_NANOS > 0 || WRITER_IDLE_NANOS > 0;
+
+    /**
+     * <p>共享时间轮</p>
+     * <p>精度为一个刻度, 适用于秒级的超时任务</p>
+     */
+    final static HashedWheelTimer TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("ws-idle-timer", true),
+            Optional.ofNullable(ConfigHelper.getConfigInteger("idle", "IDLE_TICK_MS")).orElse(500), TimeUnit.MILLISECONDS,
+            512);
+
+    final private static LongAdder REAPED_COUNT = new LongAdder();
+    final private static LongAdder PING_COUNT = new LongAdder();
+
+    private ChannelHandlerContext ctx;
+    private volatile Timeout timeout;
+
+    /**
+     * 最近的读写及 Ping 时间, 由 I/O 线程写入, 时间轮线程读取
+     */
+    private volatile long lastReadNanos;
+    private volatile long lastWriteNanos;
+    private volatile long lastPingNanos;
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        final var now = System.nanoTime();
+        lastReadNanos = now;
+        lastWriteNanos = now;
+        lastPingNanos = now;
+        if (ctx.channel().isActive()) {
+            schedule(nextDelay(now));
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (timeout == null) {
+            schedule(nextDelay(System.nanoTime()));
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancel();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        cancel();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        lastReadNanos = System.nanoTime();
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        lastWriteNanos = System.nanoTime();
+        ctx.write(msg, promise);
+    }
+
+    /**
+     * 时间轮线程中执行: 关闭读空闲超时的通道, 按需发送 Ping 并安排下次检查
+     */
+    private void check() {
+        final var channel = ctx.channel();
+        if (!channel.isActive()) return;
+
+        final var now = System.nanoTime();
+        if (READER_IDLE_NANOS > 0 && now - lastReadNanos >= READER_IDLE_NANOS) {
+            REAPED_COUNT.increment();
+            LOGGER.info("Connection [{}] Idle, Closing...", channel.id().asLongText());
+            channel.close();
+            return;
+        }
+
+        if (WRITER_IDLE_NANOS > 0 && now - pingBaseNanos() >= WRITER_IDLE_NANOS
+                && ChannelSupervise.getChannelClientName(channel) != null) {
+            lastPingNanos = now;
+            PING_COUNT.increment();
+            channel.writeAndFlush(new PingWebSocketFrame(), channel.voidPromise());
+        }
+        schedule(nextDelay(now));
+    }
+
+    /**
+     * 心跳计时起点: 最近一次 Ping 之后, 读写均有数据时取较早者
+     */
+    private long pingBaseNanos() {
+        return Math.max(lastPingNanos, Math.min(lastReadNanos, lastWriteNanos));
+    }
+
+    private long nextDelay(final long now) {
+        var deadline = Long.MAX_VALUE;
+        if (READER_IDLE_NANOS > 0) deadline = lastReadNanos + READER_IDLE_NANOS;
+        if (WRITER_IDLE_NANOS > 0) deadline = Math.min(deadline, pingBaseNanos() + WRITER_IDLE_NANOS);
+        return Math.max(0, deadline - now);
+    }
+
+    private void schedule(final long delayNanos) {
+        timeout = TIMER.newTimeout(t -> check(), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancel() {
+        final var current = timeout;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * 当前空闲回收统计
+     */
+    public static WebSocketIdleStatVo currentStat() {
+        return new WebSocketIdleStatVo(
+                TimeUnit.NANOSECONDS.toSeconds(READER_IDLE_NANOS),
+                TimeUnit.NANOSECONDS.toSeconds(WRITER_IDLE_NANOS),
+                REAPED_COUNT.sum(),
+                PING_COUNT.sum(),
+                TIMER.pendingTimeouts()
+        );
+    }
+}
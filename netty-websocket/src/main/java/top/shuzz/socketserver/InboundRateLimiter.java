@@ -0,0 +1,178 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.json.JSONUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import io.netty.util.AttributeKey;
+import top.shuzz.config.ConfigHelper;
+import top.shuzz.metrics.Metrics;
+
+import java.util.Optional;
+
+/**
+ * <p>入站消息限流器</p>
+ * <p>每个连接持有一组令牌桶({@link TokenBucket}, 取令牌为一次 CAS), 随通道属性保存: 数据帧桶限制全部文本及二进制消息, 群发桶仅限制扇出至所有用户的消息</p>
+ * <p>数据帧在进入路由器前检查; 群发需解析消息后才能确定, 于路由器扇出前检查, 不重复解析</p>
+ * <p>超出限制的消息均被丢弃并计入指标, 按 [ratelimit] RATE_LIMIT_POLICY 处理: THROTTLE 在每段连续超限时仅提示发送方一次; CLOSE 以 1008 关闭连接</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class InboundRateLimiter {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 超出限制时的处理策略
+     */
+    public enum Policy {
+        /**
+         * 丢弃消息, 连接保持
+         */
+        THROTTLE,
+        /**
+         * 关闭连接
+         */
+        CLOSE
+    }
+
+    /**
+     * 单个连接每秒允许的数据帧数, 0 表示不限制
+     */
+    final private static int MESSAGE_RATE = Optional.ofNullable(ConfigHelper.getConfigInteger("ratelimit", "MESSAGE_RATE")).orElse(0);
+
+    /**
+     * 数据帧突发数, 0 表示与每秒数据帧数相同
+     */
+    final private static int MESSAGE_BURST = Optional.ofNullable(ConfigHelper.getConfigInteger("ratelimit", "MESSAGE_BURST"))
+            .filter(burst -> burst > 0)
+            .orElse(MESSAGE_RATE);
+
+    /**
+     * 单个连接每秒允许的群发消息数, 0 表示不限制
+     */
+    final private static int BROADCAST_RATE = Optional.ofNullable(ConfigHelper.getConfigInteger("ratelimit", "BROADCAST_RATE")).orElse(0);
+
+    /**
+     * 群发突发数, 0 表示与每秒群发数相同
+     */
+    final private static int BROADCAST_BURST = Optional.ofNullable(ConfigHelper.getConfigInteger("ratelimit", "BROADCAST_BURST"))
+            .filter(burst -> burst > 0)
+            .orElse(BROADCAST_RATE);
+
+    final private static Policy POLICY = Optional.ofNullable(ConfigHelper.getConfigString("ratelimit", "RATE_LIMIT_POLICY"))
+            .map(String::toUpperCase).map(Policy::valueOf).orElse(Policy.THROTTLE);
+
+    /**
+     * 是否启用限流
+     */
+    final public static boolean ENABLED = MESSAGE_RATE > 0 || BROADCAST_RATE > 0;
+
+    final private static AttributeKey<InboundRateLimiter> LIMITER = AttributeKey.valueOf("inboundRateLimiter");
+
+    final private static String RATE_LIMITED_REPLY = JSONUtil.toJsonStr(new WebSocketMsgDto("Server", null, "Rate Limited"));
+
+    /**
+     * 数据帧令牌桶, 未限制时为 null
+     */
+    final private TokenBucket messages;
+
+    /**
+     * 群发令牌桶, 未限制时为 null
+     */
+    final private TokenBucket broadcasts;
+
+    /**
+     * 数据帧本段连续超限是否已提示发送方, 数据帧放行后重置
+     */
+    private volatile boolean messagesNotified;
+
+    /**
+     * 群发本段连续超限是否已提示发送方, 群发放行后重置; 与数据帧分开记录, 避免一方放行时重置另一方的提示状态
+     */
+    private volatile boolean broadcastsNotified;
+
+    private InboundRateLimiter() {
+        this.messages = MESSAGE_RATE > 0 ? new TokenBucket(MESSAGE_RATE, MESSAGE_BURST) : null;
+        this.broadcasts = BROADCAST_RATE > 0 ? new TokenBucket(BROADCAST_RATE, BROADCAST_BURST) : null;
+    }
+
+    /**
+     * 为连接创建限流器, 未启用限流时返回 null
+     *
+     * @param ch 客户端通道
+     * @return 该连接的限流器
+     */
+    static InboundRateLimiter attach(final Channel ch) {
+        if (!ENABLED) return null;
+        final var limiter = new InboundRateLimiter();
+        ch.attr(LIMITER).set(limiter);
+        return limiter;
+    }
+
+    /**
+     * 检查数据帧限制, 超出时按策略处理
+     *
+     * @param ch     发送方通道
+     * @param opcode 消息帧操作码
+     * @return 超出限制时返回 false, 调用方应丢弃该消息
+     */
+    boolean tryMessage(final Channel ch, final int opcode) {
+        if (messages == null) return true;
+        if (messages.tryAcquire()) {
+            messagesNotified = false;
+            return true;
+        }
+        Metrics.THROTTLED_MESSAGES.increment();
+        if (!messagesNotified) {
+            messagesNotified = true;
+            throttle(ch, opcode);
+        }
+        return false;
+    }
+
+    /**
+     * 检查群发限制, 超出时按策略处理
+     *
+     * @param ch     发送方通道
+     * @param opcode 消息帧操作码
+     * @return 超出限制时返回 false, 调用方应丢弃该消息
+     */
+    static boolean tryBroadcast(final Channel ch, final int opcode) {
+        if (BROADCAST_RATE <= 0) return true;
+        final var limiter = ch.attr(LIMITER).get();
+        if (limiter == null) return true;
+        if (limiter.broadcasts.tryAcquire()) {
+            limiter.broadcastsNotified = false;
+            return true;
+        }
+        Metrics.THROTTLED_BROADCASTS.increment();
+        if (!limiter.broadcastsNotified) {
+            limiter.broadcastsNotified = true;
+            limiter.throttle(ch, opcode);
+        }
+        return false;
+    }
+
+    /**
+     * 本段连续超限的首条消息按策略处理, 同段内后续超限的消息仅丢弃
+     */
+    private void throttle(final Channel ch, final int opcode) {
+        if (POLICY == Policy.CLOSE) {
+            LOGGER.warn("Connection [{}] Rate Limited, Closing...", ch.id().asLongText());
+            ch.writeAndFlush(new CloseWebSocketFrame(WebSocketCloseStatus.POLICY_VIOLATION, "Rate Limited"))
+                    .addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+        if (opcode == PreEncodedFrame.OPCODE_BINARY) {
+            ch.writeAndFlush(BinaryEnvelope.encodeError(ch.alloc(), BinaryEnvelope.ERROR_RATE_LIMITED));
+        } else {
+            ch.writeAndFlush(new TextWebSocketFrame(RATE_LIMITED_REPLY));
+        }
+    }
+}
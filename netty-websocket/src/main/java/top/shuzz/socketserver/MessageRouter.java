@@ -0,0 +1,630 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import top.shuzz.cluster.ClusterNode;
+import top.shuzz.config.ConfigHelper;
+import top.shuzz.metrics.Metrics;
+import top.shuzz.store.OfflineStore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>消息路由器</p>
+ * <p>负责消息的路由解析及扇出, 可配置为在 I/O 线程内处理, 或按发送方固定分派至独立的业务线程</p>
+ * <p>固定分派模式下同一发送方的消息由同一业务线程顺序处理, 各业务线程使用有界队列</p>
+ * <p>集群模式下, 不在本节点在线的目标及群发消息经 {@link ClusterNode} 转发至其他节点</p>
+ * <p>指定目标均不在线时, 消息由 {@link OfflineStore} 保存, 待目标加入后重放; 目标的可恢复会话未超时时由 {@link ResumableSession} 缓冲</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class MessageRouter {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 路由模式
+     */
+    public enum Mode {
+        /**
+         * 在 I/O 线程内直接处理
+         */
+        INLINE,
+        /**
+         * 按发送方固定分派至业务线程
+         */
+        PINNED
+    }
+
+    /**
+     * 业务队列已满时的拒绝策略
+     */
+    public enum RejectPolicy {
+        /**
+         * 丢弃消息并提示发送方服务繁忙
+         */
+        DROP,
+        /**
+         * 关闭发送方连接
+         */
+        CLOSE
+    }
+
+    /**
+     * 指定用户推送的投递结果
+     */
+    public enum Delivery {
+        /**
+         * 已写出至本节点的在线通道
+         */
+        DELIVERED,
+        /**
+         * 用户已断开, 由未超时的可恢复会话缓冲
+         */
+        BUFFERED,
+        /**
+         * 用户在其他节点在线, 已转发
+         */
+        FORWARDED,
+        /**
+         * 用户不在线, 已保存为离线消息
+         */
+        OFFLINE,
+        /**
+         * 用户不在线且未启用离线消息或离线消息写入队列已满, 已丢弃
+         */
+        DROPPED
+    }
+
+    /**
+     * 通道待处理消息计数
+     */
+    final private static AttributeKey<AtomicInteger> PENDING = AttributeKey.valueOf("routerPending");
+
+    final private static Mode MODE = Optional.ofNullable(ConfigHelper.getConfigString("router", "ROUTER_MODE"))
+            .map(String::toUpperCase).map(Mode::valueOf).orElse(Mode.INLINE);
+
+    final private static RejectPolicy REJECT_POLICY = Optional.ofNullable(ConfigHelper.getConfigString("router", "ROUTER_REJECT_POLICY"))
+            .map(String::toUpperCase).map(RejectPolicy::valueOf).orElse(RejectPolicy.DROP);
+
+    /**
+     * 单个发送方的待处理消息上限, 超出后暂停读取该发送方数据直至积压减半
+     */
+    final private static int SENDER_PENDING_LIMIT = Optional.ofNullable(ConfigHelper.getConfigInteger("router", "ROUTER_SENDER_PENDING_LIMIT")).orElse(64);
+
+    /**
+     * 业务线程组, 每个线程独占一个有界队列
+     */
+    final private static ThreadPoolExecutor[] EXECUTORS = MODE == Mode.PINNED ? createExecutors() : new ThreadPoolExecutor[0];
+
+    private static ThreadPoolExecutor[] createExecutors() {
+        final var threads = Optional.ofNullable(ConfigHelper.getConfigInteger("router", "ROUTER_THREADS"))
+                .filter(n -> n > 0)
+                .orElse(Runtime.getRuntime().availableProcessors());
+        final var queueSize = Optional.ofNullable(ConfigHelper.getConfigInteger("router", "ROUTER_QUEUE_SIZE")).orElse(4096);
+        final var threadFactory = new DefaultThreadFactory("ws-router", true);
+
+        final var executors = new ThreadPoolExecutor[threads];
+        for (int i = 0; i < threads; i++) {
+            executors[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        }
+        LOGGER.info("Message Router Started, {} Thread(s), Queue Size {}, Reject Policy {}", threads, queueSize, REJECT_POLICY);
+        return executors;
+    }
+
+    /**
+     * <p>分派消息</p>
+     * <p>消息数据在路由完成前由本方法持有引用, 调用方无需额外保留</p>
+     *
+     * @param sender  消息发送方通道
+     * @param opcode  消息帧操作码, 文本帧或二进制帧
+     * @param content 消息数据
+     */
+    public static void dispatch(final Channel sender, final int opcode, final ByteBuf content) {
+        final var startNanos = System.nanoTime();
+        if (MODE == Mode.INLINE) {
+            route(sender, opcode, content);
+            Metrics.ROUTE_LATENCY.record(System.nanoTime() - startNanos);
+            return;
+        }
+
+        final var executor = EXECUTORS[(sender.hashCode() & Integer.MAX_VALUE) % EXECUTORS.length];
+        final var pending = pendingOf(sender);
+        final var queued = pending.incrementAndGet();
+        content.retain();
+        try {
+            executor.execute(() -> {
+                try {
+                    route(sender, opcode, content);
+                } finally {
+                    Metrics.ROUTE_LATENCY.record(System.nanoTime() - startNanos);
+                    content.release();
+                    // 积压回落后恢复读取
+                    if (pending.decrementAndGet() <= SENDER_PENDING_LIMIT / 2 && !sender.config().isAutoRead()) {
+                        sender.config().setAutoRead(true);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            content.release();
+            reject(sender);
+            return;
+        }
+
+        // 积压过多时暂停读取, 将压力反馈至发送方的 TCP 窗口
+        if (queued > SENDER_PENDING_LIMIT && sender.config().isAutoRead()) {
+            sender.config().setAutoRead(false);
+            // 暂停前积压可能已被处理完毕, 此时需立即恢复
+            if (pending.get() <= SENDER_PENDING_LIMIT / 2) {
+                sender.config().setAutoRead(true);
+            }
+        }
+    }
+
+    private static AtomicInteger pendingOf(final Channel sender) {
+        final var attr = sender.attr(PENDING);
+        final var pending = attr.get();
+        if (pending != null) return pending;
+
+        final var created = new AtomicInteger();
+        final var existing = attr.setIfAbsent(created);
+        return existing != null ? existing : created;
+    }
+
+    private static void reject(final Channel sender) {
+        switch (REJECT_POLICY) {
+            case DROP -> {
+                LOGGER.warn("Router Busy, Message From [{}] Dropped", sender.id().asLongText());
+                final var reply = new WebSocketMsgDto("Server", null, "Server Busy");
+                sender.writeAndFlush(new TextWebSocketFrame(JSONUtil.toJsonStr(reply)));
+            }
+            case CLOSE -> {
+                LOGGER.warn("Router Busy, Closing [{}]", sender.id().asLongText());
+                sender.close();
+            }
+        }
+    }
+
+    private static void route(final Channel sender, final int opcode, final ByteBuf content) {
+        if (opcode == PreEncodedFrame.OPCODE_BINARY) {
+            routeBinary(sender, content);
+        } else {
+            route(sender, content);
+        }
+    }
+
+    /**
+     * 群发消息, 原始帧及压缩帧各编码一次
+     *
+     * @param json 消息是否已解析为 JSON 对象
+     */
+    private static void broadcast(final Channel sender, final String source, final ByteBuf content, final boolean json) {
+        if (!InboundRateLimiter.tryBroadcast(sender, PreEncodedFrame.OPCODE_TEXT)) return;
+        Metrics.FANOUT.record(ChannelSupervise.joinedCount());
+        ChannelSupervise.broadcastFrame(sender,
+                PreEncodedFrame.encode(sender.alloc(), PreEncodedFrame.OPCODE_TEXT, content),
+                PerMessageDeflate.encode(sender.alloc(), PreEncodedFrame.OPCODE_TEXT, content),
+                json);
+        ClusterNode.broadcast(PreEncodedFrame.OPCODE_TEXT, source, content);
+    }
+
+    /**
+     * <p>路由消息</p>
+     * <p>JSON 消息含 subscribe / unsubscribe 时仅变更主题订阅, 不转发; 含 topic 时发布至该主题的订阅者</p>
+     * <p>其余 JSON 消息按 targets 推送至指定用户, 未指定目标或非 JSON 消息群发至所有已加入用户</p>
+     *
+     * @param sender  消息发送方通道
+     * @param content 消息数据, 本方法不改变其引用计数
+     */
+    public static void route(final Channel sender, final ByteBuf content) {
+        try {
+            final var source = ChannelSupervise.getChannelClientName(sender);
+
+            // 处理 JSON 数据体
+            // 仅解析路由字段, 数据体保持原始字节转发
+            final var envelope = WebSocketMsgEnvelopeParser.parse(content);
+            if (envelope != null) {
+                final var targets = envelope.getTargets();
+
+                // 处理未加入用户的消息通信
+                if (StrUtil.isEmptyIfStr(source)) {
+                    final var reply = new WebSocketMsgDto("Server", null, "Channel Not Join");
+                    sender.writeAndFlush(new TextWebSocketFrame(JSONUtil.toJsonStr(reply)));
+                    return;
+                }
+
+                // 处理消息确认
+                if (envelope.getAck() != null) {
+                    ResumableSession.ack(sender, envelope.getAck());
+                    return;
+                }
+
+                // 处理主题订阅
+                if (envelope.getSubscribe() != null || envelope.getUnsubscribe() != null) {
+                    updateSubscriptions(sender, envelope);
+                    return;
+                }
+
+                // 处理主题发布
+                final var topic = envelope.getTopic();
+                if (topic != null) {
+                    if (!TopicRegistry.isValidTopic(topic, false)) {
+                        final var reply = new WebSocketMsgDto("Server", null, "Invalid Topic");
+                        sender.writeAndFlush(new TextWebSocketFrame(JSONUtil.toJsonStr(reply)));
+                        return;
+                    }
+                    publish(sender, null, sender.alloc(), topic, content);
+                    ClusterNode.publish(PreEncodedFrame.OPCODE_TEXT, source, topic, content);
+                    return;
+                }
+
+                // 处理指定用户的消息推送
+                // 帧数据仅编码一次, 各目标通道共享同一缓冲区
+                if (targets != null && !targets.isEmpty()) {
+                    Metrics.FANOUT.record(targets.size());
+                    final var sharedFrame = PreEncodedFrame.encode(sender.alloc(), PreEncodedFrame.OPCODE_TEXT, content);
+                    // 已协商压缩的目标通道共享同一压缩帧
+                    final var deflatedFrame = PerMessageDeflate.encode(sender.alloc(), PreEncodedFrame.OPCODE_TEXT, content);
+                    // 不在本节点在线的目标, 由集群转发
+                    final var remoteTargets = new ArrayList<String>(0);
+                    try {
+                        targets.stream()
+                                // 过滤自身
+                                .filter(target -> !target.equals(source))
+                                // 过滤空目标
+                                .filter(StrUtil::isNotEmpty)
+                                .filter(StrUtil::isNotBlank)
+                                // 依次发送消息
+                                .forEach(target -> {
+                                    final var ch = ChannelSupervise.getUserChannel(target);
+                                    if (ch != null) {
+                                        writeShared(ch, sharedFrame, deflatedFrame);
+                                    } else if (!ResumableSession.sendDetached(target, sharedFrame, true)) {
+                                        if (ClusterNode.locate(target) != null) {
+                                            remoteTargets.add(target);
+                                        } else if (OfflineStore.ENABLED) {
+                                            OfflineStore.store(PreEncodedFrame.OPCODE_TEXT, source, target, content);
+                                        }
+                                    }
+                                });
+                    } finally {
+                        sharedFrame.release();
+                        if (deflatedFrame != null) deflatedFrame.release();
+                    }
+                    if (!remoteTargets.isEmpty()) {
+                        ClusterNode.forward(PreEncodedFrame.OPCODE_TEXT, source, remoteTargets, content);
+                    }
+                    return;
+                }
+
+                // 群发消息
+                broadcast(sender, source, content, true);
+                return;
+            }
+
+            // 默认群发文本数据
+            broadcast(sender, source, content, false);
+        } catch (Exception e) {
+            LOGGER.error(e, "Error Occurred");
+        }
+    }
+
+    /**
+     * 变更主题订阅, 被拒绝的订阅回复发送方
+     */
+    private static void updateSubscriptions(final Channel sender, final WebSocketMsgEnvelope envelope) {
+        Optional.ofNullable(envelope.getUnsubscribe())
+                .ifPresent(topics -> topics.forEach(topic -> TopicRegistry.unsubscribe(sender, topic)));
+
+        final var rejected = Optional.ofNullable(envelope.getSubscribe()).orElse(List.of()).stream()
+                .filter(topic -> !TopicRegistry.subscribe(sender, topic))
+                .toList();
+        if (!rejected.isEmpty()) {
+            final var reply = new WebSocketMsgDto("Server", rejected, "Subscribe Rejected");
+            sender.writeAndFlush(new TextWebSocketFrame(JSONUtil.toJsonStr(reply)));
+        }
+    }
+
+    /**
+     * <p>发布主题消息</p>
+     * <p>仅在存在订阅者时编码帧数据, 原始帧及压缩帧各编码一次, 由所有订阅通道共享</p>
+     *
+     * @param sender  消息发送方通道, 不接收自身发布的消息; 为 null 时不排除任何通道
+     * @param batch   批量写出, 为 null 时逐条写出并刷新
+     * @param alloc   缓冲区分配器
+     * @param topic   主题
+     * @param content 消息数据, 本方法不改变其引用计数
+     * @return 接收消息的本节点订阅者数
+     */
+    private static int publish(final Channel sender, final WriteBatch batch, final ByteBufAllocator alloc,
+                               final String topic, final ByteBuf content) {
+        final var subscribers = TopicRegistry.subscribers(topic);
+        Metrics.FANOUT.record(subscribers.size());
+        if (subscribers.isEmpty()) return 0;
+
+        final var sharedFrame = PreEncodedFrame.encode(alloc, PreEncodedFrame.OPCODE_TEXT, content);
+        final var deflatedFrame = PerMessageDeflate.encode(alloc, PreEncodedFrame.OPCODE_TEXT, content);
+        var count = 0;
+        try {
+            for (final var ch : subscribers) {
+                if (ch != sender) {
+                    writeShared(batch, ch, sharedFrame, deflatedFrame);
+                    count++;
+                }
+            }
+        } finally {
+            sharedFrame.release();
+            if (deflatedFrame != null) deflatedFrame.release();
+        }
+        return count;
+    }
+
+    /**
+     * <p>向指定用户推送服务端消息</p>
+     * <p>与客户端消息的路由一致: 在线用户直接推送, 其余依次尝试可恢复会话缓冲, 集群转发及离线保存; 重复及空白的目标被忽略</p>
+     *
+     * @param batch   批量写出, 本节点在线用户的帧暂存于此, 由调用方统一刷新
+     * @param alloc   缓冲区分配器
+     * @param source  发送方名称
+     * @param targets 目标用户名
+     * @param content 消息数据, 本方法不改变其引用计数
+     * @return 各目标的投递结果, 按目标顺序排列
+     */
+    public static Map<String, Delivery> sendBatched(final WriteBatch batch, final ByteBufAllocator alloc, final String source,
+                                                    final List<String> targets, final ByteBuf content) {
+        Metrics.FANOUT.record(targets.size());
+        final var result = new LinkedHashMap<String, Delivery>();
+        final var sharedFrame = PreEncodedFrame.encode(alloc, PreEncodedFrame.OPCODE_TEXT, content);
+        final var deflatedFrame = PerMessageDeflate.encode(alloc, PreEncodedFrame.OPCODE_TEXT, content);
+        // 不在本节点在线的目标, 由集群转发
+        final var remoteTargets = new ArrayList<String>(0);
+        try {
+            for (final var target : targets) {
+                if (StrUtil.isBlank(target) || result.containsKey(target)) continue;
+
+                final var ch = ChannelSupervise.getUserChannel(target);
+                final Delivery delivery;
+                if (ch != null) {
+                    writeShared(batch, ch, sharedFrame, deflatedFrame);
+                    delivery = Delivery.DELIVERED;
+                } else if (ResumableSession.sendDetached(target, sharedFrame, true)) {
+                    delivery = Delivery.BUFFERED;
+                } else if (ClusterNode.locate(target) != null) {
+                    remoteTargets.add(target);
+                    delivery = Delivery.FORWARDED;
+                } else if (OfflineStore.ENABLED && OfflineStore.store(PreEncodedFrame.OPCODE_TEXT, source, target, content)) {
+                    delivery = Delivery.OFFLINE;
+                } else {
+                    delivery = Delivery.DROPPED;
+                }
+                result.put(target, delivery);
+            }
+        } finally {
+            sharedFrame.release();
+            if (deflatedFrame != null) deflatedFrame.release();
+        }
+        if (!remoteTargets.isEmpty()) {
+            ClusterNode.forward(PreEncodedFrame.OPCODE_TEXT, source, remoteTargets, content);
+        }
+        return result;
+    }
+
+    /**
+     * 向主题发布服务端消息, 本节点订阅者的帧暂存于批量写出, 并经集群发布至其他节点
+     *
+     * @param batch   批量写出, 由调用方统一刷新
+     * @param alloc   缓冲区分配器
+     * @param source  发送方名称
+     * @param topic   主题, 调用方负责校验
+     * @param content 消息数据, 本方法不改变其引用计数
+     * @return 接收消息的本节点订阅者数
+     */
+    public static int publishBatched(final WriteBatch batch, final ByteBufAllocator alloc, final String source,
+                                     final String topic, final ByteBuf content) {
+        final var count = publish(null, batch, alloc, topic, content);
+        ClusterNode.publish(PreEncodedFrame.OPCODE_TEXT, source, topic, content);
+        return count;
+    }
+
+    /**
+     * <p>路由二进制消息</p>
+     * <p>按信封头部中的目标 ID 推送, 载荷原样转发, 不进行文本编解码</p>
+     *
+     * @param sender  消息发送方通道
+     * @param content 消息数据, 本方法不改变其引用计数
+     * @see BinaryEnvelope
+     */
+    public static void routeBinary(final Channel sender, final ByteBuf content) {
+        try {
+            switch (BinaryEnvelope.type(content)) {
+                case BinaryEnvelope.TYPE_SEND -> {
+                    final var sourceId = ChannelSupervise.getChannelUserId(sender);
+                    // 处理未加入用户的消息通信
+                    if (sourceId == 0) {
+                        sender.writeAndFlush(BinaryEnvelope.encodeError(sender.alloc(), BinaryEnvelope.ERROR_NOT_JOINED));
+                        return;
+                    }
+
+                    final var payload = BinaryEnvelope.payload(content);
+                    final var targetCount = BinaryEnvelope.count(content);
+                    if (targetCount == 0 && !InboundRateLimiter.tryBroadcast(sender, PreEncodedFrame.OPCODE_BINARY)) return;
+                    final var sharedFrame = BinaryEnvelope.encodeDeliver(sender.alloc(), sourceId, payload);
+                    Metrics.FANOUT.record(targetCount == 0 ? ChannelSupervise.joinedCount() : targetCount);
+                    // 未指定目标时群发
+                    if (targetCount == 0) {
+                        ChannelSupervise.broadcastFrame(sender, sharedFrame, deflateFrame(sender.alloc(), sharedFrame), false);
+                        ClusterNode.broadcast(PreEncodedFrame.OPCODE_BINARY, ChannelSupervise.getUserName(sourceId), payload);
+                        return;
+                    }
+
+                    // 帧数据仅编码一次, 各目标通道共享同一缓冲区
+                    final var deflatedFrame = deflateFrame(sender.alloc(), sharedFrame);
+                    // 不在本节点在线的目标, 由集群转发
+                    final var remoteTargets = new ArrayList<String>(0);
+                    try {
+                        for (int i = 0; i < targetCount; i++) {
+                            final var targetId = BinaryEnvelope.targetId(content, i);
+                            if (targetId == sourceId) continue;
+
+                            final var ch = ChannelSupervise.getUserChannel(targetId);
+                            if (ch != null) {
+                                writeShared(ch, sharedFrame, deflatedFrame);
+                                continue;
+                            }
+
+                            final var target = ChannelSupervise.getUserName(targetId);
+                            if (target == null || ResumableSession.sendDetached(target, sharedFrame, false)) continue;
+                            if (ClusterNode.locate(target) != null) {
+                                remoteTargets.add(target);
+                            } else if (OfflineStore.ENABLED) {
+                                OfflineStore.store(PreEncodedFrame.OPCODE_BINARY, ChannelSupervise.getUserName(sourceId), target, payload);
+                            }
+                        }
+                    } finally {
+                        sharedFrame.release();
+                        if (deflatedFrame != null) deflatedFrame.release();
+                    }
+                    if (!remoteTargets.isEmpty()) {
+                        ClusterNode.forward(PreEncodedFrame.OPCODE_BINARY, ChannelSupervise.getUserName(sourceId), remoteTargets, payload);
+                    }
+                }
+                case BinaryEnvelope.TYPE_ACK -> ResumableSession.ack(sender, BinaryEnvelope.ackSeq(content));
+                case BinaryEnvelope.TYPE_RESOLVE -> {
+                    final var names = BinaryEnvelope.names(content);
+                    final var userIds = new int[names.length];
+                    // 只读查询, 未出现过的用户名返回 0, 不分配 ID
+                    for (int i = 0; i < names.length; i++) {
+                        userIds[i] = ChannelSupervise.findUserId(names[i]);
+                    }
+                    sender.writeAndFlush(BinaryEnvelope.encodeResolved(sender.alloc(), userIds));
+                }
+                default -> sender.writeAndFlush(BinaryEnvelope.encodeError(sender.alloc(), BinaryEnvelope.ERROR_MALFORMED));
+            }
+        } catch (IllegalArgumentException e) {
+            sender.writeAndFlush(BinaryEnvelope.encodeError(sender.alloc(), BinaryEnvelope.ERROR_MALFORMED));
+        } catch (Exception e) {
+            LOGGER.error(e, "Error Occurred");
+        }
+    }
+
+    /**
+     * <p>投递来自其他节点的消息</p>
+     * <p>按目标用户推送至本节点的通道, 未指定目标时群发至本节点所有已加入用户; 消息不再转发至其他节点</p>
+     * <p>目标已离开本节点时保存为离线消息</p>
+     *
+     * @param alloc   缓冲区分配器
+     * @param opcode  客户端消息帧操作码
+     * @param source  发送方用户名
+     * @param targets 目标用户名, 为空时群发
+     * @param payload 消息载荷, 本方法不改变其引用计数
+     */
+    public static void deliver(final ByteBufAllocator alloc, final int opcode, final String source,
+                               final List<String> targets, final ByteBuf payload) {
+        final ByteBuf sharedFrame;
+        final ByteBuf deflatedFrame;
+        if (opcode == PreEncodedFrame.OPCODE_BINARY) {
+            // 用户 ID 仅在节点内有效, 按本节点分配的 ID 重新编码; 集群用户加入时已分配 ID, 未知发送方为 0
+            sharedFrame = BinaryEnvelope.encodeDeliver(alloc, ChannelSupervise.findUserId(source), payload);
+            deflatedFrame = deflateFrame(alloc, sharedFrame);
+        } else {
+            sharedFrame = PreEncodedFrame.encode(alloc, PreEncodedFrame.OPCODE_TEXT, payload);
+            deflatedFrame = PerMessageDeflate.encode(alloc, PreEncodedFrame.OPCODE_TEXT, payload);
+        }
+
+        if (targets.isEmpty()) {
+            // 群发消息可能为纯文本, 仅在存在可恢复会话时判断
+            final var json = opcode == PreEncodedFrame.OPCODE_TEXT && ResumableSession.ENABLED && isJsonObject(payload);
+            ChannelSupervise.broadcastFrame(null, sharedFrame, deflatedFrame, json);
+            return;
+        }
+
+        try {
+            for (final var target : targets) {
+                final var ch = ChannelSupervise.getUserChannel(target);
+                if (ch != null) {
+                    writeShared(ch, sharedFrame, deflatedFrame);
+                } else if (!ResumableSession.sendDetached(target, sharedFrame, true) && OfflineStore.ENABLED) {
+                    OfflineStore.store(opcode, source, target, payload);
+                }
+            }
+        } finally {
+            sharedFrame.release();
+            if (deflatedFrame != null) deflatedFrame.release();
+        }
+    }
+
+    /**
+     * <p>投递来自其他节点的主题消息</p>
+     * <p>发布至本节点的订阅者, 消息不再转发至其他节点</p>
+     *
+     * @param alloc   缓冲区分配器
+     * @param topic   主题
+     * @param payload 消息载荷, 本方法不改变其引用计数
+     */
+    public static void deliverTopic(final ByteBufAllocator alloc, final String topic, final ByteBuf payload) {
+        publish(null, null, alloc, topic, payload);
+    }
+
+    /**
+     * <p>写出共享帧, 已启用可恢复会话的通道经会话分配序号, 已协商压缩的通道写出压缩帧</p>
+     * <p>指定目标及主题的文本消息均已解析为 JSON 对象, 仅群发可能为纯文本</p>
+     */
+    private static void writeShared(final Channel ch, final ByteBuf sharedFrame, final ByteBuf deflatedFrame) {
+        if (ResumableSession.send(ch, sharedFrame, true)) return;
+        final var frame = deflatedFrame != null && PerMessageDeflate.isNegotiated(ch) ? deflatedFrame : sharedFrame;
+        ch.writeAndFlush(frame.retainedDuplicate(), ch.voidPromise());
+    }
+
+    /**
+     * 写出共享帧, 批量写出不为空时暂存至批次, 经会话分配序号的帧仍立即写出
+     */
+    private static void writeShared(final WriteBatch batch, final Channel ch, final ByteBuf sharedFrame, final ByteBuf deflatedFrame) {
+        if (batch == null) {
+            writeShared(ch, sharedFrame, deflatedFrame);
+            return;
+        }
+        if (ResumableSession.send(ch, sharedFrame, true)) return;
+        final var frame = deflatedFrame != null && PerMessageDeflate.isNegotiated(ch) ? deflatedFrame : sharedFrame;
+        batch.add(ch, frame.retainedDuplicate());
+    }
+
+    /**
+     * 消息是否为 JSON 对象
+     */
+    private static boolean isJsonObject(final ByteBuf content) {
+        try {
+            return WebSocketMsgEnvelopeParser.parse(content) != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 压缩预编码帧的载荷部分
+     */
+    private static ByteBuf deflateFrame(final ByteBufAllocator alloc, final ByteBuf frame) {
+        final var payloadOffset = PreEncodedFrame.payloadOffset(frame);
+        return PerMessageDeflate.encode(alloc, PreEncodedFrame.OPCODE_BINARY,
+                frame.slice(frame.readerIndex() + payloadOffset, frame.readableBytes() - payloadOffset));
+    }
+}
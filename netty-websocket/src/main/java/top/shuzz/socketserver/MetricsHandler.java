@@ -0,0 +1,48 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import top.shuzz.metrics.Metrics;
+
+/**
+ * <p>流量指标处理器</p>
+ * <p>位于编解码器与刷新合并处理器之间: 入站统计解码(及解压)后的数据帧, 出站统计合并后实际写出的帧</p>
+ * <p>无状态, 所有通道共享同一实例</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+@ChannelHandler.Sharable
+public class MetricsHandler extends ChannelDuplexHandler {
+
+    final public static MetricsHandler INSTANCE = new MetricsHandler();
+
+    private MetricsHandler() {}
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame) {
+            Metrics.MESSAGES_IN.increment();
+            Metrics.BYTES_IN.add(((WebSocketFrame) msg).content().readableBytes());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf buf) {
+            Metrics.MESSAGES_OUT.increment();
+            Metrics.BYTES_OUT.add(buf.readableBytes());
+        } else if (msg instanceof WebSocketFrame frame) {
+            Metrics.MESSAGES_OUT.increment();
+            Metrics.BYTES_OUT.add(frame.content().readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+}
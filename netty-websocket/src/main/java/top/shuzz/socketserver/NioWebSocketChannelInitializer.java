@@ -1,38 +1,122 @@
 package top.shuzz.socketserver;
 
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
-import io.netty.handler.stream.ChunkedWriteHandler;
+import top.shuzz.config.ConfigHelper;
+import top.shuzz.httpserver.NioHttpChannelInitializer;
+
+import java.util.Optional;
 
 /**
- * WebSocket 信道初始化器
+ * <p>WebSocket 信道初始化器</p>
+ * <p>统一端口模式下仅添加 HTTP 编解码器及 {@link ProtocolDispatchHandler}, 首个请求到达后再按请求类型补全处理链</p>
+ * <p>新连接先经 {@link AdmissionControl} 准入检查, 被拒绝的连接不添加 HTTP 编解码器</p>
+ * <p>握手时握手器以 WebSocket 编解码器替换 HTTP 编解码器并移除聚合器, 此后处理链仅含 WebSocket 编解码及业务处理; 收发数据日志仅在调试模式下添加</p>
+ *
  * @author heng
  * @since 2023/6/21
  */
 public class NioWebSocketChannelInitializer extends ChannelInitializer<SocketChannel> {
 
-    final private String host;
-    final private int port;
+    /**
+     * 握手请求最大字节数
+     */
+    final private static int HANDSHAKE_MAX_CONTENT_LENGTH = 8192;
+
+    /**
+     * 单个数据帧的载荷上限(字节), 超出时以 1009 关闭连接
+     */
+    final static int MAX_FRAME_SIZE = Optional.ofNullable(ConfigHelper.getConfigInteger("server", "WS_MAX_FRAME_SIZE")).orElse(65536);
+
+    /**
+     * 分片消息聚合后的载荷上限(字节)
+     */
+    final private static int MAX_MESSAGE_SIZE = Optional.ofNullable(ConfigHelper.getConfigInteger("server", "WS_MAX_MESSAGE_SIZE")).orElse(256 * 1024);
+
     final private String prefix;
 
+    /**
+     * 握手器工厂, 所有连接共用
+     */
+    final private WebSocketServerHandshakerFactory handshakerFactory;
+
+    /**
+     * 是否同时提供 HTTP API
+     */
+    final private boolean unified;
+
     public NioWebSocketChannelInitializer(final String host, final int port, final String prefix) {
-        this.host = host;
-        this.port = port;
+        this(host, port, prefix, false);
+    }
+
+    public NioWebSocketChannelInitializer(final String host, final int port, final String prefix, final boolean unified) {
         this.prefix = prefix;
+        this.unified = unified;
+        this.handshakerFactory = NioWebSocketHandler.newHandshakerFactory(host, port, prefix);
     }
 
     @Override
     protected void initChannel(SocketChannel ch) throws Exception {
         final var pipeLine = ch.pipeline();
-        pipeLine.addLast("logger", new LoggingHandler());
+        // 超出连接数或握手速率限制时仅响应 503, 不初始化其余处理器
+        if (!AdmissionControl.admit(ch)) {
+            pipeLine.addLast("admission-reject", AdmissionControl.REJECT_HANDLER);
+            return;
+        }
+        if (ConfigHelper.DEBUG_MODE) {
+            pipeLine.addLast("logger", new LoggingHandler(LogLevel.INFO));
+        }
         pipeLine.addLast("http-codec", new HttpServerCodec());
-        pipeLine.addLast("aggregator", new HttpObjectAggregator(65536));
-        pipeLine.addLast("http-chunked", new ChunkedWriteHandler());
+
+        if (unified) {
+            // 握手完成后聚合器即被移除, 此处按 API 请求体上限配置
+            pipeLine.addLast("aggregator", new HttpObjectAggregator(NioHttpChannelInitializer.MAX_CONTENT_LENGTH));
+            pipeLine.addLast("protocol-dispatcher", new ProtocolDispatchHandler(this, prefix));
+            return;
+        }
+
+        pipeLine.addLast("aggregator", new HttpObjectAggregator(HANDSHAKE_MAX_CONTENT_LENGTH));
+        addWebSocketHandlers(pipeLine);
+    }
+
+    /**
+     * 添加 WebSocket 处理器, 追加于 HTTP 编解码器及聚合器之后
+     *
+     * @param pipeLine 通道处理链
+     */
+    void addWebSocketHandlers(final ChannelPipeline pipeLine) {
+        // permessage-deflate 压缩扩展协商
+        Optional.ofNullable(PerMessageDeflate.newExtensionHandler())
+                .ifPresent(extensionHandler -> pipeLine.addLast("ws-extension", extensionHandler));
+
+        // 分片消息聚合, 位于压缩扩展之后; 握手前不处理 HTTP 消息
+        pipeLine.addLast("ws-aggregator", new WebSocketFrameAggregator(MAX_MESSAGE_SIZE));
+
+        // 流量指标处理器, 统计解码后的入站帧及合并后的出站帧
+        pipeLine.addLast("metrics", MetricsHandler.INSTANCE);
+
+        // 空闲连接回收处理器, 位于编解码器之后以发送 Ping 帧
+        if (IdleReaper.ENABLED) {
+            pipeLine.addLast("idle-reaper", new IdleReaper());
+        }
+
+        // 出站刷新合并处理器
+        if (FlushCoalescingHandler.ENABLED) {
+            pipeLine.addLast("flush-coalescing", new FlushCoalescingHandler());
+        }
+
+        // 慢消费者处理器, 位于业务处理器之前以覆盖所有推送至该通道的数据
+        pipeLine.addLast("slow-consumer", new SlowConsumerHandler());
 
         // 业务处理器(自定义 WebSocket 处理器)
-        pipeLine.addLast("nio-websocket-handler", new NioWebSocketHandler(host, port, prefix));
+        pipeLine.addLast("nio-websocket-handler", new NioWebSocketHandler(handshakerFactory));
     }
+
 }
@@ -1,22 +1,24 @@
 package top.shuzz.socketserver;
 
-import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
+import cn.hutool.core.util.CharUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.TooLongFrameException;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.codec.http.websocketx.*;
+import top.shuzz.store.OfflineStore;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -30,44 +32,74 @@ public class NioWebSocketHandler extends SimpleChannelInboundHandler<Object> {
     final private static Log LOGGER = LogFactory.get();
 
     /**
-     * 服务主机地址(IP/域名)
+     * <p>握手器工厂</p>
+     * <p>按连接前缀预先创建, 同一前缀下的所有连接共用; 工厂本身无状态, 每次握手仅创建握手器</p>
      */
-    final private String host;
+    final private WebSocketServerHandshakerFactory handshakerFactory;
+
     /**
-     * 连接前缀
+     * WebSocket 握手器
      */
-    final private String prefix;
+    private WebSocketServerHandshaker handShaker;
+
     /**
-     * 服务端口号
+     * 客户端请求恢复会话时已接收的最大序号, 未启用会话时为 null
      */
-    final private int port;
+    private Long resumeFrom;
 
     /**
-     * WebSocket 握手器
+     * 入站消息限流器, 未启用限流时为 null
      */
-    private WebSocketServerHandshaker handShaker;
+    private InboundRateLimiter rateLimiter;
 
     public NioWebSocketHandler(final String host, final int port, final String prefix) {
-        this.host = host;
-        this.port = port;
-        this.prefix = prefix;
+        this(newHandshakerFactory(host, port, prefix));
+    }
+
+    public NioWebSocketHandler(final WebSocketServerHandshakerFactory handshakerFactory) {
+        this.handshakerFactory = handshakerFactory;
+    }
+
+    /**
+     * <p>创建握手器工厂</p>
+     * <p>地址仅用于早期协议版本的 Location 响应头, 不含客户端名称, 以便同一前缀下的连接共用</p>
+     *
+     * @param host   服务主机地址
+     * @param port   服务端口号
+     * @param prefix 连接前缀
+     * @return 握手器工厂
+     */
+    static WebSocketServerHandshakerFactory newHandshakerFactory(final String host, final int port, final String prefix) {
+        return new WebSocketServerHandshakerFactory(
+                "ws://" + host + ":" + port + prefix,
+                // 允许客户端通过子协议选择消息合并
+                FlushCoalescingHandler.MERGING_ENABLED ? FlushCoalescingHandler.MERGE_SUBPROTOCOL : null,
+                // 启用压缩扩展时允许 RSV 标志位
+                PerMessageDeflate.ENABLED,
+                NioWebSocketChannelInitializer.MAX_FRAME_SIZE);
     }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        LOGGER.info("Connection [{}] Activated", ctx.channel().id().asLongText());
+        // 通道 ID 文本生成后即缓存于通道, 仅在输出日志时生成
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Connection [{}] Activated", ctx.channel().id().asLongText());
+        }
         // 当连接建立时触发
         // 将该通信通道添加到管理容器
         ChannelSupervise.addChannel(ctx.channel());
+        rateLimiter = InboundRateLimiter.attach(ctx.channel());
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        LOGGER.info("Connection [{}] Deactivated", ctx.channel().id().asLongText());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Connection [{}] Deactivated", ctx.channel().id().asLongText());
+        }
         // 当连接断开时触发
-        // 将该通信通道移出管理容器
-        ChannelSupervise.removeUserByChannelId(ctx.channel().id().asLongText());
+        // 将该通信通道移出管理容器, 仍加入的用户一并离开
         ChannelSupervise.removeChannel(ctx.channel());
+        ResumableSession.detach(ctx.channel());
     }
 
     @Override
@@ -75,17 +107,25 @@ public class NioWebSocketHandler extends SimpleChannelInboundHandler<Object> {
         ctx.flush();
     }
 
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        // 分片消息聚合后超出上限
+        if (cause instanceof TooLongFrameException) {
+            LOGGER.warn("Connection [{}] Message Too Big, Closing...", ctx.channel().id().asLongText());
+            ctx.writeAndFlush(new CloseWebSocketFrame(WebSocketCloseStatus.MESSAGE_TOO_BIG)).addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+        super.exceptionCaught(ctx, cause);
+    }
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
 
         // 当服务器接收到请求数据时触发
         if (msg instanceof FullHttpRequest) {
             // 处理 HTTP-Socket 数据请求
-            // 通过握手建立长连接
-            final var clientName = this.handleHttpRequest(ctx, (FullHttpRequest) msg);
-
-            // 处理用户注册
-            Optional.ofNullable(clientName).ifPresent(cn -> this.handleUserRegister(ctx, clientName));
+            // 通过握手建立长连接, 握手完成后处理用户注册
+            this.handleHttpRequest(ctx, (FullHttpRequest) msg);
 
         } else if (msg instanceof WebSocketFrame) {
             // 处理 WebSocket 数据请求
@@ -97,53 +137,101 @@ public class NioWebSocketHandler extends SimpleChannelInboundHandler<Object> {
      * <p>处理 HTTP-WebSocket 请求</p>
      * <p>初次接入时使用 HTTP 协议 访问服务端</p>
      * <p>使用 Upgrade 参数以建立 WebSocket 长连接</p>
+     * <p>握手响应写出且 HTTP 编解码器移除后才注册用户, 以保证该通道可接收预编码帧</p>
      *
      * @param ctx     通道处理器上下文
      * @param request HTTP-WebSocket 请求
-     * @return 客户端名称
      */
-    private String handleHttpRequest(final ChannelHandlerContext ctx, FullHttpRequest request) {
+    private void handleHttpRequest(final ChannelHandlerContext ctx, FullHttpRequest request) {
+        // 获取客户端名称
+        final var clientName = request.decoderResult().isSuccess()
+                && request.headers().containsValue(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET, true)
+                ? parseClientName(request.uri())
+                : null;
+
         // 处理非法请求
-        if (!request.decoderResult().isSuccess() || !"websocket".equals(request.headers().get("Upgrade"))) {
+        if (clientName == null) {
             this.sendHttpResponse(ctx, request, new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST));
-            return null;
+            return;
         }
 
-        // 获取客户端名称
-        final var uriParams = Optional.ofNullable(request.uri())
-                .map(uri -> uri.split("/"))
-                .map(Arrays::asList)
-                .stream()
-                .flatMap(Collection::stream)
-                .filter(StrUtil::isNotBlank)
-                .toList();
-        final var clientName = uriParams.size() == 2 ? uriParams.get(1) : null;
-
-        return Optional.ofNullable(clientName)
-                .map(cn -> {
-                    // 处理 HTTP-WebSocket 首次连接请求
-                    // 为 WebSocket 配置通信握手
-                    final var wsFactory = new WebSocketServerHandshakerFactory(
-                            "ws://" + host + ":" + port + prefix + "/" + clientName,
-                            null,
-                            false);
-
-                    // 建立握手
-                    handShaker = wsFactory.newHandshaker(request);
-                    if (handShaker == null) {
-                        // 握手失败
-                        WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
-                        return null;
-                    } else {
-                        // 握手成功
-                        handShaker.handshake(ctx.channel(), request);
-                        return clientName;
-                    }
-                })
-                .orElseGet(() -> {
-                    this.sendHttpResponse(ctx, request, new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST));
-                    return null;
-                });
+        // 获取会话恢复参数
+        resumeFrom = ResumableSession.ENABLED ? parseResume(request.uri()) : null;
+
+        // 建立握手
+        handShaker = handshakerFactory.newHandshaker(request);
+        if (handShaker == null) {
+            // 握手失败
+            WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
+            return;
+        }
+
+        // 握手成功后处理用户注册
+        handShaker.handshake(ctx.channel(), request).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) return;
+            if (FlushCoalescingHandler.MERGE_SUBPROTOCOL.equals(handShaker.selectedSubprotocol())) {
+                Optional.ofNullable(ctx.pipeline().get(FlushCoalescingHandler.class))
+                        .ifPresent(FlushCoalescingHandler::enableMerging);
+            }
+            this.handleUserRegister(ctx, clientName);
+        });
+    }
+
+    /**
+     * <p>从请求 URI 中解析客户端名称</p>
+     * <p>路径须恰好包含两个非空白的路径段(如 /ws/name), 返回第二段</p>
+     * <p>直接在 URI 上按下标扫描, 仅为名称分配字符串; 路径含百分号编码时先经 {@link QueryStringDecoder} 解码</p>
+     *
+     * @param uri 请求 URI
+     * @return 客户端名称, 格式不符时返回 null
+     */
+    static String parseClientName(final String uri) {
+        var end = uri.length();
+        for (int i = 0; i < end; i++) {
+            final var c = uri.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+            } else if (c == '%') {
+                final var path = new QueryStringDecoder(uri).path();
+                return secondSegment(path, path.length());
+            }
+        }
+        return secondSegment(uri, end);
+    }
+
+    private static String secondSegment(final String path, final int end) {
+        var segments = 0;
+        var nameStart = 0;
+        var nameEnd = 0;
+        var i = 0;
+        while (i < end) {
+            if (path.charAt(i) == '/') {
+                i++;
+                continue;
+            }
+            final var start = i;
+            var blank = true;
+            while (i < end && path.charAt(i) != '/') {
+                blank &= CharUtil.isBlankChar(path.charAt(i));
+                i++;
+            }
+            if (blank) continue;
+            if (++segments == 2) {
+                nameStart = start;
+                nameEnd = i;
+            }
+        }
+        return segments == 2 ? path.substring(nameStart, nameEnd) : null;
+    }
+
+    /**
+     * 解析会话恢复参数, 未携带时返回 null
+     */
+    private static Long parseResume(final String uri) {
+        if (uri.indexOf('?') < 0) return null;
+        return Optional.ofNullable(new QueryStringDecoder(uri).parameters().get("resume"))
+                .map(values -> parseSeq(values.get(0)))
+                .orElse(null);
     }
 
     /**
@@ -178,18 +266,40 @@ public class NioWebSocketHandler extends SimpleChannelInboundHandler<Object> {
      * @param clientName 客户端用户名
      */
     private void handleUserRegister(ChannelHandlerContext ctx, String clientName) {
-        final var channelId = ctx.channel().id().asLongText();
+        // 恢复会话, 须先于用户注册, 以保证重放的消息先于新消息写出
+        if (resumeFrom != null) {
+            ResumableSession.attach(clientName, ctx.channel(), resumeFrom);
+        } else if (ResumableSession.ENABLED) {
+            ResumableSession.discard(clientName);
+        }
 
-        // 处理用户重复
-        Optional.ofNullable(ChannelSupervise.getUserChannelId(clientName)).ifPresent(chId -> {
-            ChannelSupervise.getTargetChannel(chId).close();
-            ChannelSupervise.removeUserByChannelId(chId);
+        // 用户注册
+        final var previous = ChannelSupervise.addUser(clientName, ctx.channel());
+        if (ChannelSupervise.getChannelUserId(ctx.channel()) == 0) {
+            // 用户表已满
+            ctx.writeAndFlush(new CloseWebSocketFrame(WebSocketCloseStatus.TRY_AGAIN_LATER)).addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
 
-            LOGGER.warn("Duplicated [{}:{}], Disconnecting...", clientName, chId);
+        // 处理用户重复
+        Optional.ofNullable(previous).ifPresent(ch -> {
+            ch.close();
+            LOGGER.warn("Duplicated [{}:{}], Disconnecting...", clientName, ch.id().asLongText());
         });
 
-        // 用户注册
-        ChannelSupervise.addUser(clientName, channelId);
+        // 重放离线期间的消息
+        OfflineStore.replay(clientName);
+    }
+
+    /**
+     * 解析会话恢复参数, 格式错误时视为 0
+     */
+    private static long parseSeq(final String value) {
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     /**
@@ -208,57 +318,24 @@ public class NioWebSocketHandler extends SimpleChannelInboundHandler<Object> {
 
         // 处理 Ping-Pong 帧
         if (frame instanceof PingWebSocketFrame) {
-            LOGGER.info("Connection [{}] Heartbeat", ctx.channel().id().asLongText());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Connection [{}] Heartbeat", ctx.channel().id().asLongText());
+            }
             ctx.channel().write(new PongWebSocketFrame(frame.content().retain()));
         }
 
         // 处理业务数据帧
+        // 超出速率限制的消息在进入路由器前丢弃, 路由及扇出交由消息路由器处理
+        final int opcode;
         if (frame instanceof TextWebSocketFrame) {
-            final var msgText = ((TextWebSocketFrame) frame).text();
-
-            try {
-                final var clientChannelId = ctx.channel().id().asLongText();
-                final var source = ChannelSupervise.getChannelClientName(clientChannelId);
-
-                // 处理 JSON 数据体
-                if (msgText.startsWith("{") && msgText.endsWith("}")) {
-                    final var dataFrame = JSONUtil.toBean(msgText, WebSocketMsgDto.class);
-                    final var targets = dataFrame.getTargets();
-
-                    // 处理未加入用户的消息通信
-                    if (StrUtil.isEmptyIfStr(source)) {
-                        final var reply = new WebSocketMsgDto("Server", null, "Channel Not Join");
-                        ChannelSupervise.getTargetChannel(ctx.channel().id().asLongText()).writeAndFlush(new TextWebSocketFrame(JSONUtil.toJsonStr(reply)));
-                        return;
-                    }
-
-                    // 处理指定用户的消息推送
-                    if (targets != null && !targets.isEmpty()) {
-                        targets.stream()
-                                // 过滤自身
-                                .filter(target -> !target.equals(source))
-                                // 过滤空目标
-                                .filter(StrUtil::isNotEmpty)
-                                .filter(StrUtil::isNotBlank)
-                                // 依次发送消息
-                                .forEach(target -> {
-                                    final var targetChannelId = ChannelSupervise.getUserChannelId(target);
-                                    Optional.ofNullable(ChannelSupervise.getTargetChannel(targetChannelId)).ifPresent(ch -> ch.writeAndFlush(new TextWebSocketFrame(msgText)));
-                                });
-                        return;
-                    }
-
-                    // 群发消息
-                    ChannelSupervise.broadcastMsg(ctx.channel().id(), msgText);
-                    return;
-                }
-
-                // 默认群发文本数据
-                ChannelSupervise.broadcastMsg(ctx.channel().id(), msgText);
-            } catch (Exception e) {
-                LOGGER.error(e, "Error Occurred");
-            }
+            opcode = PreEncodedFrame.OPCODE_TEXT;
+        } else if (frame instanceof BinaryWebSocketFrame) {
+            opcode = PreEncodedFrame.OPCODE_BINARY;
+        } else {
+            return;
         }
+        if (rateLimiter != null && !rateLimiter.tryMessage(ctx.channel(), opcode)) return;
+        MessageRouter.dispatch(ctx.channel(), opcode, frame.content());
 
     }
 
@@ -0,0 +1,243 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.group.ChannelMatcher;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionEncoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.FastThreadLocal;
+import top.shuzz.config.ConfigHelper;
+
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * <p>permessage-deflate 压缩扩展</p>
+ * <p>握手时协商压缩扩展, 并强制服务端不保留压缩上下文(server_no_context_takeover), 使每条消息可独立压缩</p>
+ * <p>扇出时同一载荷仅压缩一次, 压缩后的预编码帧由所有已协商压缩的接收通道共享; 小于阈值的消息不压缩</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class PerMessageDeflate {
+
+    /**
+     * 是否启用压缩扩展
+     */
+    final public static boolean ENABLED = Optional.ofNullable(ConfigHelper.getConfigBoolean("compression", "DEFLATE_ENABLED")).orElse(false);
+
+    /**
+     * 压缩级别(0-9)
+     */
+    final private static int LEVEL = Optional.ofNullable(ConfigHelper.getConfigInteger("compression", "DEFLATE_LEVEL")).orElse(6);
+
+    /**
+     * 压缩阈值(字节), 小于该值的载荷不压缩
+     */
+    final private static int MIN_SIZE = Optional.ofNullable(ConfigHelper.getConfigInteger("compression", "DEFLATE_MIN_SIZE")).orElse(1024);
+
+    final private static String SERVER_NO_CONTEXT = "server_no_context_takeover";
+
+    /**
+     * RSV1 标志位, 标识压缩帧
+     */
+    final private static int RSV1 = 0x40;
+
+    /**
+     * 同步刷新块的结尾标记, 按协议需从压缩数据中移除
+     */
+    final private static int TAIL_LENGTH = 4;
+
+    /**
+     * 预编码帧头部最大长度, 压缩前预留
+     */
+    final private static int MAX_HEADER_LENGTH = 10;
+
+    /**
+     * 已协商压缩的通道标记
+     */
+    final private static AttributeKey<Boolean> NEGOTIATED = AttributeKey.valueOf("deflateNegotiated");
+
+    /**
+     * 已协商压缩的通道匹配器
+     */
+    final public static ChannelMatcher NEGOTIATED_MATCHER = PerMessageDeflate::isNegotiated;
+
+    /**
+     * 当前已协商压缩的通道数, 为 0 时扇出不进行压缩
+     */
+    final private static AtomicInteger NEGOTIATED_CHANNELS = new AtomicInteger();
+
+    /**
+     * 各线程复用的压缩器
+     */
+    final private static FastThreadLocal<Deflater> DEFLATER = new FastThreadLocal<>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(LEVEL, true);
+        }
+
+        @Override
+        protected void onRemoval(Deflater deflater) {
+            deflater.end();
+        }
+    };
+
+    private PerMessageDeflate() {}
+
+    /**
+     * 创建扩展协商处理器
+     *
+     * @return 扩展协商处理器, 未启用压缩时返回 null
+     */
+    public static WebSocketServerExtensionHandler newExtensionHandler() {
+        if (!ENABLED) return null;
+
+        final var filterProvider = new WebSocketExtensionFilterProvider() {
+            @Override
+            public WebSocketExtensionFilter encoderFilter() {
+                return PerMessageDeflate::belowThreshold;
+            }
+
+            @Override
+            public WebSocketExtensionFilter decoderFilter() {
+                return WebSocketExtensionFilter.NEVER_SKIP;
+            }
+        };
+        final var deflateHandshaker = new PerMessageDeflateServerExtensionHandshaker(
+                LEVEL, false, 15, true, false, filterProvider);
+
+        return new NegotiationHandler(new NoContextTakeoverHandshaker(deflateHandshaker));
+    }
+
+    /**
+     * <p>记录通道的压缩协商结果</p>
+     * <p>需在握手响应写出后调用, 此时扩展编码器已加入通道流水线</p>
+     *
+     * @param channel 通信通道
+     */
+    private static void onNegotiated(final Channel channel) {
+        if (channel.pipeline().get(WebSocketExtensionEncoder.class) == null) return;
+
+        channel.attr(NEGOTIATED).set(Boolean.TRUE);
+        NEGOTIATED_CHANNELS.incrementAndGet();
+        channel.closeFuture().addListener(future -> NEGOTIATED_CHANNELS.decrementAndGet());
+    }
+
+    /**
+     * 通道是否已协商压缩
+     */
+    public static boolean isNegotiated(final Channel channel) {
+        return channel.attr(NEGOTIATED).get() != null;
+    }
+
+    /**
+     * <p>编码压缩帧</p>
+     * <p>载荷仅压缩一次, 不改变其读索引</p>
+     *
+     * @param alloc   缓冲区分配器
+     * @param opcode  帧操作码
+     * @param payload 帧载荷
+     * @return 压缩后的完整帧数据; 无已协商压缩的通道、载荷小于阈值或压缩无收益时返回 null
+     */
+    public static ByteBuf encode(final ByteBufAllocator alloc, final int opcode, final ByteBuf payload) {
+        final var payloadLength = payload.readableBytes();
+        if (!ENABLED || payloadLength < MIN_SIZE || NEGOTIATED_CHANNELS.get() == 0) return null;
+
+        final var deflater = DEFLATER.get();
+        final var frame = alloc.directBuffer(MAX_HEADER_LENGTH + payloadLength + 64);
+        try {
+            frame.writerIndex(MAX_HEADER_LENGTH);
+            deflater.setInput(payload.nioBuffer(payload.readerIndex(), payloadLength));
+            while (true) {
+                final var out = frame.nioBuffer(frame.writerIndex(), frame.writableBytes());
+                final var written = deflater.deflate(out, Deflater.SYNC_FLUSH);
+                frame.writerIndex(frame.writerIndex() + written);
+                if (frame.isWritable()) break;
+                frame.ensureWritable(Math.max(64, payloadLength >>> 4));
+            }
+
+            // 移除同步刷新结尾标记
+            final var compressedLength = frame.readableBytes() - MAX_HEADER_LENGTH - TAIL_LENGTH;
+            if (compressedLength >= payloadLength) {
+                frame.release();
+                return null;
+            }
+            frame.writerIndex(frame.writerIndex() - TAIL_LENGTH);
+
+            // 在预留空间中回填帧头部
+            final var headerLength = PreEncodedFrame.headerLength(compressedLength);
+            final var writerIndex = frame.writerIndex();
+            frame.writerIndex(MAX_HEADER_LENGTH - headerLength);
+            PreEncodedFrame.writeHeader(frame, RSV1 | opcode, compressedLength);
+            frame.setIndex(MAX_HEADER_LENGTH - headerLength, writerIndex);
+            return frame;
+        } catch (RuntimeException e) {
+            frame.release();
+            throw e;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private static boolean belowThreshold(final WebSocketFrame frame) {
+        return frame.content().readableBytes() < MIN_SIZE;
+    }
+
+    /**
+     * <p>扩展协商处理器</p>
+     * <p>握手响应写出后, 在扩展编码器加入通道流水线之后记录协商结果, 不依赖握手承诺的回调顺序</p>
+     */
+    private static final class NegotiationHandler extends WebSocketServerExtensionHandler {
+
+        private NegotiationHandler(final WebSocketServerExtensionHandshaker... extensionHandshakers) {
+            super(extensionHandshakers);
+        }
+
+        @Override
+        protected void onHttpResponseWrite(ChannelHandlerContext ctx, HttpResponse response, ChannelPromise promise) throws Exception {
+            final var upgrade = HttpResponseStatus.SWITCHING_PROTOCOLS.equals(response.status());
+            super.onHttpResponseWrite(ctx, response, promise);
+            if (upgrade) {
+                promise.addListener((ChannelFutureListener) future -> {
+                    if (future.isSuccess()) onNegotiated(future.channel());
+                });
+            }
+        }
+    }
+
+    /**
+     * 在客户端请求参数中加入 server_no_context_takeover, 使服务端每条消息独立压缩
+     */
+    private static final class NoContextTakeoverHandshaker implements WebSocketServerExtensionHandshaker {
+
+        final private WebSocketServerExtensionHandshaker delegate;
+
+        private NoContextTakeoverHandshaker(final WebSocketServerExtensionHandshaker delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public WebSocketServerExtension handshakeExtension(WebSocketExtensionData extensionData) {
+            final var parameters = new HashMap<>(extensionData.parameters());
+            parameters.put(SERVER_NO_CONTEXT, null);
+            return delegate.handshakeExtension(new WebSocketExtensionData(extensionData.name(), parameters));
+        }
+    }
+}
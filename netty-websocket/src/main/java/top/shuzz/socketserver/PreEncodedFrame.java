@@ -0,0 +1,127 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * <p>预编码 WebSocket 帧</p>
+ * <p>将服务端帧(头部 + 载荷)一次性编码至池化直接内存, 扇出时各接收方通过 retainedDuplicate() 共享同一缓冲区</p>
+ * <p>预编码帧以 ByteBuf 形式写出, 不再经过 WebSocket 帧编码器, 仅可写入已完成握手的通道</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class PreEncodedFrame {
+
+    /**
+     * 文本帧操作码
+     */
+    final public static int OPCODE_TEXT = 0x1;
+
+    /**
+     * 二进制帧操作码
+     */
+    final public static int OPCODE_BINARY = 0x2;
+
+    /**
+     * FIN 标志位
+     */
+    final static int FIN = 0x80;
+
+    private PreEncodedFrame() {}
+
+    /**
+     * 编码文本帧, 文本仅进行一次 UTF-8 编码
+     *
+     * @param alloc 缓冲区分配器
+     * @param text  消息文本
+     * @return 完整的帧数据
+     */
+    public static ByteBuf text(final ByteBufAllocator alloc, final CharSequence text) {
+        final var payloadLength = ByteBufUtil.utf8Bytes(text);
+        final var frame = allocate(alloc, OPCODE_TEXT, payloadLength);
+        ByteBufUtil.reserveAndWriteUtf8(frame, text, payloadLength);
+        return frame;
+    }
+
+    /**
+     * 编码数据帧, 载荷仅复制一次且不改变其读索引
+     *
+     * @param alloc   缓冲区分配器
+     * @param opcode  帧操作码
+     * @param payload 帧载荷
+     * @return 完整的帧数据
+     */
+    public static ByteBuf encode(final ByteBufAllocator alloc, final int opcode, final ByteBuf payload) {
+        final var payloadLength = payload.readableBytes();
+        final var frame = allocate(alloc, opcode, payloadLength);
+        frame.writeBytes(payload, payload.readerIndex(), payloadLength);
+        return frame;
+    }
+
+    /**
+     * 分配帧缓冲区并写入头部, 调用方继续写入载荷
+     *
+     * @param alloc         缓冲区分配器
+     * @param opcode        帧操作码
+     * @param payloadLength 载荷长度
+     * @return 已写入头部的帧缓冲区
+     */
+    static ByteBuf allocate(final ByteBufAllocator alloc, final int opcode, final int payloadLength) {
+        final var frame = alloc.directBuffer(headerLength(payloadLength) + payloadLength);
+        writeHeader(frame, opcode, payloadLength);
+        return frame;
+    }
+
+    /**
+     * 分配仅含头部的帧缓冲区, 调用方写入载荷开头的至多 reserved 字节, 其余载荷以复合缓冲区追加
+     *
+     * @param alloc         缓冲区分配器
+     * @param opcode        帧操作码
+     * @param payloadLength 载荷总长度
+     * @param reserved      头部之后预留的字节数
+     * @return 已写入头部的帧缓冲区
+     */
+    static ByteBuf allocateHeader(final ByteBufAllocator alloc, final int opcode, final int payloadLength, final int reserved) {
+        final var frame = alloc.directBuffer(headerLength(payloadLength) + reserved);
+        writeHeader(frame, opcode, payloadLength);
+        return frame;
+    }
+
+    /**
+     * 计算服务端(无掩码)帧头部长度
+     *
+     * @param payloadLength 载荷长度
+     * @return 头部字节数
+     */
+    static int headerLength(final int payloadLength) {
+        if (payloadLength < 126) return 2;
+        return payloadLength <= 0xFFFF ? 4 : 10;
+    }
+
+    /**
+     * 计算帧数据中载荷的起始偏移
+     *
+     * @param frame 完整的帧数据
+     * @return 头部字节数
+     */
+    static int payloadOffset(final ByteBuf frame) {
+        final var length = frame.getByte(frame.readerIndex() + 1) & 0x7F;
+        if (length < 126) return 2;
+        return length == 126 ? 4 : 10;
+    }
+
+    static void writeHeader(final ByteBuf frame, final int opcode, final int payloadLength) {
+        frame.writeByte(FIN | opcode);
+        if (payloadLength < 126) {
+            frame.writeByte(payloadLength);
+        } else if (payloadLength <= 0xFFFF) {
+            frame.writeByte(126);
+            frame.writeShort(payloadLength);
+        } else {
+            frame.writeByte(127);
+            frame.writeLong(payloadLength);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package top.shuzz.socketserver;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import top.shuzz.httpserver.NioHttpChannelInitializer;
+
+/**
+ * <p>统一端口协议分派处理器</p>
+ * <p>位于 HTTP 编解码器及聚合器之后, 按连接上的首个请求补全处理链后移除自身, 此后该连接不再分派</p>
+ * <p>WebSocket 升级请求及连接前缀下的请求使用 WebSocket 处理链, 其余请求使用 API 处理链</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class ProtocolDispatchHandler extends ChannelInboundHandlerAdapter {
+
+    final private NioWebSocketChannelInitializer webSocketInitializer;
+    final private String prefix;
+
+    public ProtocolDispatchHandler(final NioWebSocketChannelInitializer webSocketInitializer, final String prefix) {
+        this.webSocketInitializer = webSocketInitializer;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof FullHttpRequest request)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        final var pipeline = ctx.pipeline();
+        if (isWebSocketRequest(request)) {
+            webSocketInitializer.addWebSocketHandlers(pipeline);
+            // 新增的处理器未收到连接建立事件, 补发以完成通道注册
+            ctx.fireChannelActive();
+        } else {
+            NioHttpChannelInitializer.addApiHandlers(pipeline);
+        }
+        pipeline.remove(this);
+        ctx.fireChannelRead(request);
+    }
+
+    private boolean isWebSocketRequest(final FullHttpRequest request) {
+        return request.headers().containsValue(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET, true)
+                || request.uri().startsWith(prefix + "/");
+    }
+}
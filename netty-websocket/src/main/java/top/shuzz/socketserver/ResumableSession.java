@@ -0,0 +1,371 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.json.JSONUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelMatcher;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.AttributeKey;
+import top.shuzz.config.ConfigHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>可恢复会话</p>
+ * <p>客户端连接时携带 resume 参数(如 /ws/alice?resume=42, 首次连接为 0)即启用会话, 此后投递至该用户的消息按用户分配单调递增的序号, 并保留于有界环形缓冲区</p>
+ * <p>JSON 文本消息以 {"seq":N,"data":原始 JSON} 下发, 其余文本以 {"seq":N,"text":"..."} 下发, 是否为 JSON 由调用方指明; 二进制消息以 DELIVER_SEQ 信封下发, 见 {@link BinaryEnvelope}</p>
+ * <p>客户端以 {"ack":N} 或二进制 ACK 确认已处理的序号, 确认后的消息从缓冲区移除; 重连时 resume 参数中的序号同样视为确认</p>
+ * <p>连接断开后会话保留 {@value #DEFAULT_TTL_SECONDS} 秒(可配置), 期间的消息继续缓冲; 重连时仅重放缺失部分, 缓冲区已溢出时回复 RESET, 由客户端全量同步</p>
+ * <p>会话仅在本节点内有效, 仅路由投递的消息分配序号, 服务端应答不分配; 已启用会话的通道不使用共享压缩帧</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class ResumableSession {
+
+    final private static int DEFAULT_TTL_SECONDS = 60;
+
+    /**
+     * 是否允许客户端启用可恢复会话
+     */
+    final public static boolean ENABLED = Optional.ofNullable(ConfigHelper.getConfigBoolean("session", "SESSION_RESUME_ENABLED")).orElse(false);
+
+    /**
+     * 单个会话保留的未确认消息数上限
+     */
+    final private static int BUFFER_SIZE = Optional.ofNullable(ConfigHelper.getConfigInteger("session", "SESSION_BUFFER_SIZE"))
+            .filter(n -> n > 0).orElse(256);
+
+    /**
+     * 连接断开后会话的保留时长
+     */
+    final private static long TTL_MILLIS = TimeUnit.SECONDS.toMillis(
+            Optional.ofNullable(ConfigHelper.getConfigInteger("session", "SESSION_RESUME_TTL_SECONDS")).orElse(DEFAULT_TTL_SECONDS));
+
+    /**
+     * 用户-会话
+     */
+    final private static ConcurrentHashMap<String, ResumableSession> SESSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * 通道关联的会话
+     */
+    final private static AttributeKey<ResumableSession> SESSION = AttributeKey.valueOf("resumableSession");
+
+    /**
+     * 匹配已启用会话的通道, 群发时由会话逐个分配序号
+     */
+    final public static ChannelMatcher SEQUENCED_MATCHER = ch -> ch.hasAttr(SESSION) && ch.attr(SESSION).get() != null;
+
+    final private static byte[] DATA_PREFIX = "{\"seq\":".getBytes(StandardCharsets.US_ASCII);
+    final private static byte[] DATA_FIELD = ",\"data\":".getBytes(StandardCharsets.US_ASCII);
+    final private static ByteBuf OBJECT_END = Unpooled.unreleasableBuffer(
+            Unpooled.directBuffer(1).writeByte('}').asReadOnly());
+
+    final private static LongAdder RESUMED_COUNT = new LongAdder();
+    final private static LongAdder RESET_COUNT = new LongAdder();
+    final private static LongAdder REPLAYED_COUNT = new LongAdder();
+    final private static LongAdder OVERFLOW_COUNT = new LongAdder();
+
+    final private String userName;
+
+    /**
+     * 未确认消息的原始预编码帧, 序号 seq 位于下标 seq % BUFFER_SIZE
+     */
+    final private ByteBuf[] frames = new ByteBuf[BUFFER_SIZE];
+
+    /**
+     * 未确认的文本消息载荷是否为 JSON, 下标与 frames 一致
+     */
+    final private boolean[] json = new boolean[BUFFER_SIZE];
+
+    /**
+     * 最后分配的序号
+     */
+    private long lastSeq;
+
+    /**
+     * 缓冲区中最早的序号, 缓冲区为空时为 lastSeq + 1
+     */
+    private long firstSeq = 1;
+
+    /**
+     * 因缓冲区溢出而丢弃的最大序号, 客户端确认的序号小于该值时无法恢复
+     */
+    private long lostSeq;
+
+    /**
+     * 当前关联通道, 断开期间为 null
+     */
+    private volatile Channel channel;
+    private long detachedAt;
+    private boolean closed;
+
+    private ResumableSession(final String userName) {
+        this.userName = userName;
+    }
+
+    /**
+     * <p>关联会话</p>
+     * <p>须在用户注册前调用, 先回复恢复结果并重放缺失的消息, 再接收新的消息</p>
+     *
+     * @param userName 用户名
+     * @param channel  新的通信通道
+     * @param lastSeen 客户端已接收的最大序号
+     */
+    public static void attach(final String userName, final Channel channel, final long lastSeen) {
+        while (true) {
+            final var session = SESSIONS.computeIfAbsent(userName, ResumableSession::new);
+            synchronized (session) {
+                if (session.closed) continue;
+                session.attach(channel, lastSeen);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 丢弃用户的会话, 用户以不启用会话的方式连接时调用
+     *
+     * @param userName 用户名
+     */
+    public static void discard(final String userName) {
+        Optional.ofNullable(SESSIONS.remove(userName)).ifPresent(session -> {
+            synchronized (session) {
+                session.close();
+            }
+            ChannelSupervise.releaseUserId(userName);
+        });
+    }
+
+    /**
+     * 用户是否存在会话(关联中或等待恢复), 存在时保留其用户 ID
+     *
+     * @param userName 用户名
+     * @return 是否存在
+     */
+    static boolean isRetained(final String userName) {
+        return SESSIONS.containsKey(userName);
+    }
+
+    /**
+     * 通道断开时解除关联, 会话保留至超时
+     *
+     * @param channel 通信通道
+     */
+    public static void detach(final Channel channel) {
+        if (!channel.hasAttr(SESSION)) return;
+        final var session = channel.attr(SESSION).getAndSet(null);
+        if (session == null) return;
+
+        synchronized (session) {
+            if (session.channel != channel) return;
+            session.channel = null;
+            final var detachedAt = System.nanoTime();
+            session.detachedAt = detachedAt;
+            IdleReaper.TIMER.newTimeout(t -> {
+                if (session.expire(detachedAt)) {
+                    ChannelSupervise.releaseUserId(session.userName);
+                }
+            }, TTL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * <p>经会话发送消息</p>
+     * <p>通道已启用会话时分配序号并缓冲, 否则返回 false 由调用方直接写出</p>
+     *
+     * @param ch    目标通道
+     * @param frame 预编码帧, 本方法不改变其引用计数
+     * @param json  文本帧载荷是否为 JSON, 二进制帧忽略
+     * @return 是否已由会话处理
+     */
+    public static boolean send(final Channel ch, final ByteBuf frame, final boolean json) {
+        if (!ENABLED || !ch.hasAttr(SESSION)) return false;
+        final var session = ch.attr(SESSION).get();
+        return session != null && session.send(frame, json);
+    }
+
+    /**
+     * 用户已断开但会话未超时时缓冲消息, 待重连后重放
+     *
+     * @param userName 用户名
+     * @param frame    预编码帧, 本方法不改变其引用计数
+     * @param json     文本帧载荷是否为 JSON, 二进制帧忽略
+     * @return 是否已缓冲
+     */
+    public static boolean sendDetached(final String userName, final ByteBuf frame, final boolean json) {
+        if (!ENABLED) return false;
+        final var session = SESSIONS.get(userName);
+        return session != null && session.send(frame, json);
+    }
+
+    /**
+     * <p>向已启用会话的用户群发, 已断开但未超时的会话同样缓冲该消息</p>
+     * <p>群发帧由通道组写出前调用, 本方法不改变帧的引用计数</p>
+     *
+     * @param source 消息的源通道, 不接收该消息
+     * @param frame  预编码帧
+     * @param json   文本帧载荷是否为 JSON, 二进制帧忽略
+     */
+    public static void broadcast(final Channel source, final ByteBuf frame, final boolean json) {
+        if (!ENABLED || SESSIONS.isEmpty()) return;
+        for (final var session : SESSIONS.values()) {
+            final var ch = session.channel;
+            if (ch == null || ch != source) {
+                session.send(frame, json);
+            }
+        }
+    }
+
+    /**
+     * 确认已处理的序号
+     *
+     * @param ch  客户端通道
+     * @param seq 已处理的最大序号
+     */
+    public static void ack(final Channel ch, final long seq) {
+        if (!ch.hasAttr(SESSION)) return;
+        Optional.ofNullable(ch.attr(SESSION).get()).ifPresent(session -> {
+            synchronized (session) {
+                session.trim(seq);
+            }
+        });
+    }
+
+    /**
+     * 当前会话统计
+     */
+    public static WebSocketSessionStatVo currentStat() {
+        var attached = 0;
+        var buffered = 0L;
+        for (final var session : SESSIONS.values()) {
+            synchronized (session) {
+                if (session.channel != null) attached++;
+                buffered += session.lastSeq - session.firstSeq + 1;
+            }
+        }
+        return new WebSocketSessionStatVo(ENABLED, SESSIONS.size(), attached, buffered,
+                RESUMED_COUNT.sum(), RESET_COUNT.sum(), REPLAYED_COUNT.sum(), OVERFLOW_COUNT.sum());
+    }
+
+    private void attach(final Channel newChannel, final long lastSeen) {
+        // 客户端序号超出会话范围, 说明会话已重建
+        final var resumed = lastSeen <= lastSeq && lastSeen >= lostSeq;
+        if (resumed) {
+            RESUMED_COUNT.increment();
+        } else {
+            RESET_COUNT.increment();
+        }
+
+        // 旧通道保留会话关联, 其关闭前收到的消息同样分配序号并写入新通道
+        channel = newChannel;
+        newChannel.attr(SESSION).set(this);
+
+        final Map<String, Object> state = Map.of("resume", resumed ? "OK" : "RESET", "lastSeq", lastSeq);
+        newChannel.write(new TextWebSocketFrame(JSONUtil.toJsonStr(new WebSocketMsgDto("Server", null, state))));
+
+        if (resumed) trim(lastSeen);
+        for (var seq = firstSeq; seq <= lastSeq; seq++) {
+            newChannel.write(wrap(newChannel.alloc(), seq, frames[index(seq)], json[index(seq)]), newChannel.voidPromise());
+            REPLAYED_COUNT.increment();
+        }
+        newChannel.flush();
+    }
+
+    private synchronized boolean send(final ByteBuf frame, final boolean json) {
+        if (closed) return false;
+
+        final var seq = ++lastSeq;
+        if (seq - firstSeq >= BUFFER_SIZE) {
+            // 缓冲区已满, 丢弃最早的未确认消息
+            frames[index(firstSeq)].release();
+            frames[index(firstSeq)] = null;
+            lostSeq = firstSeq++;
+            OVERFLOW_COUNT.increment();
+        }
+        frames[index(seq)] = frame.retainedDuplicate();
+        this.json[index(seq)] = json;
+
+        final var ch = channel;
+        if (ch != null) {
+            ch.writeAndFlush(wrap(ch.alloc(), seq, frame, json), ch.voidPromise());
+        }
+        return true;
+    }
+
+    private void trim(final long seq) {
+        final var last = Math.min(seq, lastSeq);
+        while (firstSeq <= last) {
+            frames[index(firstSeq)].release();
+            frames[index(firstSeq)] = null;
+            firstSeq++;
+        }
+    }
+
+    /**
+     * 超时移除会话
+     *
+     * @return 是否已移除
+     */
+    private synchronized boolean expire(final long detachedAt) {
+        if (closed || channel != null || this.detachedAt != detachedAt) return false;
+        SESSIONS.remove(userName, this);
+        close();
+        return true;
+    }
+
+    private void close() {
+        closed = true;
+        trim(lastSeq);
+        Optional.ofNullable(channel).ifPresent(ch -> ch.attr(SESSION).compareAndSet(this, null));
+        channel = null;
+    }
+
+    private static int index(final long seq) {
+        return (int) (seq % BUFFER_SIZE);
+    }
+
+    /**
+     * <p>为预编码帧附加序号</p>
+     * <p>仅新建帧头部及序号字段, 原始载荷以切片方式共享; 文本载荷不是 JSON 时按字符串转义后下发</p>
+     *
+     * @param alloc 缓冲区分配器
+     * @param seq   序号
+     * @param frame 预编码帧, 本方法不改变其引用计数
+     * @param json  文本帧载荷是否为 JSON, 仅凭首字节无法区分 JSON 与以括号开头的纯文本
+     * @return 附加序号后的预编码帧
+     */
+    static ByteBuf wrap(final ByteBufAllocator alloc, final long seq, final ByteBuf frame, final boolean json) {
+        final var opcode = frame.getByte(frame.readerIndex()) & 0x0F;
+        final var payloadOffset = PreEncodedFrame.payloadOffset(frame);
+        final var payloadLength = frame.readableBytes() - payloadOffset;
+        final var payloadIndex = frame.readerIndex() + payloadOffset;
+
+        if (opcode == PreEncodedFrame.OPCODE_BINARY) {
+            return BinaryEnvelope.sequenced(alloc, seq, frame.slice(payloadIndex, payloadLength));
+        }
+
+        final var seqText = Long.toString(seq);
+        if (json) {
+            final var prefixLength = DATA_PREFIX.length + seqText.length() + DATA_FIELD.length;
+            final var frameLength = prefixLength + payloadLength + 1;
+            final var header = PreEncodedFrame.allocateHeader(alloc, PreEncodedFrame.OPCODE_TEXT, frameLength, prefixLength);
+            header.writeBytes(DATA_PREFIX).writeCharSequence(seqText, StandardCharsets.US_ASCII);
+            header.writeBytes(DATA_FIELD);
+            return alloc.compositeDirectBuffer(3).addComponents(true,
+                    header, frame.retainedSlice(payloadIndex, payloadLength), OBJECT_END.duplicate());
+        }
+
+        // 非 JSON 文本按字符串转义, 仅在群发纯文本时出现
+        final var text = JSONUtil.quote(frame.toString(payloadIndex, payloadLength, StandardCharsets.UTF_8));
+        return PreEncodedFrame.text(alloc, "{\"seq\":" + seqText + ",\"text\":" + text + "}");
+    }
+}
@@ -0,0 +1,243 @@
+package top.shuzz.socketserver;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * <p>连接会话注册表</p>
+ * <p>每个连接注册时分配紧凑的整数会话 ID: 低 {@value #SHARD_BITS} 位为分片号, 其余为分片内的槽位号, 0 表示无效 ID</p>
+ * <p>分片按注册线程(即连接所属的事件循环)分配, 同一事件循环上的注册与注销只竞争本分片的锁; 槽位按页分配, 页一经分配不再移动, 查找时无锁且不计算哈希</p>
+ * <p>注销的槽位经空闲栈复用, 持有旧会话 ID 的调用方须校验会话的用户 ID, 见 {@link Session#userId()}</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+final class SessionRegistry {
+
+    /**
+     * 分片号位数
+     */
+    final private static int SHARD_BITS = 6;
+    final private static int SHARD_COUNT = 1 << SHARD_BITS;
+    final private static int SHARD_MASK = SHARD_COUNT - 1;
+
+    /**
+     * 单页槽位数
+     */
+    final private static int PAGE_BITS = 10;
+    final private static int PAGE_SIZE = 1 << PAGE_BITS;
+    final private static int PAGE_MASK = PAGE_SIZE - 1;
+
+    final private static Shard[] SHARDS = new Shard[SHARD_COUNT];
+
+    static {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            SHARDS[i] = new Shard(i);
+        }
+    }
+
+    final private static AtomicInteger NEXT_SHARD = new AtomicInteger();
+
+    /**
+     * 注册线程所用的分片, 事件循环线程首次注册时按轮询分配
+     */
+    final private static FastThreadLocal<Shard> LOCAL_SHARD = new FastThreadLocal<>() {
+        @Override
+        protected Shard initialValue() {
+            return SHARDS[NEXT_SHARD.getAndIncrement() & SHARD_MASK];
+        }
+    };
+
+    private SessionRegistry() {}
+
+    /**
+     * 注册连接会话
+     *
+     * @param ch 客户端通道
+     * @return 新建的会话
+     */
+    static Session register(final Channel ch) {
+        return LOCAL_SHARD.get().register(ch);
+    }
+
+    /**
+     * 注销连接会话, 其槽位可被后续注册复用
+     *
+     * @param session 待注销的会话
+     */
+    static void unregister(final Session session) {
+        SHARDS[session.id & SHARD_MASK].unregister(session);
+    }
+
+    /**
+     * 按会话 ID 查找会话
+     *
+     * @param sessionId 会话 ID
+     * @return 会话, 不存在时返回 null
+     */
+    static Session get(final int sessionId) {
+        if (sessionId <= 0) return null;
+        return SHARDS[sessionId & SHARD_MASK].get(sessionId >>> SHARD_BITS);
+    }
+
+    /**
+     * 已注册的会话数
+     */
+    static int size() {
+        var total = 0;
+        for (final var shard : SHARDS) {
+            total += shard.size;
+        }
+        return total;
+    }
+
+    /**
+     * 遍历所有会话, 弱一致: 遍历期间注册或注销的会话可能出现也可能不出现
+     *
+     * @param action 对每个会话执行的操作
+     */
+    static void forEach(final Consumer<Session> action) {
+        for (final var shard : SHARDS) {
+            if (shard.size == 0) continue;
+            for (final var page : shard.pages) {
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    final var session = page.get(i);
+                    if (session != null) action.accept(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>连接会话</p>
+     * <p>持有通道及当前加入的用户 ID, 随通道属性保存, 并由注册表按会话 ID 索引</p>
+     */
+    static final class Session {
+
+        final private static AtomicIntegerFieldUpdater<Session> USER_ID =
+                AtomicIntegerFieldUpdater.newUpdater(Session.class, "userId");
+
+        final private int id;
+        final private Channel channel;
+
+        /**
+         * 已加入的用户 ID, 未加入时为 0
+         */
+        private volatile int userId;
+
+        private Session(final int id, final Channel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+
+        int id() {
+            return id;
+        }
+
+        Channel channel() {
+            return channel;
+        }
+
+        int userId() {
+            return userId;
+        }
+
+        /**
+         * 加入用户
+         *
+         * @return 此前加入的用户 ID, 未加入时为 0
+         */
+        int join(final int userId) {
+            return USER_ID.getAndSet(this, userId);
+        }
+
+        /**
+         * 仅当仍为该用户时离开
+         *
+         * @return 是否离开
+         */
+        boolean leave(final int userId) {
+            return userId != 0 && USER_ID.compareAndSet(this, userId, 0);
+        }
+
+        /**
+         * 离开当前用户
+         *
+         * @return 此前加入的用户 ID, 未加入时为 0
+         */
+        int leave() {
+            return USER_ID.getAndSet(this, 0);
+        }
+    }
+
+    private static final class Shard {
+
+        final private int index;
+
+        /**
+         * 槽位页, 扩容时复制页目录, 页本身不移动
+         */
+        private volatile AtomicReferenceArray<Session>[] pages;
+
+        /**
+         * 空闲槽位栈
+         */
+        private int[] freeSlots = new int[64];
+        private int freeCount;
+
+        /**
+         * 下一个未使用的槽位, 槽位 0 保留, 以保证会话 ID 非 0
+         */
+        private int nextSlot = 1;
+
+        private volatile int size;
+
+        @SuppressWarnings("unchecked")
+        private Shard(final int index) {
+            this.index = index;
+            this.pages = (AtomicReferenceArray<Session>[]) new AtomicReferenceArray<?>[0];
+        }
+
+        private synchronized Session register(final Channel ch) {
+            final int slot;
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                slot = nextSlot++;
+                if ((slot >>> PAGE_BITS) >= pages.length) {
+                    final var grown = Arrays.copyOf(pages, pages.length + 1);
+                    grown[pages.length] = new AtomicReferenceArray<>(PAGE_SIZE);
+                    pages = grown;
+                }
+            }
+            final var session = new Session(slot << SHARD_BITS | index, ch);
+            pages[slot >>> PAGE_BITS].set(slot & PAGE_MASK, session);
+            size++;
+            return session;
+        }
+
+        private synchronized void unregister(final Session session) {
+            final var slot = session.id >>> SHARD_BITS;
+            final var page = pages[slot >>> PAGE_BITS];
+            if (page.get(slot & PAGE_MASK) != session) return;
+            page.set(slot & PAGE_MASK, null);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount << 1);
+            }
+            freeSlots[freeCount++] = slot;
+            size--;
+        }
+
+        private Session get(final int slot) {
+            final var pages = this.pages;
+            final var pageIndex = slot >>> PAGE_BITS;
+            return pageIndex < pages.length ? pages[pageIndex].get(slot & PAGE_MASK) : null;
+        }
+    }
+}
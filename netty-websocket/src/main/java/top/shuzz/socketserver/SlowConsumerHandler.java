@@ -0,0 +1,283 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import top.shuzz.config.ConfigHelper;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>慢消费者处理器</p>
+ * <p>通道写缓冲超过高水位(不可写)后, 按配置策略处理后续推送的数据帧, 避免单个慢速客户端的出站缓冲无限增长</p>
+ * <p>仅完整的数据帧(文本帧/二进制帧/预编码帧)可被丢弃或合并, 控制帧等其他出站数据按原顺序写出</p>
+ * <p>已启用可恢复会话的通道不丢弃数据帧: 客户端按累计序号确认, 丢弃的消息会在后续确认时被移出会话缓冲区而永久丢失;
+ * 此类通道的数据帧均按序暂存, 超出暂存上限时关闭连接, 由客户端重连后经会话重放未确认的消息</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class SlowConsumerHandler extends ChannelDuplexHandler {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 慢消费者处理策略
+     */
+    public enum Policy {
+        /**
+         * 暂存待写数据帧, 队列已满时丢弃最早的数据帧
+         */
+        DROP_OLDEST,
+        /**
+         * 不可写期间直接丢弃新的数据帧
+         */
+        DROP_NEWEST,
+        /**
+         * 仅保留最新的一个待写数据帧
+         */
+        COALESCE,
+        /**
+         * 不可写期间丢弃新的数据帧, 持续不可写超时后关闭连接
+         */
+        DISCONNECT
+    }
+
+    final private static Policy POLICY = Optional.ofNullable(ConfigHelper.getConfigString("outbound", "SLOW_CONSUMER_POLICY"))
+            .map(String::toUpperCase).map(Policy::valueOf).orElse(Policy.DROP_OLDEST);
+
+    /**
+     * DROP_OLDEST 策略下单个通道暂存的数据帧上限
+     */
+    final private static int QUEUE_SIZE = Optional.ofNullable(ConfigHelper.getConfigInteger("outbound", "SLOW_CONSUMER_QUEUE_SIZE")).orElse(256);
+
+    /**
+     * DISCONNECT 策略下持续不可写的超时时间(毫秒)
+     */
+    final private static long DISCONNECT_MILLIS = Optional.ofNullable(ConfigHelper.getConfigInteger("outbound", "SLOW_CONSUMER_DISCONNECT_MS")).orElse(5000);
+
+    final private static ClosedChannelException CHANNEL_CLOSED = new ClosedChannelException();
+
+    final private static LongAdder UNWRITABLE_COUNT = new LongAdder();
+    final private static LongAdder DROPPED_OLDEST_COUNT = new LongAdder();
+    final private static LongAdder DROPPED_NEWEST_COUNT = new LongAdder();
+    final private static LongAdder COALESCED_COUNT = new LongAdder();
+    final private static LongAdder DISCONNECTED_COUNT = new LongAdder();
+
+    /**
+     * 不可写期间暂存的数据帧, 仅由通道所属 I/O 线程访问
+     */
+    final private ArrayDeque<PendingWrite> pendingWrites = new ArrayDeque<>();
+
+    private ScheduledFuture<?> disconnectFuture;
+
+    final private Policy policy;
+
+    final private int queueSize;
+
+    final private long disconnectMillis;
+
+    public SlowConsumerHandler() {
+        this(POLICY, QUEUE_SIZE, DISCONNECT_MILLIS);
+    }
+
+    /**
+     * @param policy           慢消费者处理策略
+     * @param queueSize        单个通道暂存的数据帧上限
+     * @param disconnectMillis DISCONNECT 策略下持续不可写的超时时间(毫秒)
+     */
+    SlowConsumerHandler(final Policy policy, final int queueSize, final long disconnectMillis) {
+        this.policy = policy;
+        this.queueSize = queueSize;
+        this.disconnectMillis = disconnectMillis;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!isDroppable(msg)) {
+            // 保证写出顺序, 先写出暂存的数据帧
+            writePending(ctx, true);
+            ctx.write(msg, promise);
+            return;
+        }
+
+        if (ctx.channel().isWritable()) {
+            // 可写状态变更事件可能滞后, 已恢复可写时先写出暂存的数据帧
+            writePending(ctx, false);
+            if (pendingWrites.isEmpty()) {
+                ctx.write(msg, promise);
+                return;
+            }
+        }
+
+        if (ResumableSession.SEQUENCED_MATCHER.matches(ctx.channel())) {
+            holdSequenced(ctx, msg, promise);
+            return;
+        }
+
+        switch (policy) {
+            case DROP_NEWEST, DISCONNECT -> {
+                discard(msg, promise);
+                DROPPED_NEWEST_COUNT.increment();
+            }
+            case COALESCE -> {
+                if (!pendingWrites.isEmpty()) {
+                    pendingWrites.poll().discard();
+                    COALESCED_COUNT.increment();
+                }
+                pendingWrites.add(new PendingWrite(msg, promise));
+            }
+            case DROP_OLDEST -> {
+                if (pendingWrites.size() >= queueSize) {
+                    pendingWrites.poll().discard();
+                    DROPPED_OLDEST_COUNT.increment();
+                }
+                pendingWrites.add(new PendingWrite(msg, promise));
+            }
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            cancelDisconnect();
+            if (writePending(ctx, false)) {
+                ctx.flush();
+            }
+        } else {
+            UNWRITABLE_COUNT.increment();
+            if (policy == Policy.DISCONNECT && disconnectFuture == null) {
+                disconnectFuture = ctx.executor().schedule(() -> {
+                    disconnectFuture = null;
+                    if (ctx.channel().isActive() && !ctx.channel().isWritable()) {
+                        DISCONNECTED_COUNT.increment();
+                        LOGGER.warn("Slow Consumer [{}] Unwritable For {}ms, Disconnecting", ctx.channel().id().asLongText(), disconnectMillis);
+                        ctx.close();
+                    }
+                }, disconnectMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releasePending();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releasePending();
+    }
+
+    /**
+     * <p>暂存已启用可恢复会话的通道的数据帧</p>
+     * <p>不论策略均不丢弃, 超出暂存上限时关闭连接; 未写出的消息仍保留于会话缓冲区, 客户端重连后重放</p>
+     */
+    private void holdSequenced(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+        if (ctx.channel().isActive() && pendingWrites.size() < queueSize) {
+            pendingWrites.add(new PendingWrite(msg, promise));
+            return;
+        }
+
+        ReferenceCountUtil.release(msg);
+        promise.tryFailure(CHANNEL_CLOSED);
+        if (!ctx.channel().isActive()) return;
+
+        DISCONNECTED_COUNT.increment();
+        LOGGER.warn("Slow Consumer [{}] Exceeded {} Pending Frames, Disconnecting For Session Resume", ctx.channel().id().asLongText(), queueSize);
+        ctx.close();
+    }
+
+    /**
+     * 写出暂存的数据帧
+     *
+     * @param ctx 通信上下文
+     * @param all 是否忽略通道可写状态全部写出
+     * @return 是否有数据帧被写出
+     */
+    private boolean writePending(final ChannelHandlerContext ctx, final boolean all) {
+        var written = false;
+        while (!pendingWrites.isEmpty() && (all || ctx.channel().isWritable())) {
+            final var pendingWrite = pendingWrites.poll();
+            ctx.write(pendingWrite.msg, pendingWrite.promise);
+            written = true;
+        }
+        return written;
+    }
+
+    private void releasePending() {
+        cancelDisconnect();
+        PendingWrite pendingWrite;
+        while ((pendingWrite = pendingWrites.poll()) != null) {
+            ReferenceCountUtil.release(pendingWrite.msg);
+            pendingWrite.promise.tryFailure(CHANNEL_CLOSED);
+        }
+    }
+
+    private void cancelDisconnect() {
+        if (disconnectFuture != null) {
+            disconnectFuture.cancel(false);
+            disconnectFuture = null;
+        }
+    }
+
+    /**
+     * 完整的数据帧可被丢弃, 分片帧需保持完整性
+     */
+    private static boolean isDroppable(final Object msg) {
+        if (msg instanceof ByteBuf) return true;
+        return (msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame)
+                && ((WebSocketFrame) msg).isFinalFragment();
+    }
+
+    /**
+     * 丢弃数据帧, 被丢弃的消息视为已处理
+     */
+    private static void discard(final Object msg, final ChannelPromise promise) {
+        ReferenceCountUtil.release(msg);
+        promise.trySuccess();
+    }
+
+    /**
+     * 当前慢消费者处理统计
+     */
+    public static WebSocketOutboundStatVo currentStat() {
+        return new WebSocketOutboundStatVo(
+                POLICY.name(),
+                UNWRITABLE_COUNT.sum(),
+                DROPPED_OLDEST_COUNT.sum(),
+                DROPPED_NEWEST_COUNT.sum(),
+                COALESCED_COUNT.sum(),
+                DISCONNECTED_COUNT.sum()
+        );
+    }
+
+    private static final class PendingWrite {
+
+        final private Object msg;
+        final private ChannelPromise promise;
+
+        private PendingWrite(final Object msg, final ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+
+        private void discard() {
+            SlowConsumerHandler.discard(msg, promise);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package top.shuzz.socketserver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>令牌桶限流器</p>
+ * <p>以 GCRA(通用信元速率算法)实现, 仅保存一个"理论到达时间", 取令牌时按当前时间计算桶内余量, 无需定时补充令牌</p>
+ * <p>线程安全, 取令牌为一次 CAS, 不加锁且不分配对象</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class TokenBucket {
+
+    /**
+     * 单个令牌的间隔(纳秒)
+     */
+    final private long intervalNanos;
+
+    /**
+     * 桶容量对应的时长(纳秒)
+     */
+    final private long burstNanos;
+
+    /**
+     * 理论到达时间, 即桶内令牌全部补满的时刻减去桶容量对应的时长
+     */
+    final private AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * 纳秒时钟
+     */
+    final private LongSupplier clock;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数, 须大于 0
+     * @param burst         桶容量, 即允许的突发数, 不小于 1
+     */
+    public TokenBucket(final double ratePerSecond, final int burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数, 须大于 0
+     * @param burst         桶容量, 即允许的突发数, 不小于 1
+     * @param clock         纳秒时钟, 测试时可替换为手动推进的时钟
+     */
+    TokenBucket(final double ratePerSecond, final int burst, final LongSupplier clock) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("Rate Must Be Positive");
+        this.clock = clock;
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * 尝试取一个令牌
+     *
+     * @return 桶内无令牌时返回 false
+     */
+    public boolean tryAcquire() {
+        final var now = clock.getAsLong();
+        while (true) {
+            final var current = theoreticalArrival.get();
+            final var base = Math.max(current, now);
+            if (base + intervalNanos - now > burstNanos) return false;
+            if (theoreticalArrival.compareAndSet(current, base + intervalNanos)) return true;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package top.shuzz.socketserver;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.AttributeKey;
+import top.shuzz.config.ConfigHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>主题订阅索引</p>
+ * <p>维护主题-订阅通道的并发索引, 发布时直接取出订阅通道集合一次扇出, 无需逐个查询用户</p>
+ * <p>以 {@value #WILDCARD} 结尾的主题为前缀订阅, 匹配以其前缀开头的所有主题, 如 chat.* 匹配 chat.room1; 单独的 * 匹配所有主题</p>
+ * <p>订阅随通道存在, 通道关闭时自动取消其全部订阅</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class TopicRegistry {
+
+    /**
+     * 前缀订阅通配符, 仅允许出现在主题末尾
+     */
+    final public static char WILDCARD = '*';
+
+    /**
+     * 主题最大长度
+     */
+    final private static int MAX_TOPIC_LENGTH = 256;
+
+    /**
+     * 单个通道的订阅数上限
+     */
+    final private static int MAX_SUBSCRIPTIONS = Optional.ofNullable(ConfigHelper.getConfigInteger("topic", "TOPIC_MAX_SUBSCRIPTIONS")).orElse(256);
+
+    /**
+     * 精确订阅: 主题-订阅通道
+     */
+    final private static ConcurrentHashMap<String, Set<Channel>> TOPICS = new ConcurrentHashMap<>();
+
+    /**
+     * 前缀订阅: 前缀(不含通配符)-订阅通道
+     */
+    final private static ConcurrentHashMap<String, Set<Channel>> PREFIXES = new ConcurrentHashMap<>();
+
+    /**
+     * 前缀订阅中出现的前缀长度(升序去重), 发布时仅按这些长度截取主题查询
+     */
+    private static volatile int[] prefixLengths = new int[0];
+
+    /**
+     * 通道已订阅的主题
+     */
+    final private static AttributeKey<Set<String>> SUBSCRIPTIONS = AttributeKey.valueOf("topicSubscriptions");
+
+    /**
+     * 主题是否有效
+     *
+     * @param topic         主题
+     * @param allowWildcard 是否允许前缀通配符
+     */
+    public static boolean isValidTopic(final String topic, final boolean allowWildcard) {
+        if (topic == null || topic.isEmpty() || topic.length() > MAX_TOPIC_LENGTH) return false;
+
+        final var wildcard = topic.indexOf(WILDCARD);
+        return wildcard < 0 || (allowWildcard && wildcard == topic.length() - 1);
+    }
+
+    /**
+     * 订阅主题
+     *
+     * @param channel 订阅通道
+     * @param topic   主题, 以通配符结尾时为前缀订阅
+     * @return 主题无效或订阅数超出上限时返回 false
+     */
+    public static boolean subscribe(final Channel channel, final String topic) {
+        if (!isValidTopic(topic, true)) return false;
+
+        final var subscriptions = subscriptionsOf(channel);
+        if (subscriptions.contains(topic)) return true;
+        if (subscriptions.size() >= MAX_SUBSCRIPTIONS) return false;
+        subscriptions.add(topic);
+
+        if (isPrefix(topic)) {
+            synchronized (PREFIXES) {
+                PREFIXES.computeIfAbsent(prefixOf(topic), k -> ConcurrentHashMap.newKeySet()).add(channel);
+                updatePrefixLengths();
+            }
+        } else {
+            TOPICS.compute(topic, (k, channels) -> {
+                final var set = channels == null ? ConcurrentHashMap.<Channel>newKeySet() : channels;
+                set.add(channel);
+                return set;
+            });
+        }
+
+        // 订阅前通道可能已关闭, 此时关闭监听已执行过, 需立即清理
+        if (!channel.isActive()) {
+            unsubscribeAll(channel);
+        }
+        return true;
+    }
+
+    /**
+     * 取消订阅主题
+     *
+     * @param channel 订阅通道
+     * @param topic   主题
+     */
+    public static void unsubscribe(final Channel channel, final String topic) {
+        final var subscriptions = channel.attr(SUBSCRIPTIONS).get();
+        if (subscriptions == null || topic == null || !subscriptions.remove(topic)) return;
+
+        if (isPrefix(topic)) {
+            synchronized (PREFIXES) {
+                PREFIXES.computeIfPresent(prefixOf(topic), (k, channels) -> removeChannel(channels, channel));
+                updatePrefixLengths();
+            }
+        } else {
+            TOPICS.computeIfPresent(topic, (k, channels) -> removeChannel(channels, channel));
+        }
+    }
+
+    /**
+     * 取消通道的全部订阅
+     *
+     * @param channel 订阅通道
+     */
+    public static void unsubscribeAll(final Channel channel) {
+        Optional.ofNullable(channel.attr(SUBSCRIPTIONS).get())
+                .ifPresent(subscriptions -> List.copyOf(subscriptions).forEach(topic -> unsubscribe(channel, topic)));
+    }
+
+    /**
+     * <p>获取主题的订阅通道</p>
+     * <p>仅匹配单个订阅集合时直接返回该集合, 否则合并精确订阅与前缀订阅并去重, 每个通道仅出现一次</p>
+     *
+     * @param topic 发布的主题, 不含通配符
+     * @return 订阅通道, 无订阅时返回空集合
+     */
+    public static Collection<Channel> subscribers(final String topic) {
+        Set<Channel> first = TOPICS.get(topic);
+        List<Set<Channel>> matched = null;
+
+        for (final var length : prefixLengths) {
+            if (length > topic.length()) break;
+            final var channels = PREFIXES.get(topic.substring(0, length));
+            if (channels == null) continue;
+
+            if (first == null) {
+                first = channels;
+            } else {
+                if (matched == null) {
+                    matched = new ArrayList<>();
+                    matched.add(first);
+                }
+                matched.add(channels);
+            }
+        }
+
+        if (first == null) return Set.of();
+        if (matched == null) return first;
+
+        final var merged = new HashSet<Channel>();
+        matched.forEach(merged::addAll);
+        return merged;
+    }
+
+    /**
+     * 当前各主题(含前缀订阅)的订阅通道数
+     */
+    public static Map<String, Integer> currentTopics() {
+        final var topics = new HashMap<String, Integer>();
+        TOPICS.forEach((topic, channels) -> topics.put(topic, channels.size()));
+        PREFIXES.forEach((prefix, channels) -> topics.put(prefix + WILDCARD, channels.size()));
+        return topics;
+    }
+
+    private static Set<String> subscriptionsOf(final Channel channel) {
+        final var attr = channel.attr(SUBSCRIPTIONS);
+        final var subscriptions = attr.get();
+        if (subscriptions != null) return subscriptions;
+
+        final Set<String> created = ConcurrentHashMap.newKeySet();
+        final var existing = attr.setIfAbsent(created);
+        if (existing != null) return existing;
+
+        channel.closeFuture().addListener((ChannelFutureListener) future -> unsubscribeAll(future.channel()));
+        return created;
+    }
+
+    private static Set<Channel> removeChannel(final Set<Channel> channels, final Channel channel) {
+        channels.remove(channel);
+        return channels.isEmpty() ? null : channels;
+    }
+
+    private static void updatePrefixLengths() {
+        prefixLengths = PREFIXES.keySet().stream().mapToInt(String::length).distinct().sorted().toArray();
+    }
+
+    private static boolean isPrefix(final String topic) {
+        return topic.charAt(topic.length() - 1) == WILDCARD;
+    }
+
+    private static String prefixOf(final String topic) {
+        return topic.substring(0, topic.length() - 1);
+    }
+}
@@ -0,0 +1,359 @@
+package top.shuzz.socketserver;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * <p>用户表</p>
+ * <p>用户名首次出现时分配紧凑的整数 ID(0 表示无效 ID), 并记录各用户当前绑定的会话 ID; 用户离开且不再被引用时回收</p>
+ * <p>ID 低 {@value #SLOT_BITS} 位为槽位号, 高位为槽位的代数: 回收的槽位经空闲队列按先进先出复用, 每次复用代数加一,
+ * 持有旧 ID 的调用方查询用户名或会话时因代数不符而得到无效结果</p>
+ * <p>用户名到 ID 为开放寻址(线性探测)表, 键值分别存于引用数组及 int 数组, 无装箱及链表节点; 删除的条目以墓碑标记, 扩容或清理时丢弃, 查找无锁</p>
+ * <p>槽位按页存储, 页一经分配不再移动; 查询无锁, 分配, 绑定, 解绑及回收由单个锁串行化</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+final class UserTable {
+
+    /**
+     * 槽位号位数, 其余 {@value #GENERATION_BITS} 位为代数, 保证 ID 为正数
+     */
+    final static int SLOT_BITS = 22;
+    final private static int GENERATION_BITS = 31 - SLOT_BITS;
+    final private static int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    final private static int GENERATION_MASK = (1 << GENERATION_BITS) - 1;
+
+    /**
+     * 槽位数上限, 槽位 0 保留, 超出时拒绝分配
+     */
+    final static int MAX_SLOTS = 1 << SLOT_BITS;
+
+    final private static int PAGE_BITS = 10;
+    final private static int PAGE_SIZE = 1 << PAGE_BITS;
+    final private static int PAGE_MASK = PAGE_SIZE - 1;
+
+    final private static int INITIAL_CAPACITY = 2048;
+
+    /**
+     * 已删除条目的占位, 按引用比较
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    final private static String TOMBSTONE = new String("");
+
+    /**
+     * 绑定结果
+     *
+     * @param userId            用户 ID
+     * @param previousSessionId 此前绑定的会话 ID, 未绑定时为 0
+     */
+    record Binding(int userId, int previousSessionId) {}
+
+    /**
+     * 开放寻址表, 已用条目(含墓碑)不超过容量的 1/2; 条目位置在表内不复用, 读到用户名即可见其 ID
+     */
+    private static final class Table {
+
+        final private AtomicReferenceArray<String> names;
+        final private int[] ids;
+        final private int mask;
+
+        /**
+         * 已用条目数, 含墓碑
+         */
+        private int used;
+
+        private Table(final int capacity) {
+            this.names = new AtomicReferenceArray<>(capacity);
+            this.ids = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private int find(final String name) {
+            var i = spread(name.hashCode()) & mask;
+            while (true) {
+                // 用户名以 volatile 写入, 晚于 ID 写入, 读到用户名即可见其 ID
+                final var key = names.get(i);
+                if (key == null) return 0;
+                if (key != TOMBSTONE && key.equals(name)) return ids[i];
+                i = (i + 1) & mask;
+            }
+        }
+
+        private void insert(final String name, final int id) {
+            var i = spread(name.hashCode()) & mask;
+            while (names.get(i) != null) {
+                i = (i + 1) & mask;
+            }
+            ids[i] = id;
+            names.set(i, name);
+            used++;
+        }
+
+        private void remove(final String name) {
+            var i = spread(name.hashCode()) & mask;
+            while (true) {
+                final var key = names.get(i);
+                if (key == null) return;
+                if (key != TOMBSTONE && key.equals(name)) {
+                    names.set(i, TOMBSTONE);
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * 槽位页
+     */
+    private static final class Page {
+
+        /**
+         * 槽位当前分配的用户 ID, 空闲时为 0; 晚于用户名写入
+         */
+        final private AtomicIntegerArray ids = new AtomicIntegerArray(PAGE_SIZE);
+        final private AtomicReferenceArray<String> names = new AtomicReferenceArray<>(PAGE_SIZE);
+        final private AtomicIntegerArray sessions = new AtomicIntegerArray(PAGE_SIZE);
+
+        /**
+         * 槽位下次分配使用的代数, 仅在持有锁时访问
+         */
+        final private int[] generations = new int[PAGE_SIZE];
+    }
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    /**
+     * 槽位页目录
+     */
+    private volatile Page[] pages = {new Page()};
+
+    /**
+     * 空闲槽位队列(环形), 容量为 2 的幂
+     */
+    private int[] freeSlots = new int[64];
+    private int freeHead;
+    private int freeCount;
+
+    /**
+     * 下一个未使用的槽位, 槽位 0 保留, 以保证 ID 非 0
+     */
+    private int nextSlot = 1;
+
+    /**
+     * 已分配的用户 ID 数
+     */
+    private volatile int size;
+
+    /**
+     * 查找用户 ID, 不分配
+     *
+     * @param name 用户名
+     * @return 用户 ID, 未分配时返回 0
+     */
+    int find(final String name) {
+        return table.find(name);
+    }
+
+    /**
+     * 获取用户 ID, 首次出现时分配
+     *
+     * @param name 用户名
+     * @return 用户 ID, 槽位已耗尽时返回 0
+     */
+    int intern(final String name) {
+        final var id = table.find(name);
+        if (id != 0) return id;
+
+        synchronized (this) {
+            return internLocked(name);
+        }
+    }
+
+    /**
+     * 获取用户 ID 并绑定会话, 与回收互斥, 绑定的 ID 不会在绑定前被回收
+     *
+     * @param name      用户名
+     * @param sessionId 会话 ID
+     * @return 绑定结果, 槽位已耗尽时返回 null
+     */
+    synchronized Binding bind(final String name, final int sessionId) {
+        final var id = internLocked(name);
+        if (id == 0) return null;
+        return new Binding(id, pageOf(id).sessions.getAndSet(id & PAGE_MASK, sessionId));
+    }
+
+    /**
+     * 获取用户名
+     *
+     * @param id 用户 ID
+     * @return 用户名, ID 无效或已回收时返回 null
+     */
+    String name(final int id) {
+        final var page = pageOf(id);
+        if (page == null) return null;
+        final var index = id & PAGE_MASK;
+        if (page.ids.get(index) != id) return null;
+        final var name = page.names.get(index);
+        // 读取期间槽位被回收并复用时, 代数已变化
+        return page.ids.get(index) == id ? name : null;
+    }
+
+    /**
+     * 获取用户当前绑定的会话 ID
+     *
+     * @param id 用户 ID
+     * @return 会话 ID, 未绑定, ID 无效或已回收时返回 0
+     */
+    int session(final int id) {
+        final var page = pageOf(id);
+        if (page == null) return 0;
+        final var index = id & PAGE_MASK;
+        return page.ids.get(index) == id ? page.sessions.get(index) : 0;
+    }
+
+    /**
+     * 解除绑定
+     *
+     * @param id 用户 ID
+     * @return 此前绑定的会话 ID, 未绑定, ID 无效或已回收时为 0
+     */
+    synchronized int unbind(final int id) {
+        final var page = pageOf(id);
+        if (page == null || page.ids.get(id & PAGE_MASK) != id) return 0;
+        return page.sessions.getAndSet(id & PAGE_MASK, 0);
+    }
+
+    /**
+     * <p>仅当仍绑定该会话时解除绑定</p>
+     * <p>与回收互斥, 槽位已复用时旧 ID 不会解除新用户的绑定</p>
+     *
+     * @param id        用户 ID
+     * @param sessionId 会话 ID
+     * @return 是否解除
+     */
+    synchronized boolean unbind(final int id, final int sessionId) {
+        final var page = pageOf(id);
+        if (page == null || sessionId == 0 || page.ids.get(id & PAGE_MASK) != id) return false;
+        return page.sessions.compareAndSet(id & PAGE_MASK, sessionId, 0);
+    }
+
+    /**
+     * <p>回收用户 ID</p>
+     * <p>仅当用户未绑定会话且不再被其他状态引用时回收; 槽位代数加一后放入空闲队列</p>
+     *
+     * @param name     用户名
+     * @param retained 用户名是否仍被其他状态引用, 在持有锁时调用, 不得获取其他锁
+     * @return 是否回收
+     */
+    synchronized boolean release(final String name, final Predicate<String> retained) {
+        final var table = this.table;
+        final var id = table.find(name);
+        if (id == 0) return false;
+
+        final var page = pageOf(id);
+        final var index = id & PAGE_MASK;
+        if (page.sessions.get(index) != 0 || retained.test(name)) return false;
+
+        table.remove(name);
+        page.ids.set(index, 0);
+        page.names.set(index, null);
+        page.generations[index] = (page.generations[index] + 1) & GENERATION_MASK;
+
+        if (freeCount == freeSlots.length) {
+            final var grown = new int[freeSlots.length << 1];
+            for (int i = 0; i < freeCount; i++) {
+                grown[i] = freeSlots[(freeHead + i) & (freeSlots.length - 1)];
+            }
+            freeSlots = grown;
+            freeHead = 0;
+        }
+        freeSlots[(freeHead + freeCount) & (freeSlots.length - 1)] = id & SLOT_MASK;
+        freeCount++;
+        size--;
+        return true;
+    }
+
+    /**
+     * 已分配的用户 ID 数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 用户名表容量
+     */
+    int capacity() {
+        return table.mask + 1;
+    }
+
+    /**
+     * 已使用过的槽位数, 即槽位页覆盖范围的上限
+     */
+    synchronized int slotCount() {
+        return nextSlot - 1;
+    }
+
+    private int internLocked(final String name) {
+        final var existing = table.find(name);
+        if (existing != 0) return existing;
+
+        final int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[freeHead];
+            freeHead = (freeHead + 1) & (freeSlots.length - 1);
+            freeCount--;
+        } else {
+            if (nextSlot >= MAX_SLOTS) return 0;
+            slot = nextSlot++;
+            if ((slot >>> PAGE_BITS) >= pages.length) {
+                final var grown = Arrays.copyOf(pages, pages.length + 1);
+                grown[pages.length] = new Page();
+                pages = grown;
+            }
+        }
+
+        final var page = pages[slot >>> PAGE_BITS];
+        final var index = slot & PAGE_MASK;
+        final var newId = page.generations[index] << SLOT_BITS | slot;
+        page.names.set(index, name);
+        page.ids.set(index, newId);
+
+        var table = this.table;
+        if ((table.used + 1) * 2 > table.mask + 1) {
+            table = rehash(table);
+        }
+        table.insert(name, newId);
+        this.table = table;
+        size++;
+        return newId;
+    }
+
+    private Page pageOf(final int id) {
+        if (id <= 0) return null;
+        final var pages = this.pages;
+        final var pageIndex = (id & SLOT_MASK) >>> PAGE_BITS;
+        return pageIndex < pages.length ? pages[pageIndex] : null;
+    }
+
+    /**
+     * 重建用户名表并丢弃墓碑, 有效条目超过容量的 1/4 时扩容
+     */
+    private Table rehash(final Table table) {
+        final var capacity = (size + 1) * 4 > table.mask + 1 ? (table.mask + 1) << 1 : table.mask + 1;
+        final var rebuilt = new Table(capacity);
+        for (int i = 0; i <= table.mask; i++) {
+            final var name = table.names.get(i);
+            if (name != null && name != TOMBSTONE) rebuilt.insert(name, table.ids[i]);
+        }
+        return rebuilt;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
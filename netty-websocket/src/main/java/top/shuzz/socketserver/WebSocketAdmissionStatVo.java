@@ -0,0 +1,104 @@
+package top.shuzz.socketserver;
+
+import java.io.Serializable;
+
+/**
+ * 连接准入控制统计
+ * @author heng
+ * @since 2026/10/18
+ */
+public class WebSocketAdmissionStatVo implements Serializable {
+
+    private int maxConnections;
+    private int maxConnectionsPerIp;
+    private int handshakeRate;
+    private int connections;
+    private int addressCount;
+    private long rejectedByLimit;
+    private long rejectedByAddress;
+    private long rejectedByRate;
+
+    public WebSocketAdmissionStatVo() {}
+
+    public WebSocketAdmissionStatVo(final int maxConnections,
+                                    final int maxConnectionsPerIp,
+                                    final int handshakeRate,
+                                    final int connections,
+                                    final int addressCount,
+                                    final long rejectedByLimit,
+                                    final long rejectedByAddress,
+                                    final long rejectedByRate) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerIp = maxConnectionsPerIp;
+        this.handshakeRate = handshakeRate;
+        this.connections = connections;
+        this.addressCount = addressCount;
+        this.rejectedByLimit = rejectedByLimit;
+        this.rejectedByAddress = rejectedByAddress;
+        this.rejectedByRate = rejectedByRate;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerIp() {
+        return maxConnectionsPerIp;
+    }
+
+    public void setMaxConnectionsPerIp(int maxConnectionsPerIp) {
+        this.maxConnectionsPerIp = maxConnectionsPerIp;
+    }
+
+    public int getHandshakeRate() {
+        return handshakeRate;
+    }
+
+    public void setHandshakeRate(int handshakeRate) {
+        this.handshakeRate = handshakeRate;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public int getAddressCount() {
+        return addressCount;
+    }
+
+    public void setAddressCount(int addressCount) {
+        this.addressCount = addressCount;
+    }
+
+    public long getRejectedByLimit() {
+        return rejectedByLimit;
+    }
+
+    public void setRejectedByLimit(long rejectedByLimit) {
+        this.rejectedByLimit = rejectedByLimit;
+    }
+
+    public long getRejectedByAddress() {
+        return rejectedByAddress;
+    }
+
+    public void setRejectedByAddress(long rejectedByAddress) {
+        this.rejectedByAddress = rejectedByAddress;
+    }
+
+    public long getRejectedByRate() {
+        return rejectedByRate;
+    }
+
+    public void setRejectedByRate(long rejectedByRate) {
+        this.rejectedByRate = rejectedByRate;
+    }
+}
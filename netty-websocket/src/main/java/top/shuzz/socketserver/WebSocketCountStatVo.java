@@ -10,14 +10,12 @@ import java.io.Serializable;
 public class WebSocketCountStatVo implements Serializable {
 
     private int channelsCount;
-    private int channelMapCount;
     private int usersCount;
 
     public WebSocketCountStatVo() {}
 
-    public WebSocketCountStatVo(final int channelsCount, final int channelMapCount, final int usersCount) {
+    public WebSocketCountStatVo(final int channelsCount, final int usersCount) {
         this.channelsCount = channelsCount;
-        this.channelMapCount = channelMapCount;
         this.usersCount = usersCount;
     }
 
@@ -29,12 +27,13 @@ public class WebSocketCountStatVo implements Serializable {
         this.channelsCount = channelsCount;
     }
 
+    /**
+     * 会话统一由会话注册表管理, 已无单独的通道映射, 该值与 {@link #getChannelsCount()} 相同, 仅为兼容保留
+     * @deprecated 使用 {@link #getChannelsCount()}
+     */
+    @Deprecated
     public int getChannelMapCount() {
-        return channelMapCount;
-    }
-
-    public void setChannelMapCount(int channelMapCount) {
-        this.channelMapCount = channelMapCount;
+        return channelsCount;
     }
 
     public int getUsersCount() {
@@ -49,7 +48,6 @@ public class WebSocketCountStatVo implements Serializable {
     public String toString() {
         return "WebSocketCountStatVo{" +
                 "channelsCount=" + channelsCount +
-                ", channelMapCount=" + channelMapCount +
                 ", userCount=" + usersCount +
                 '}';
     }
@@ -0,0 +1,71 @@
+package top.shuzz.socketserver;
+
+import java.io.Serializable;
+
+/**
+ * 空闲连接回收统计
+ * @author heng
+ * @since 2026/10/18
+ */
+public class WebSocketIdleStatVo implements Serializable {
+
+    private long readerIdleSeconds;
+    private long writerIdleSeconds;
+    private long reapedCount;
+    private long pingCount;
+    private long pendingTimeoutCount;
+
+    public WebSocketIdleStatVo() {}
+
+    public WebSocketIdleStatVo(final long readerIdleSeconds,
+                               final long writerIdleSeconds,
+                               final long reapedCount,
+                               final long pingCount,
+                               final long pendingTimeoutCount) {
+        this.readerIdleSeconds = readerIdleSeconds;
+        this.writerIdleSeconds = writerIdleSeconds;
+        this.reapedCount = reapedCount;
+        this.pingCount = pingCount;
+        this.pendingTimeoutCount = pendingTimeoutCount;
+    }
+
+    public long getReaderIdleSeconds() {
+        return readerIdleSeconds;
+    }
+
+    public void setReaderIdleSeconds(long readerIdleSeconds) {
+        this.readerIdleSeconds = readerIdleSeconds;
+    }
+
+    public long getWriterIdleSeconds() {
+        return writerIdleSeconds;
+    }
+
+    public void setWriterIdleSeconds(long writerIdleSeconds) {
+        this.writerIdleSeconds = writerIdleSeconds;
+    }
+
+    public long getReapedCount() {
+        return reapedCount;
+    }
+
+    public void setReapedCount(long reapedCount) {
+        this.reapedCount = reapedCount;
+    }
+
+    public long getPingCount() {
+        return pingCount;
+    }
+
+    public void setPingCount(long pingCount) {
+        this.pingCount = pingCount;
+    }
+
+    public long getPendingTimeoutCount() {
+        return pendingTimeoutCount;
+    }
+
+    public void setPendingTimeoutCount(long pendingTimeoutCount) {
+        this.pendingTimeoutCount = pendingTimeoutCount;
+    }
+}
@@ -0,0 +1,104 @@
+package top.shuzz.socketserver;
+
+import java.util.List;
+
+/**
+ * <p>WebSocket 消息路由信封</p>
+ * <p>仅包含路由所需字段, 消息数据体不做解析, 转发时使用原始字节</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class WebSocketMsgEnvelope {
+
+    /**
+     * 消息目标列表
+     */
+    private List<String> targets;
+    /**
+     * 消息源
+     */
+    private String source;
+
+    /**
+     * 发布的主题
+     */
+    private String topic;
+
+    /**
+     * 订阅的主题列表
+     */
+    private List<String> subscribe;
+
+    /**
+     * 取消订阅的主题列表
+     */
+    private List<String> unsubscribe;
+
+    /**
+     * 已处理的消息序号, 见 {@link ResumableSession}
+     */
+    private Long ack;
+
+    public WebSocketMsgEnvelope() {}
+
+    public void setTargets(List<String> targets) {
+        this.targets = targets;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public List<String> getTargets() {
+        return targets;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setSubscribe(List<String> subscribe) {
+        this.subscribe = subscribe;
+    }
+
+    public List<String> getSubscribe() {
+        return subscribe;
+    }
+
+    public void setUnsubscribe(List<String> unsubscribe) {
+        this.unsubscribe = unsubscribe;
+    }
+
+    public List<String> getUnsubscribe() {
+        return unsubscribe;
+    }
+
+    public Long getAck() {
+        return ack;
+    }
+
+    public void setAck(Long ack) {
+        this.ack = ack;
+    }
+
+    @Override
+    public String toString() {
+        return "WebSocketMsgEnvelope{" +
+                "targets=" + targets +
+                ", source='" + source + '\'' +
+                ", topic='" + topic + '\'' +
+                ", subscribe=" + subscribe +
+                ", unsubscribe=" + unsubscribe +
+                ", ack=" + ack +
+                '}';
+    }
+}
@@ -0,0 +1,297 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Optional;
+
+/**
+ * <p>WebSocket 消息路由信封解析器</p>
+ * <p>直接在帧的 ByteBuf 上顺序扫描顶层字段, 仅解码路由所需字段, 其余字段(如 dataBody)只跳过不解码</p>
+ * <p>解析不改变 ByteBuf 的读写索引, 原始字节可直接用于转发</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class WebSocketMsgEnvelopeParser {
+
+    final private static byte[] KEY_TARGETS = "targets".getBytes(StandardCharsets.US_ASCII);
+    final private static byte[] KEY_SOURCE = "source".getBytes(StandardCharsets.US_ASCII);
+    final private static byte[] KEY_TOPIC = "topic".getBytes(StandardCharsets.US_ASCII);
+    final private static byte[] KEY_SUBSCRIBE = "subscribe".getBytes(StandardCharsets.US_ASCII);
+    final private static byte[] KEY_UNSUBSCRIBE = "unsubscribe".getBytes(StandardCharsets.US_ASCII);
+    final private static byte[] KEY_ACK = "ack".getBytes(StandardCharsets.US_ASCII);
+
+    final private ByteBuf buf;
+    final private int end;
+    private int pos;
+
+    private WebSocketMsgEnvelopeParser(final ByteBuf buf) {
+        this.buf = buf;
+        this.end = buf.writerIndex();
+        this.pos = buf.readerIndex();
+    }
+
+    /**
+     * 解析消息路由信封
+     *
+     * @param buf 消息数据
+     * @return 路由信封, 数据不是 JSON 对象时返回 null
+     * @throws IllegalArgumentException JSON 格式错误
+     */
+    public static WebSocketMsgEnvelope parse(final ByteBuf buf) {
+        final var start = buf.readerIndex();
+        final var end = buf.writerIndex();
+        if (end - start < 2 || buf.getByte(start) != '{' || buf.getByte(end - 1) != '}') return null;
+
+        return new WebSocketMsgEnvelopeParser(buf).parseObject();
+    }
+
+    private WebSocketMsgEnvelope parseObject() {
+        final var envelope = new WebSocketMsgEnvelope();
+
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') return finish(envelope);
+
+        while (true) {
+            // 字段名
+            expect('"');
+            final var keyStart = pos;
+            skipStringBody();
+            final var keyLength = pos - 1 - keyStart;
+
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            // 字段值
+            if (keyEquals(keyStart, keyLength, KEY_TARGETS)) {
+                envelope.setTargets(readStringArray());
+            } else if (keyEquals(keyStart, keyLength, KEY_SOURCE)) {
+                envelope.setSource(readScalar());
+            } else if (keyEquals(keyStart, keyLength, KEY_TOPIC)) {
+                envelope.setTopic(readScalar());
+            } else if (keyEquals(keyStart, keyLength, KEY_SUBSCRIBE)) {
+                envelope.setSubscribe(readStringArray());
+            } else if (keyEquals(keyStart, keyLength, KEY_UNSUBSCRIBE)) {
+                envelope.setUnsubscribe(readStringArray());
+            } else if (keyEquals(keyStart, keyLength, KEY_ACK)) {
+                envelope.setAck(Optional.ofNullable(readScalar()).map(Long::parseLong).orElse(null));
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            final var c = peek();
+            if (c == '}') return finish(envelope);
+            if (c != ',') throw malformed();
+            pos++;
+            skipWhitespace();
+        }
+    }
+
+    private WebSocketMsgEnvelope finish(final WebSocketMsgEnvelope envelope) {
+        if (pos != end - 1) throw malformed();
+        return envelope;
+    }
+
+    /**
+     * 读取字符串数组, 非字符串标量按原文读取, null 值及嵌套结构忽略
+     */
+    private ArrayList<String> readStringArray() {
+        if (peek() != '[') {
+            final var value = readScalar();
+            if (value == null) return null;
+            throw malformed();
+        }
+
+        final var values = new ArrayList<String>();
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return values;
+        }
+
+        while (true) {
+            final var c = peek();
+            if (c == '{' || c == '[') {
+                skipValue();
+            } else {
+                final var value = readScalar();
+                if (value != null) values.add(value);
+            }
+
+            skipWhitespace();
+            final var next = peek();
+            pos++;
+            if (next == ']') return values;
+            if (next != ',') throw malformed();
+            skipWhitespace();
+        }
+    }
+
+    /**
+     * 读取标量值, 字符串解码转义, 其他标量按原文读取, null 返回 null
+     */
+    private String readScalar() {
+        if (peek() == '"') {
+            pos++;
+            return readStringBody();
+        }
+
+        final var start = pos;
+        skipLiteral();
+        if (pos == start) throw malformed();
+        if (pos - start == 4 && buf.getByte(start) == 'n' && buf.getByte(start + 1) == 'u'
+                && buf.getByte(start + 2) == 'l' && buf.getByte(start + 3) == 'l') {
+            return null;
+        }
+        return buf.toString(start, pos - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取字符串内容(起始引号之后), 无转义时直接按 UTF-8 解码原始字节
+     */
+    private String readStringBody() {
+        final var start = pos;
+        while (true) {
+            final var c = next();
+            if (c == '"') return buf.toString(start, pos - 1 - start, StandardCharsets.UTF_8);
+            if (c == '\\') break;
+        }
+
+        // 含转义字符
+        final var sb = new StringBuilder(pos - start + 16);
+        sb.append(buf.toString(start, pos - 1 - start, StandardCharsets.UTF_8));
+        while (true) {
+            final var escaped = next();
+            switch (escaped) {
+                case '"', '\\', '/' -> sb.append((char) escaped);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    var code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        final var digit = Character.digit(next(), 16);
+                        if (digit < 0) throw malformed();
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                }
+                default -> throw malformed();
+            }
+
+            final var segmentStart = pos;
+            while (true) {
+                final var c = next();
+                if (c == '"') {
+                    sb.append(buf.toString(segmentStart, pos - 1 - segmentStart, StandardCharsets.UTF_8));
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    sb.append(buf.toString(segmentStart, pos - 1 - segmentStart, StandardCharsets.UTF_8));
+                    break;
+                }
+            }
+        }
+    }
+
+    private void skipValue() {
+        final var c = peek();
+        if (c == '"') {
+            pos++;
+            skipStringBody();
+        } else if (c == '{' || c == '[') {
+            skipContainer();
+        } else {
+            final var start = pos;
+            skipLiteral();
+            if (pos == start) throw malformed();
+        }
+    }
+
+    /**
+     * 跳过对象或数组, 仅跟踪嵌套深度与字符串边界
+     */
+    private void skipContainer() {
+        var depth = 0;
+        do {
+            final var c = next();
+            if (c == '"') {
+                skipStringBody();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * 跳过字符串内容(起始引号之后), 按引号定位后检查其是否被转义
+     */
+    private void skipStringBody() {
+        final var start = pos;
+        while (true) {
+            final var quote = buf.indexOf(pos, end, (byte) '"');
+            if (quote < 0) {
+                pos = end;
+                throw malformed();
+            }
+            pos = quote + 1;
+
+            // 引号前连续反斜杠为偶数时, 该引号为字符串结束符
+            var backslashes = 0;
+            for (int i = quote - 1; i >= start && buf.getByte(i) == '\\'; i--) backslashes++;
+            if ((backslashes & 1) == 0) return;
+        }
+    }
+
+    private void skipLiteral() {
+        while (pos < end) {
+            final var c = buf.getByte(pos);
+            if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) return;
+            pos++;
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(buf.getByte(pos))) pos++;
+    }
+
+    private boolean keyEquals(final int keyStart, final int keyLength, final byte[] key) {
+        if (keyLength != key.length) return false;
+        for (int i = 0; i < keyLength; i++) {
+            if (buf.getByte(keyStart + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private void expect(final char c) {
+        if (next() != c) throw malformed();
+    }
+
+    private byte peek() {
+        if (pos >= end) throw malformed();
+        return buf.getByte(pos);
+    }
+
+    private byte next() {
+        if (pos >= end) throw malformed();
+        return buf.getByte(pos++);
+    }
+
+    private static boolean isWhitespace(final byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Malformed JSON Message At Offset " + (pos - buf.readerIndex()));
+    }
+}
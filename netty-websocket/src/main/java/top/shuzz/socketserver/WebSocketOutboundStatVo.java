@@ -0,0 +1,94 @@
+package top.shuzz.socketserver;
+
+import java.io.Serializable;
+
+/**
+ * WebSocket 出站(慢消费者处理)统计
+ * @author heng
+ * @since 2026/10/18
+ */
+public class WebSocketOutboundStatVo implements Serializable {
+
+    private String policy;
+    private long unwritableCount;
+    private long droppedOldestCount;
+    private long droppedNewestCount;
+    private long coalescedCount;
+    private long disconnectedCount;
+
+    public WebSocketOutboundStatVo() {}
+
+    public WebSocketOutboundStatVo(final String policy,
+                                   final long unwritableCount,
+                                   final long droppedOldestCount,
+                                   final long droppedNewestCount,
+                                   final long coalescedCount,
+                                   final long disconnectedCount) {
+        this.policy = policy;
+        this.unwritableCount = unwritableCount;
+        this.droppedOldestCount = droppedOldestCount;
+        this.droppedNewestCount = droppedNewestCount;
+        this.coalescedCount = coalescedCount;
+        this.disconnectedCount = disconnectedCount;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(String policy) {
+        this.policy = policy;
+    }
+
+    public long getUnwritableCount() {
+        return unwritableCount;
+    }
+
+    public void setUnwritableCount(long unwritableCount) {
+        this.unwritableCount = unwritableCount;
+    }
+
+    public long getDroppedOldestCount() {
+        return droppedOldestCount;
+    }
+
+    public void setDroppedOldestCount(long droppedOldestCount) {
+        this.droppedOldestCount = droppedOldestCount;
+    }
+
+    public long getDroppedNewestCount() {
+        return droppedNewestCount;
+    }
+
+    public void setDroppedNewestCount(long droppedNewestCount) {
+        this.droppedNewestCount = droppedNewestCount;
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public void setCoalescedCount(long coalescedCount) {
+        this.coalescedCount = coalescedCount;
+    }
+
+    public long getDisconnectedCount() {
+        return disconnectedCount;
+    }
+
+    public void setDisconnectedCount(long disconnectedCount) {
+        this.disconnectedCount = disconnectedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "WebSocketOutboundStatVo{" +
+                "policy='" + policy + '\'' +
+                ", unwritableCount=" + unwritableCount +
+                ", droppedOldestCount=" + droppedOldestCount +
+                ", droppedNewestCount=" + droppedNewestCount +
+                ", coalescedCount=" + coalescedCount +
+                ", disconnectedCount=" + disconnectedCount +
+                '}';
+    }
+}
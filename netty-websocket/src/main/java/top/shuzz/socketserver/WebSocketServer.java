@@ -4,8 +4,14 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.util.NetUtil;
+import top.shuzz.config.ConfigHelper;
+import top.shuzz.transport.EventLoops;
+import top.shuzz.transport.NettyTransport;
+
+import java.util.Optional;
 
 /**
  * WebSocket 服务器
@@ -22,42 +28,67 @@ public class WebSocketServer {
      * @param port 服务端口号, 默认 8080
      */
     public static void initAndStart(final String host, final Integer port) {
-        LOGGER.info("WebSocket Server Starting...");
+        initAndStart(host, port, false);
+    }
+
+    /**
+     * 初始化并启动服务端
+     * @param host 服务地址, 默认 localhost
+     * @param port 服务端口号, 默认 8080
+     * @param unified 是否在同一端口同时提供 HTTP API
+     */
+    public static void initAndStart(final String host, final Integer port, final boolean unified) {
+        LOGGER.info(unified ? "WebSocket Server Starting In Unified Mode..." : "WebSocket Server Starting...");
+
+        // 注册连接相关指标
+        ChannelSupervise.registerMetrics();
+
+        // 传输层(NIO / epoll / io_uring)
+        final var transport = NettyTransport.current();
+
+        // 通道写缓冲水位, 超过高水位后通道不可写, 回落至低水位后恢复
+        final var writeBufferWaterMark = new WriteBufferWaterMark(
+                Optional.ofNullable(ConfigHelper.getConfigInteger("outbound", "WRITE_BUFFER_LOW_WATER_MARK")).orElse(32 * 1024),
+                Optional.ofNullable(ConfigHelper.getConfigInteger("outbound", "WRITE_BUFFER_HIGH_WATER_MARK")).orElse(64 * 1024)
+        );
 
-        // 连接处理组
-        final var acceptGroup = new NioEventLoopGroup();
-        // 业务处理组
-        final var workerGroup = new NioEventLoopGroup();
+        // 连接处理组及业务处理组, 与 HTTP 服务共用
+        EventLoops.retain();
 
         try {
             // 服务启动类
             final var serverBootstrap = new ServerBootstrap();
             serverBootstrap
                     // 配置连接组及服务组
-                    .group(acceptGroup, workerGroup)
+                    .group(EventLoops.acceptGroup(), EventLoops.workerGroup())
                     // 配置通信通道类型
-                    .channel(NioServerSocketChannel.class)
+                    .channel(transport.serverChannelClass())
+                    // 配置待接受连接队列长度, 受内核 somaxconn 限制
+                    .option(ChannelOption.SO_BACKLOG, Optional.ofNullable(ConfigHelper.getConfigInteger("server", "SO_BACKLOG")).orElse(NetUtil.SOMAXCONN))
+                    // 配置客户端通道写缓冲水位
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark)
                     // 配置通信处理器
                     .childHandler(new NioWebSocketChannelInitializer(
                             StrUtil.isEmptyIfStr(host) ? "localhost" : host,
                             port == null ? 8080 : port,
-                            "/ws"
+                            "/ws",
+                            unified
                     ));
 
-            // 绑定服务端点
-            final var serverChannel = serverBootstrap.bind(port == null ? 8080 : port).sync().channel();
+            // 绑定服务端点, 原生传输下每个连接处理线程独立监听同一端口
+            final var serverChannels = transport.bind(serverBootstrap, port == null ? 8080 : port, EventLoops.ACCEPTOR_THREADS);
 
-            LOGGER.info("WebSocket Server Started, Listening on {}", port);
+            LOGGER.info("WebSocket Server Started, Listening on {} With {} Listener(s)", port, serverChannels.size());
 
             // 同步等待服务端点关闭
-            serverChannel.closeFuture().sync();
+            for (final var serverChannel : serverChannels) {
+                serverChannel.closeFuture().sync();
+            }
         }  catch (Exception e) {
             LOGGER.error(e, "WebSocket Server Error Occurred");
         } finally {
-            // 关闭连接组
-            acceptGroup.shutdownGracefully();
-            // 关闭业务组
-            workerGroup.shutdownGracefully();
+            // 释放事件循环组, 最后一个服务关闭时关闭
+            EventLoops.release();
 
             LOGGER.info("WebSocket Server Closed, Bye.");
         }
@@ -0,0 +1,104 @@
+package top.shuzz.socketserver;
+
+import java.io.Serializable;
+
+/**
+ * 可恢复会话统计
+ * @author heng
+ * @since 2026/10/18
+ */
+public class WebSocketSessionStatVo implements Serializable {
+
+    private boolean enabled;
+    private int sessionCount;
+    private int attachedCount;
+    private long bufferedCount;
+    private long resumedCount;
+    private long resetCount;
+    private long replayedCount;
+    private long overflowCount;
+
+    public WebSocketSessionStatVo() {}
+
+    public WebSocketSessionStatVo(final boolean enabled,
+                                  final int sessionCount,
+                                  final int attachedCount,
+                                  final long bufferedCount,
+                                  final long resumedCount,
+                                  final long resetCount,
+                                  final long replayedCount,
+                                  final long overflowCount) {
+        this.enabled = enabled;
+        this.sessionCount = sessionCount;
+        this.attachedCount = attachedCount;
+        this.bufferedCount = bufferedCount;
+        this.resumedCount = resumedCount;
+        this.resetCount = resetCount;
+        this.replayedCount = replayedCount;
+        this.overflowCount = overflowCount;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public void setSessionCount(int sessionCount) {
+        this.sessionCount = sessionCount;
+    }
+
+    public int getAttachedCount() {
+        return attachedCount;
+    }
+
+    public void setAttachedCount(int attachedCount) {
+        this.attachedCount = attachedCount;
+    }
+
+    public long getBufferedCount() {
+        return bufferedCount;
+    }
+
+    public void setBufferedCount(long bufferedCount) {
+        this.bufferedCount = bufferedCount;
+    }
+
+    public long getResumedCount() {
+        return resumedCount;
+    }
+
+    public void setResumedCount(long resumedCount) {
+        this.resumedCount = resumedCount;
+    }
+
+    public long getResetCount() {
+        return resetCount;
+    }
+
+    public void setResetCount(long resetCount) {
+        this.resetCount = resetCount;
+    }
+
+    public long getReplayedCount() {
+        return replayedCount;
+    }
+
+    public void setReplayedCount(long replayedCount) {
+        this.replayedCount = replayedCount;
+    }
+
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    public void setOverflowCount(long overflowCount) {
+        this.overflowCount = overflowCount;
+    }
+}
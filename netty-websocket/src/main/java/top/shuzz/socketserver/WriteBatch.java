@@ -0,0 +1,77 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>按通道分组的批量写出</p>
+ * <p>批量推送期间帧按目标通道暂存, {@link #flush()} 时每个通道向其事件循环提交一次任务, 依次写出全部帧后仅刷新一次</p>
+ * <p>非线程安全, 由单个线程构建并刷新</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class WriteBatch {
+
+    final private Map<Channel, List<ByteBuf>> pending = new IdentityHashMap<>();
+
+    private int frameCount;
+
+    /**
+     * 暂存待写出的帧
+     *
+     * @param ch    目标通道
+     * @param frame 预编码帧, 所有权转移至本批次
+     */
+    public void add(final Channel ch, final ByteBuf frame) {
+        pending.computeIfAbsent(ch, c -> new ArrayList<>()).add(frame);
+        frameCount++;
+    }
+
+    /**
+     * 涉及的通道数
+     */
+    public int channelCount() {
+        return pending.size();
+    }
+
+    /**
+     * 暂存的帧数
+     */
+    public int frameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 写出全部暂存帧, 每个通道刷新一次
+     */
+    public void flush() {
+        pending.forEach((ch, frames) -> {
+            if (ch.eventLoop().inEventLoop()) {
+                writeAll(ch, frames);
+                return;
+            }
+            try {
+                ch.eventLoop().execute(() -> writeAll(ch, frames));
+            } catch (RejectedExecutionException e) {
+                frames.forEach(ReferenceCountUtil::release);
+            }
+        });
+        pending.clear();
+        frameCount = 0;
+    }
+
+    private static void writeAll(final Channel ch, final List<ByteBuf> frames) {
+        for (final var frame : frames) {
+            ch.write(frame, ch.voidPromise());
+        }
+        ch.flush();
+    }
+}
@@ -0,0 +1,166 @@
+package top.shuzz.store;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * <p>日志段</p>
+ * <p>固定大小的文件整体映射至内存, 条目顺序追加; 文件创建时以 0 填充, 长度为 0 处即为段尾</p>
+ * <pre>
+ * | length:4 | crc32c:4 | entry |
+ * </pre>
+ * <p>仅由日志写线程访问</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+final class LogSegment {
+
+    /**
+     * 条目头部长度: 长度及校验和
+     */
+    final static int ENTRY_HEADER_LENGTH = 8;
+
+    final private int id;
+    final private Path path;
+    final private MappedByteBuffer mapped;
+
+    /**
+     * 映射内存的 ByteBuf 视图, 不复制且不随释放而解除映射
+     */
+    final private ByteBuf data;
+
+    private int writePosition;
+    private long lastAppendMillis;
+
+    private LogSegment(final int id, final Path path, final MappedByteBuffer mapped, final long lastAppendMillis) {
+        this.id = id;
+        this.path = path;
+        this.mapped = mapped;
+        this.data = Unpooled.wrappedBuffer(mapped);
+        this.lastAppendMillis = lastAppendMillis;
+    }
+
+    /**
+     * 打开或创建日志段
+     *
+     * @param path 段文件路径
+     * @param id   段 ID
+     * @param size 段大小, 新建时使用; 已存在的段沿用其文件大小
+     * @return 日志段
+     * @throws IOException 文件读写失败
+     */
+    static LogSegment open(final Path path, final int id, final int size) throws IOException {
+        final var exists = Files.exists(path);
+        try (final var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final var length = exists ? (int) channel.size() : size;
+            final var mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            final var lastModified = exists ? Files.getLastModifiedTime(path).toMillis() : System.currentTimeMillis();
+            return new LogSegment(id, path, mapped, lastModified);
+        }
+    }
+
+    /**
+     * 顺序扫描有效条目, 遇到空条目或校验失败时停止, 并将写位置置于最后一个有效条目之后
+     *
+     * @param visitor 条目访问者, 参数为条目偏移量及条目数据
+     */
+    void recover(final BiConsumer<Integer, ByteBuf> visitor) {
+        final var crc = new CRC32C();
+        var position = 0;
+        while (position + ENTRY_HEADER_LENGTH <= data.capacity()) {
+            final var length = data.getInt(position);
+            if (length <= 0 || position + ENTRY_HEADER_LENGTH + length > data.capacity()) break;
+
+            crc.reset();
+            crc.update(data.nioBuffer(position + ENTRY_HEADER_LENGTH, length));
+            if ((int) crc.getValue() != data.getInt(position + 4)) break;
+
+            visitor.accept(position, data.slice(position + ENTRY_HEADER_LENGTH, length));
+            position += ENTRY_HEADER_LENGTH + length;
+        }
+        writePosition = position;
+    }
+
+    /**
+     * 剩余空间能否容纳指定长度的条目
+     */
+    boolean hasRoomFor(final int entryLength) {
+        return writePosition + ENTRY_HEADER_LENGTH + entryLength <= data.capacity();
+    }
+
+    /**
+     * <p>追加条目</p>
+     * <p>先写入校验和及条目数据, 最后写入长度, 使未写完的条目在恢复时被视为段尾</p>
+     *
+     * @param entry 条目数据, 不改变其读索引
+     * @param crc   校验和计算器
+     * @return 条目偏移量
+     */
+    int append(final ByteBuf entry, final CRC32C crc) {
+        final var position = writePosition;
+        final var length = entry.readableBytes();
+
+        crc.reset();
+        crc.update(entry.nioBuffer(entry.readerIndex(), length));
+        data.setInt(position + 4, (int) crc.getValue());
+        data.setBytes(position + ENTRY_HEADER_LENGTH, entry, entry.readerIndex(), length);
+        data.setInt(position, length);
+
+        writePosition = position + ENTRY_HEADER_LENGTH + length;
+        lastAppendMillis = System.currentTimeMillis();
+        return position;
+    }
+
+    /**
+     * 读取条目, 返回映射内存的切片, 段删除后不可再访问
+     *
+     * @param position 条目偏移量
+     * @return 条目数据, 偏移量无效时返回 null
+     */
+    ByteBuf read(final int position) {
+        if (position < 0 || position + ENTRY_HEADER_LENGTH > writePosition) return null;
+        final var length = data.getInt(position);
+        if (length <= 0 || position + ENTRY_HEADER_LENGTH + length > writePosition) return null;
+        return data.slice(position + ENTRY_HEADER_LENGTH, length);
+    }
+
+    /**
+     * 将映射内存中的修改写入磁盘
+     */
+    void force() {
+        mapped.force();
+    }
+
+    /**
+     * 解除映射并删除段文件
+     *
+     * @throws IOException 文件删除失败
+     */
+    void delete() throws IOException {
+        PlatformDependent.freeDirectBuffer(mapped);
+        Files.deleteIfExists(path);
+    }
+
+    int id() {
+        return id;
+    }
+
+    int capacity() {
+        return data.capacity();
+    }
+
+    long lastAppendMillis() {
+        return lastAppendMillis;
+    }
+}
@@ -0,0 +1,115 @@
+package top.shuzz.store;
+
+import java.io.Serializable;
+
+/**
+ * 离线消息存储统计
+ * @author heng
+ * @since 2026/10/18
+ */
+public class OfflineStatVo implements Serializable {
+
+    private boolean enabled;
+    private int pendingUserCount;
+    private int queuedCount;
+    private int segmentCount;
+    private long totalBytes;
+    private long storedCount;
+    private long droppedCount;
+    private long replayedCount;
+    private long expiredCount;
+
+    public OfflineStatVo() {}
+
+    public OfflineStatVo(final boolean enabled,
+                         final int pendingUserCount,
+                         final int queuedCount,
+                         final int segmentCount,
+                         final long totalBytes,
+                         final long storedCount,
+                         final long droppedCount,
+                         final long replayedCount,
+                         final long expiredCount) {
+        this.enabled = enabled;
+        this.pendingUserCount = pendingUserCount;
+        this.queuedCount = queuedCount;
+        this.segmentCount = segmentCount;
+        this.totalBytes = totalBytes;
+        this.storedCount = storedCount;
+        this.droppedCount = droppedCount;
+        this.replayedCount = replayedCount;
+        this.expiredCount = expiredCount;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPendingUserCount() {
+        return pendingUserCount;
+    }
+
+    public void setPendingUserCount(int pendingUserCount) {
+        this.pendingUserCount = pendingUserCount;
+    }
+
+    public int getQueuedCount() {
+        return queuedCount;
+    }
+
+    public void setQueuedCount(int queuedCount) {
+        this.queuedCount = queuedCount;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public void setSegmentCount(int segmentCount) {
+        this.segmentCount = segmentCount;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public long getStoredCount() {
+        return storedCount;
+    }
+
+    public void setStoredCount(long storedCount) {
+        this.storedCount = storedCount;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public void setDroppedCount(long droppedCount) {
+        this.droppedCount = droppedCount;
+    }
+
+    public long getReplayedCount() {
+        return replayedCount;
+    }
+
+    public void setReplayedCount(long replayedCount) {
+        this.replayedCount = replayedCount;
+    }
+
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+
+    public void setExpiredCount(long expiredCount) {
+        this.expiredCount = expiredCount;
+    }
+}
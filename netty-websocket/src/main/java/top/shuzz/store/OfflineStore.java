@@ -0,0 +1,429 @@
+package top.shuzz.store;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+import top.shuzz.cluster.ClusterNode;
+import top.shuzz.config.ConfigHelper;
+import top.shuzz.socketserver.ChannelSupervise;
+import top.shuzz.socketserver.MessageRouter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>离线消息存储</p>
+ * <p>目标用户不在线时, 指定目标的消息追加至本地分段日志, 用户重新加入后按写入顺序重放; 集群模式下用户在其他节点加入时转发至该节点</p>
+ * <p>写入由独立的日志写线程批量执行, 调用方仅将已编码的条目放入无锁队列, 不阻塞 I/O 线程; 队列积压超出上限时新消息被丢弃</p>
+ * <p>日志按段的最后写入时间及总大小整体删除, 重放时跳过超出保留时间的消息</p>
+ * <pre>
+ * MESSAGE  | 0x01 | timestamp:8 | target | opcode:1 | source | payload    |
+ * CONSUMED | 0x02 | timestamp:8 | target | position:8                      |
+ * </pre>
+ * <p>CONSUMED 记录该用户已重放至的条目位置, 启动时据此重建各用户的待重放索引</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public class OfflineStore {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    final private static int TYPE_MESSAGE = 0x01;
+    final private static int TYPE_CONSUMED = 0x02;
+
+    /**
+     * 用户名 UTF-8 字节数上限, 受 2 字节长度前缀限制
+     */
+    final private static int MAX_STRING_LENGTH = 0xFFFF;
+
+    /**
+     * 是否启用离线消息存储
+     */
+    final public static boolean ENABLED = Optional.ofNullable(ConfigHelper.getConfigBoolean("offline", "OFFLINE_ENABLED")).orElse(false);
+
+    final private static String DIRECTORY = Optional.ofNullable(ConfigHelper.getConfigString("offline", "OFFLINE_DIR")).orElse("data/offline");
+
+    final private static int SEGMENT_SIZE = Optional.ofNullable(ConfigHelper.getConfigInteger("offline", "OFFLINE_SEGMENT_SIZE")).orElse(64 * 1024 * 1024);
+
+    final private static long MAX_BYTES = Optional.ofNullable(ConfigHelper.getConfigString("offline", "OFFLINE_MAX_BYTES"))
+            .map(Long::parseLong).orElse(1024L * 1024 * 1024);
+
+    final private static long RETENTION_MILLIS = TimeUnit.HOURS.toMillis(
+            Optional.ofNullable(ConfigHelper.getConfigInteger("offline", "OFFLINE_RETENTION_HOURS")).orElse(72));
+
+    /**
+     * 待写入条目数上限
+     */
+    final private static int QUEUE_SIZE = Optional.ofNullable(ConfigHelper.getConfigInteger("offline", "OFFLINE_QUEUE_SIZE")).orElse(65536);
+
+    /**
+     * 单个批次最多处理的命令数, 每个批次结束时按配置将修改写入磁盘
+     */
+    final private static int BATCH_SIZE = Optional.ofNullable(ConfigHelper.getConfigInteger("offline", "OFFLINE_BATCH_SIZE")).orElse(1024);
+
+    /**
+     * 是否在每个批次结束时将修改写入磁盘, 否则由操作系统回写
+     */
+    final private static boolean FSYNC = Optional.ofNullable(ConfigHelper.getConfigBoolean("offline", "OFFLINE_FSYNC")).orElse(false);
+
+    /**
+     * 空闲时的保留期检查间隔
+     */
+    final private static long MAINTENANCE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 接收方不可写时的重放重试间隔
+     */
+    final private static long REPLAY_RETRY_MILLIS = 50;
+
+    /**
+     * 待执行命令, 多线程写入, 仅由日志写线程取出
+     */
+    final private static Queue<Object> COMMANDS = PlatformDependent.newMpscQueue();
+    final private static AtomicInteger PENDING_APPENDS = new AtomicInteger();
+    final private static AtomicBoolean WRITER_WAITING = new AtomicBoolean();
+
+    final private static LongAdder STORED_COUNT = new LongAdder();
+    final private static LongAdder DROPPED_COUNT = new LongAdder();
+    final private static LongAdder REPLAYED_COUNT = new LongAdder();
+    final private static LongAdder EXPIRED_COUNT = new LongAdder();
+
+    /**
+     * 各用户待重放的条目位置, 仅由日志写线程访问
+     */
+    final private static HashMap<String, ArrayDeque<Long>> INDEX = new HashMap<>();
+
+    private static SegmentedLog log;
+    private static volatile Thread writer;
+
+    private static volatile int pendingUserCount;
+    private static volatile long totalBytes;
+    private static volatile int segmentCount;
+
+    /**
+     * 启动日志写线程, 未启用离线存储时不执行任何操作
+     */
+    public static void start() {
+        if (!ENABLED) return;
+
+        try {
+            log = new SegmentedLog(Path.of(DIRECTORY), SEGMENT_SIZE);
+            log.recover(OfflineStore::recoverEntry);
+            updateStat();
+            LOGGER.info("Offline Store Started, {} Segment(s), {} User(s) With Pending Messages", segmentCount, pendingUserCount);
+        } catch (IOException e) {
+            LOGGER.error(e, "Offline Store Start Failed");
+            return;
+        }
+
+        final var thread = new DefaultThreadFactory("offline-store", true).newThread(OfflineStore::run);
+        writer = thread;
+        thread.start();
+    }
+
+    /**
+     * <p>存储离线消息</p>
+     * <p>消息编码后放入写入队列即返回, 不等待写入完成</p>
+     *
+     * @param opcode  客户端消息帧操作码
+     * @param source  发送方用户名
+     * @param target  目标用户名
+     * @param payload 消息载荷, 本方法不改变其引用计数
+     * @return 是否已放入写入队列, 未启用, 队列已满或用户名超出长度上限时返回 false
+     */
+    public static boolean store(final int opcode, final String source, final String target, final ByteBuf payload) {
+        if (writer == null) return false;
+
+        final var sourceName = Optional.ofNullable(source).orElse("");
+        final var targetLength = ByteBufUtil.utf8Bytes(target);
+        final var sourceLength = ByteBufUtil.utf8Bytes(sourceName);
+        // 长度前缀将被截断, 重放时无法解析该条目及其后的字段
+        if (targetLength > MAX_STRING_LENGTH || sourceLength > MAX_STRING_LENGTH) {
+            DROPPED_COUNT.increment();
+            return false;
+        }
+
+        if (PENDING_APPENDS.incrementAndGet() > QUEUE_SIZE) {
+            PENDING_APPENDS.decrementAndGet();
+            DROPPED_COUNT.increment();
+            return false;
+        }
+
+        final var entry = PooledByteBufAllocator.DEFAULT.directBuffer(
+                1 + 8 + 2 + targetLength + 1 + 2 + sourceLength + payload.readableBytes());
+        entry.writeByte(TYPE_MESSAGE);
+        entry.writeLong(System.currentTimeMillis());
+        writeString(entry, target);
+        entry.writeByte(opcode);
+        writeString(entry, sourceName);
+        entry.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+
+        submit(new Append(target, entry));
+        return true;
+    }
+
+    /**
+     * <p>重放离线消息</p>
+     * <p>用户加入(本节点或其他节点)后调用, 在日志写线程中按写入顺序投递, 此前已放入队列的消息同样会被重放</p>
+     *
+     * @param userName 用户名
+     */
+    public static void replay(final String userName) {
+        if (writer != null) {
+            submit(new Replay(userName));
+        }
+    }
+
+    /**
+     * 当前离线存储统计
+     */
+    public static OfflineStatVo currentStat() {
+        return new OfflineStatVo(
+                ENABLED,
+                pendingUserCount,
+                PENDING_APPENDS.get(),
+                segmentCount,
+                totalBytes,
+                STORED_COUNT.sum(),
+                DROPPED_COUNT.sum(),
+                REPLAYED_COUNT.sum(),
+                EXPIRED_COUNT.sum()
+        );
+    }
+
+    private static void submit(final Object command) {
+        COMMANDS.offer(command);
+        if (WRITER_WAITING.get()) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * 日志写线程: 每次取出至多一个批次的命令依次执行, 队列为空时等待并执行保留期检查
+     */
+    private static void run() {
+        var lastMaintenance = System.nanoTime();
+        while (true) {
+            var processed = 0;
+            Object command;
+            while (processed < BATCH_SIZE && (command = COMMANDS.poll()) != null) {
+                try {
+                    execute(command);
+                } catch (Exception e) {
+                    LOGGER.error(e, "Offline Store Error");
+                }
+                processed++;
+            }
+
+            if (processed > 0) {
+                if (FSYNC) log.force();
+                updateStat();
+            }
+
+            if (System.nanoTime() - lastMaintenance >= MAINTENANCE_NANOS) {
+                applyRetention();
+                updateStat();
+                lastMaintenance = System.nanoTime();
+            }
+
+            if (processed == 0) {
+                WRITER_WAITING.set(true);
+                if (COMMANDS.isEmpty()) {
+                    LockSupport.parkNanos(MAINTENANCE_NANOS);
+                }
+                WRITER_WAITING.set(false);
+            }
+        }
+    }
+
+    private static void execute(final Object command) throws IOException {
+        if (command instanceof Append append) {
+            try {
+                final var position = log.append(append.entry);
+                INDEX.computeIfAbsent(append.target, k -> new ArrayDeque<>()).add(position);
+                STORED_COUNT.increment();
+                // 目标在消息入队后、写入前加入时, 其重放命令可能先于本条执行
+                if (ChannelSupervise.getUserChannel(append.target) != null || ClusterNode.locate(append.target) != null) {
+                    replayNow(append.target);
+                }
+            } catch (IllegalArgumentException e) {
+                DROPPED_COUNT.increment();
+            } finally {
+                PENDING_APPENDS.decrementAndGet();
+                append.entry.release();
+            }
+        } else if (command instanceof Replay replay) {
+            replayNow(replay.userName);
+        }
+    }
+
+    /**
+     * <p>按写入顺序投递用户的离线消息</p>
+     * <p>用户在本节点时写入其通道, 通道不可写时暂停并稍后继续; 用户在其他节点时转发至该节点</p>
+     */
+    private static void replayNow(final String userName) throws IOException {
+        final var positions = INDEX.get(userName);
+        if (positions == null) return;
+
+        final var channel = ChannelSupervise.getUserChannel(userName);
+        final var nodeId = channel == null ? ClusterNode.locate(userName) : null;
+        if (channel == null && nodeId == null) return;
+
+        final var expireBefore = System.currentTimeMillis() - RETENTION_MILLIS;
+        var consumed = -1L;
+        while (!positions.isEmpty()) {
+            if (channel != null && !channel.isWritable()) {
+                // 重放积压过多, 待写缓冲回落后继续
+                channel.eventLoop().schedule(() -> replay(userName), REPLAY_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                break;
+            }
+
+            final long position = positions.poll();
+            consumed = position;
+            final var entry = log.read(position);
+            if (entry == null) continue;
+
+            entry.skipBytes(1);
+            if (entry.readLong() < expireBefore) {
+                EXPIRED_COUNT.increment();
+                continue;
+            }
+            readString(entry);
+            final var opcode = entry.readUnsignedByte();
+            final var source = readString(entry);
+
+            if (channel != null) {
+                MessageRouter.deliver(PooledByteBufAllocator.DEFAULT, opcode, source, List.of(userName), entry);
+            } else {
+                ClusterNode.forward(opcode, source, List.of(userName), entry);
+            }
+            REPLAYED_COUNT.increment();
+        }
+
+        if (positions.isEmpty()) {
+            INDEX.remove(userName);
+        }
+        if (consumed >= 0) {
+            appendConsumed(userName, consumed);
+        }
+    }
+
+    private static void appendConsumed(final String userName, final long position) throws IOException {
+        final var entry = PooledByteBufAllocator.DEFAULT.directBuffer(1 + 8 + stringLength(userName) + 8);
+        try {
+            entry.writeByte(TYPE_CONSUMED);
+            entry.writeLong(System.currentTimeMillis());
+            writeString(entry, userName);
+            entry.writeLong(position);
+            log.append(entry);
+        } finally {
+            entry.release();
+        }
+    }
+
+    /**
+     * 启动时重建待重放索引
+     */
+    private static void recoverEntry(final long position, final ByteBuf entry) {
+        final var type = entry.readUnsignedByte();
+        entry.skipBytes(8);
+        final var target = readString(entry);
+        if (type == TYPE_MESSAGE) {
+            INDEX.computeIfAbsent(target, k -> new ArrayDeque<>()).add(position);
+        } else if (type == TYPE_CONSUMED) {
+            final var consumed = entry.readLong();
+            Optional.ofNullable(INDEX.get(target)).ifPresent(positions -> {
+                while (!positions.isEmpty() && positions.peek() <= consumed) positions.poll();
+                if (positions.isEmpty()) INDEX.remove(target);
+            });
+        }
+    }
+
+    /**
+     * 按总大小及保留时间删除最早的日志段, 并清理已删除段中的索引
+     */
+    private static void applyRetention() {
+        try {
+            final var expireBefore = System.currentTimeMillis() - RETENTION_MILLIS;
+            var deleted = 0;
+            while ((log.totalBytes() > MAX_BYTES || log.oldestAppendMillis() < expireBefore) && log.deleteOldest()) {
+                deleted++;
+            }
+            if (deleted == 0) return;
+
+            final var firstPosition = log.firstPosition();
+            INDEX.values().removeIf(positions -> {
+                while (!positions.isEmpty() && positions.peek() < firstPosition) positions.poll();
+                return positions.isEmpty();
+            });
+            LOGGER.info("Offline Store Retention: {} Segment(s) Deleted", deleted);
+        } catch (IOException e) {
+            LOGGER.error(e, "Offline Store Retention Failed");
+        }
+    }
+
+    private static void updateStat() {
+        pendingUserCount = INDEX.size();
+        totalBytes = log.totalBytes();
+        segmentCount = log.segmentCount();
+    }
+
+    private static int stringLength(final String value) {
+        return 2 + ByteBufUtil.utf8Bytes(value);
+    }
+
+    private static void writeString(final ByteBuf buf, final String value) {
+        final var lengthIndex = buf.writerIndex();
+        buf.writeShort(0);
+        buf.setShort(lengthIndex, ByteBufUtil.writeUtf8(buf, value));
+    }
+
+    private static String readString(final ByteBuf buf) {
+        final var length = buf.readUnsignedShort();
+        final var value = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return value;
+    }
+
+    /**
+     * 追加离线消息
+     */
+    private static final class Append {
+
+        final private String target;
+        final private ByteBuf entry;
+
+        private Append(final String target, final ByteBuf entry) {
+            this.target = target;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * 重放用户的离线消息
+     */
+    private static final class Replay {
+
+        final private String userName;
+
+        private Replay(final String userName) {
+            this.userName = userName;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package top.shuzz.store;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * <p>分段追加日志</p>
+ * <p>由多个固定大小的内存映射日志段组成, 写满后滚动至新段, 按段整体删除; 条目位置由段 ID(高 32 位)及段内偏移量(低 32 位)组成, 随写入单调递增</p>
+ * <p>非线程安全, 仅由日志写线程访问</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+final class SegmentedLog {
+
+    final private static String SEGMENT_SUFFIX = ".log";
+
+    final private Path directory;
+    final private int segmentSize;
+    final private ArrayDeque<LogSegment> segments = new ArrayDeque<>();
+    final private CRC32C crc = new CRC32C();
+
+    /**
+     * 打开日志目录中已有的日志段
+     *
+     * @param directory   日志目录, 不存在时创建
+     * @param segmentSize 新建日志段的大小
+     * @throws IOException 文件读写失败
+     */
+    SegmentedLog(final Path directory, final int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+        try (final var files = Files.list(directory)) {
+            final var ids = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SEGMENT_SUFFIX.length()))
+                    .filter(name -> !name.isEmpty() && name.chars().allMatch(Character::isDigit))
+                    .mapToInt(Integer::parseInt)
+                    .sorted()
+                    .toArray();
+            for (final var id : ids) {
+                segments.add(LogSegment.open(segmentPath(id), id, segmentSize));
+            }
+        }
+    }
+
+    /**
+     * 按写入顺序扫描所有有效条目, 并确定各段的写位置
+     *
+     * @param visitor 条目访问者, 参数为条目位置及条目数据
+     */
+    void recover(final BiConsumer<Long, ByteBuf> visitor) {
+        for (final var segment : segments) {
+            segment.recover((offset, entry) -> visitor.accept(position(segment.id(), offset), entry));
+        }
+    }
+
+    /**
+     * 追加条目, 当前段空间不足时滚动至新段
+     *
+     * @param entry 条目数据, 不改变其读索引
+     * @return 条目位置
+     * @throws IOException              新建日志段失败
+     * @throws IllegalArgumentException 条目超出单个日志段的容量
+     */
+    long append(final ByteBuf entry) throws IOException {
+        final var length = entry.readableBytes();
+        if (length + LogSegment.ENTRY_HEADER_LENGTH > segmentSize) {
+            throw new IllegalArgumentException("Entry Too Large: " + length);
+        }
+
+        var segment = segments.peekLast();
+        if (segment == null || !segment.hasRoomFor(length)) {
+            final var id = segment == null ? 1 : segment.id() + 1;
+            segment = LogSegment.open(segmentPath(id), id, segmentSize);
+            segments.add(segment);
+        }
+        return position(segment.id(), segment.append(entry, crc));
+    }
+
+    /**
+     * 读取条目
+     *
+     * @param position 条目位置
+     * @return 条目数据(映射内存的切片, 仅在日志段删除前有效), 所在段已删除时返回 null
+     */
+    ByteBuf read(final long position) {
+        final var id = (int) (position >>> 32);
+        for (final var segment : segments) {
+            if (segment.id() == id) return segment.read((int) position);
+            if (segment.id() > id) break;
+        }
+        return null;
+    }
+
+    /**
+     * 将当前段的修改写入磁盘
+     */
+    void force() {
+        final var segment = segments.peekLast();
+        if (segment != null) segment.force();
+    }
+
+    /**
+     * 删除最早的日志段, 当前写入段不会被删除
+     *
+     * @return 是否删除了日志段
+     * @throws IOException 文件删除失败
+     */
+    boolean deleteOldest() throws IOException {
+        if (segments.size() <= 1) return false;
+        segments.poll().delete();
+        return true;
+    }
+
+    /**
+     * 最早日志段的最后写入时间, 仅有当前写入段时返回 Long.MAX_VALUE
+     */
+    long oldestAppendMillis() {
+        return segments.size() <= 1 ? Long.MAX_VALUE : segments.peekFirst().lastAppendMillis();
+    }
+
+    /**
+     * 最早的有效条目位置, 小于该位置的条目已随日志段删除
+     */
+    long firstPosition() {
+        final var segment = segments.peekFirst();
+        return segment == null ? 0 : position(segment.id(), 0);
+    }
+
+    /**
+     * 日志占用的磁盘空间
+     */
+    long totalBytes() {
+        var total = 0L;
+        for (final var segment : segments) {
+            total += segment.capacity();
+        }
+        return total;
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    private Path segmentPath(final int id) {
+        return directory.resolve(String.format("%010d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static long position(final int segmentId, final int offset) {
+        return ((long) segmentId << 32) | offset;
+    }
+}
@@ -0,0 +1,75 @@
+package top.shuzz.transport;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.channel.EventLoopGroup;
+import top.shuzz.config.ConfigHelper;
+
+import java.util.Optional;
+
+/**
+ * <p>共享事件循环组</p>
+ * <p>HTTP 与 WebSocket 服务共用一组连接处理线程及一组业务处理线程, 线程数由 [server] ACCEPTOR_THREADS / WORKER_THREADS 配置</p>
+ * <p>各服务启动时 {@link #retain()}, 关闭时 {@link #release()}, 最后一个服务关闭后才关闭事件循环组</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public final class EventLoops {
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 连接处理线程数, 原生传输下同时作为每个服务的 SO_REUSEPORT 监听通道数
+     */
+    final public static int ACCEPTOR_THREADS = Optional.ofNullable(ConfigHelper.getConfigInteger("server", "ACCEPTOR_THREADS")).orElse(1);
+
+    /**
+     * 业务处理线程数, 0 表示使用 Netty 默认值(CPU 核心数 * 2)
+     */
+    final public static int WORKER_THREADS = Optional.ofNullable(ConfigHelper.getConfigInteger("server", "WORKER_THREADS")).orElse(0);
+
+    private static EventLoopGroup acceptGroup;
+    private static EventLoopGroup workerGroup;
+    private static int refCount;
+
+    private EventLoops() {}
+
+    /**
+     * 引用共享事件循环组, 首次引用时创建
+     */
+    public static synchronized void retain() {
+        if (refCount++ == 0) {
+            final var transport = NettyTransport.current();
+            acceptGroup = transport.newEventLoopGroup(ACCEPTOR_THREADS, "server-acceptor");
+            workerGroup = transport.newEventLoopGroup(WORKER_THREADS, "server-worker");
+            LOGGER.info("Shared Event Loops Created, {} Acceptor(s), {} Worker(s)", ACCEPTOR_THREADS, WORKER_THREADS == 0 ? "Default" : WORKER_THREADS);
+        }
+    }
+
+    /**
+     * 释放共享事件循环组, 最后一次释放时关闭
+     */
+    public static synchronized void release() {
+        if (refCount > 0 && --refCount == 0) {
+            acceptGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+            acceptGroup = null;
+            workerGroup = null;
+        }
+    }
+
+    /**
+     * 连接处理组, 须先 {@link #retain()}
+     */
+    public static synchronized EventLoopGroup acceptGroup() {
+        return acceptGroup;
+    }
+
+    /**
+     * 业务处理组, 须先 {@link #retain()}
+     */
+    public static synchronized EventLoopGroup workerGroup() {
+        return workerGroup;
+    }
+}
@@ -0,0 +1,228 @@
+package top.shuzz.transport;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringChannelOption;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import top.shuzz.config.ConfigHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>Netty 传输层</p>
+ * <p>根据配置选择 NIO / epoll / io_uring 传输, 原生传输不可用时回退至 NIO</p>
+ * <p>原生传输支持 SO_REUSEPORT, 多个监听通道可共享同一端口, 由多个连接处理线程并行接收连接</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+public enum NettyTransport {
+
+    NIO {
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public EventLoopGroup newEventLoopGroup(final int threads, final String name) {
+            return new NioEventLoopGroup(threads, new DefaultThreadFactory(name));
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> socketChannelClass() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        public boolean supportsReusePort() {
+            return false;
+        }
+
+        @Override
+        void enableReusePort(final ServerBootstrap serverBootstrap) {
+            throw new UnsupportedOperationException("SO_REUSEPORT Is Not Supported By NIO Transport");
+        }
+    },
+
+    EPOLL {
+        @Override
+        public boolean isAvailable() {
+            return Epoll.isAvailable();
+        }
+
+        @Override
+        public EventLoopGroup newEventLoopGroup(final int threads, final String name) {
+            return new EpollEventLoopGroup(threads, new DefaultThreadFactory(name));
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> socketChannelClass() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        public boolean supportsReusePort() {
+            return true;
+        }
+
+        @Override
+        void enableReusePort(final ServerBootstrap serverBootstrap) {
+            serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+    },
+
+    IO_URING {
+        @Override
+        public boolean isAvailable() {
+            return IOUring.isAvailable();
+        }
+
+        @Override
+        public EventLoopGroup newEventLoopGroup(final int threads, final String name) {
+            return new IOUringEventLoopGroup(threads, new DefaultThreadFactory(name));
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return IOUringServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> socketChannelClass() {
+            return IOUringSocketChannel.class;
+        }
+
+        @Override
+        public boolean supportsReusePort() {
+            return true;
+        }
+
+        @Override
+        void enableReusePort(final ServerBootstrap serverBootstrap) {
+            serverBootstrap.option(IOUringChannelOption.SO_REUSEPORT, true);
+        }
+    };
+
+    final private static Log LOGGER = LogFactory.get();
+
+    /**
+     * 当前使用的传输层
+     */
+    private static volatile NettyTransport current;
+
+    /**
+     * 传输层是否可用
+     */
+    public abstract boolean isAvailable();
+
+    /**
+     * 创建事件循环组
+     *
+     * @param threads 线程数, 0 表示使用 Netty 默认值
+     * @param name    线程名前缀
+     * @return 事件循环组
+     */
+    public abstract EventLoopGroup newEventLoopGroup(int threads, String name);
+
+    /**
+     * 服务端通道类型
+     */
+    public abstract Class<? extends ServerChannel> serverChannelClass();
+
+    /**
+     * 客户端通道类型
+     */
+    public abstract Class<? extends Channel> socketChannelClass();
+
+    /**
+     * 是否支持 SO_REUSEPORT
+     */
+    public abstract boolean supportsReusePort();
+
+    abstract void enableReusePort(ServerBootstrap serverBootstrap);
+
+    /**
+     * <p>获取当前传输层</p>
+     * <p>由 [server] TRANSPORT 配置: AUTO(默认, 优先 epoll) / NIO / EPOLL / IO_URING</p>
+     *
+     * @return 传输层
+     */
+    public static NettyTransport current() {
+        if (current == null) {
+            synchronized (NettyTransport.class) {
+                if (current == null) {
+                    current = select(Optional.ofNullable(ConfigHelper.getConfigString("server", "TRANSPORT")).orElse("AUTO"));
+                    LOGGER.info("Using {} Transport", current);
+                }
+            }
+        }
+        return current;
+    }
+
+    private static NettyTransport select(final String configured) {
+        if ("AUTO".equalsIgnoreCase(configured)) {
+            return EPOLL.isAvailable() ? EPOLL : NIO;
+        }
+
+        final var transport = NettyTransport.valueOf(configured.toUpperCase());
+        if (transport.isAvailable()) {
+            return transport;
+        }
+
+        final var fallback = EPOLL.isAvailable() ? EPOLL : NIO;
+        LOGGER.warn("{} Transport Unavailable, Falling Back To {}", transport, fallback);
+        return fallback;
+    }
+
+    /**
+     * <p>绑定服务端口</p>
+     * <p>传输层支持 SO_REUSEPORT 时按监听数多次绑定同一端口, 否则仅绑定一次</p>
+     *
+     * @param serverBootstrap 服务启动类, 需已配置连接组
+     * @param port            服务端口号
+     * @param listeners       期望的监听通道数
+     * @return 已绑定的监听通道
+     * @throws InterruptedException 绑定等待被中断
+     */
+    public List<Channel> bind(final ServerBootstrap serverBootstrap, final int port, final int listeners) throws InterruptedException {
+        final var binds = supportsReusePort() ? Math.max(1, listeners) : 1;
+        if (binds > 1) {
+            enableReusePort(serverBootstrap);
+        }
+
+        final var channels = new ArrayList<Channel>(binds);
+        for (int i = 0; i < binds; i++) {
+            channels.add(serverBootstrap.bind(port).sync().channel());
+        }
+        return channels;
+    }
+}
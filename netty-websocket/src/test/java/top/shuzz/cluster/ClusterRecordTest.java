@@ -0,0 +1,117 @@
+package top.shuzz.cluster;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>节点间通信记录测试</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class ClusterRecordTest {
+
+    /**
+     * 去除长度前缀并校验其与记录长度一致
+     */
+    private static ByteBuf body(final ByteBuf record) {
+        final var length = record.readInt();
+        assertEquals(record.readableBytes(), length);
+        return record;
+    }
+
+    @Test
+    void messageRoundTrip() {
+        final var payload = Unpooled.wrappedBuffer(new byte[]{1, 2, 3});
+        final var record = ClusterRecord.message(UnpooledByteBufAllocator.DEFAULT, 2, "alice", List.of("bob", "用户"), payload);
+        try {
+            body(record);
+            assertEquals(ClusterRecord.TYPE_MESSAGE, record.readUnsignedByte());
+            assertEquals(2, record.readUnsignedByte());
+            assertEquals("alice", ClusterRecord.readString(record));
+            assertEquals(List.of("bob", "用户"), ClusterRecord.readTargets(record));
+            assertArrayEquals(new byte[]{1, 2, 3}, ByteBufUtil.getBytes(ClusterRecord.readPayload(record)));
+            assertEquals(0, payload.readerIndex());
+        } finally {
+            record.release();
+        }
+    }
+
+    @Test
+    void messageKeepsTargetCountAboveUnsignedShort() {
+        final var targets = new ArrayList<String>(70000);
+        for (int i = 0; i < 70000; i++) {
+            targets.add("u" + i);
+        }
+        final var record = ClusterRecord.message(UnpooledByteBufAllocator.DEFAULT, 1, "alice", targets, Unpooled.EMPTY_BUFFER);
+        try {
+            body(record).skipBytes(2);
+            ClusterRecord.readString(record);
+            assertEquals(targets, ClusterRecord.readTargets(record));
+            assertEquals(0, ClusterRecord.readPayload(record).readableBytes());
+        } finally {
+            record.release();
+        }
+    }
+
+    @Test
+    void stringAtLengthLimitRoundTrips() {
+        final var name = "x".repeat(ClusterRecord.MAX_STRING_LENGTH);
+        final var record = ClusterRecord.join(UnpooledByteBufAllocator.DEFAULT, name);
+        try {
+            body(record);
+            assertEquals(ClusterRecord.TYPE_JOIN, record.readUnsignedByte());
+            assertEquals(name, ClusterRecord.readString(record));
+            assertEquals(0, record.readableBytes());
+        } finally {
+            record.release();
+        }
+    }
+
+    @Test
+    void rejectsStringBeyondLengthLimit() {
+        final var tooLong = "x".repeat(ClusterRecord.MAX_STRING_LENGTH + 1);
+        // 字符数未超出, UTF-8 字节数超出
+        final var multiByte = "用".repeat(ClusterRecord.MAX_STRING_LENGTH / 3 + 1);
+
+        assertTrue(ClusterRecord.isEncodable("x".repeat(ClusterRecord.MAX_STRING_LENGTH)));
+        assertFalse(ClusterRecord.isEncodable(tooLong));
+        assertFalse(ClusterRecord.isEncodable(multiByte));
+        assertThrows(IllegalArgumentException.class, () -> ClusterRecord.join(UnpooledByteBufAllocator.DEFAULT, tooLong));
+        assertThrows(IllegalArgumentException.class, () -> ClusterRecord.message(UnpooledByteBufAllocator.DEFAULT, 1, "alice",
+                List.of("bob", multiByte), Unpooled.EMPTY_BUFFER));
+        assertThrows(IllegalArgumentException.class, () -> ClusterRecord.publish(UnpooledByteBufAllocator.DEFAULT, 1, tooLong,
+                "topic", Unpooled.EMPTY_BUFFER));
+    }
+
+    @Test
+    void readTargetsRejectsForgedCount() {
+        final var buf = Unpooled.buffer().writeInt(Integer.MAX_VALUE).writeShort(0);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> ClusterRecord.readTargets(buf));
+            buf.setInt(0, -1);
+            buf.readerIndex(0);
+            assertThrows(IllegalArgumentException.class, () -> ClusterRecord.readTargets(buf));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void readPayloadRejectsLengthMismatch() {
+        final var buf = Unpooled.buffer().writeInt(3).writeBytes(new byte[]{1, 2});
+        try {
+            assertThrows(IllegalArgumentException.class, () -> ClusterRecord.readPayload(buf));
+        } finally {
+            buf.release();
+        }
+    }
+}
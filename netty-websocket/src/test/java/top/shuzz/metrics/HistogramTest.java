@@ -0,0 +1,138 @@
+package top.shuzz.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>对数线性直方图测试</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class HistogramTest {
+
+    /**
+     * 桶数量, 与 {@link Histogram} 一致
+     */
+    final private static int BUCKET_COUNT = 61 * 8;
+
+    @Test
+    void smallValuesHaveOwnBuckets() {
+        for (int v = 0; v < 16; v++) {
+            assertEquals(v, Histogram.bucketOf(v));
+            assertEquals(v, Histogram.upperBoundOf(v));
+        }
+    }
+
+    @Test
+    void powerOfTwoRangesSplitIntoEightBuckets() {
+        // [16, 32) 每桶宽 2, [32, 64) 每桶宽 4
+        assertEquals(16, Histogram.bucketOf(16));
+        assertEquals(16, Histogram.bucketOf(17));
+        assertEquals(17, Histogram.bucketOf(18));
+        assertEquals(23, Histogram.bucketOf(31));
+        assertEquals(24, Histogram.bucketOf(32));
+        assertEquals(24, Histogram.bucketOf(35));
+        assertEquals(25, Histogram.bucketOf(36));
+        assertEquals(17, Histogram.upperBoundOf(16));
+        assertEquals(35, Histogram.upperBoundOf(24));
+    }
+
+    @Test
+    void bucketBoundariesAreContiguous() {
+        for (int bucket = 0; bucket < BUCKET_COUNT - 1; bucket++) {
+            final var upper = Histogram.upperBoundOf(bucket);
+            assertEquals(bucket, Histogram.bucketOf(upper), "upper bound of bucket " + bucket);
+            assertEquals(bucket + 1, Histogram.bucketOf(upper + 1), "value after bucket " + bucket);
+            if (bucket > 0) {
+                assertTrue(upper > Histogram.upperBoundOf(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    void valuesAtAndAboveTwoToTheSixtySecond() {
+        final var twoTo62 = 1L << 62;
+
+        assertEquals(480, Histogram.bucketOf(twoTo62));
+        assertEquals(479, Histogram.bucketOf(twoTo62 - 1));
+        assertEquals(twoTo62 - 1, Histogram.upperBoundOf(479));
+        assertEquals(twoTo62 + (1L << 59) - 1, Histogram.upperBoundOf(480));
+        assertEquals(BUCKET_COUNT - 2, Histogram.bucketOf((15L << 59) - 1));
+        assertEquals(BUCKET_COUNT - 1, Histogram.bucketOf(15L << 59));
+        assertEquals(BUCKET_COUNT - 1, Histogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, Histogram.upperBoundOf(BUCKET_COUNT - 1));
+        assertEquals((15L << 59) - 1, Histogram.upperBoundOf(BUCKET_COUNT - 2));
+    }
+
+    @Test
+    void relativeErrorWithinOneEighth() {
+        final var random = ThreadLocalRandom.current();
+        for (int i = 0; i < 100_000; i++) {
+            final var value = random.nextLong(Long.MAX_VALUE >>> random.nextInt(63));
+            final var upper = Histogram.upperBoundOf(Histogram.bucketOf(value));
+
+            assertTrue(upper >= value);
+            assertTrue(upper - value <= value / 8, () -> value + " -> " + upper);
+        }
+    }
+
+    @Test
+    void emptySnapshot() {
+        final var snapshot = new Histogram().snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.sum());
+        assertEquals(0, snapshot.max());
+        assertEquals(0, snapshot.mean());
+        assertEquals(0, snapshot.quantile(0.99));
+    }
+
+    @Test
+    void snapshotSummaries() {
+        final var histogram = new Histogram();
+        for (int v = 1; v <= 100; v++) {
+            histogram.record(v);
+        }
+        histogram.record(-5);
+        final var snapshot = histogram.snapshot();
+
+        assertEquals(101, snapshot.count());
+        assertEquals(5050, snapshot.sum());
+        assertEquals(100, snapshot.max());
+        assertEquals(5050 / 101.0, snapshot.mean(), 1e-9);
+    }
+
+    @Test
+    void quantilesReturnBucketUpperBoundCappedAtMax() {
+        final var histogram = new Histogram();
+        for (int v = 1; v <= 100; v++) {
+            histogram.record(v);
+        }
+        final var snapshot = histogram.snapshot();
+
+        assertEquals(1, snapshot.quantile(0));
+        assertEquals(1, snapshot.quantile(0.01));
+        // 第 50 个值为 50, 所在桶 [48, 51]
+        assertEquals(51, snapshot.quantile(0.5));
+        // 第 90 个值为 90, 所在桶 [88, 95]
+        assertEquals(95, snapshot.quantile(0.9));
+        // 第 99 个值为 99, 所在桶 [96, 103], 不超过最大值
+        assertEquals(100, snapshot.quantile(0.99));
+        assertEquals(100, snapshot.quantile(1));
+    }
+
+    @Test
+    void quantileOfSingleHugeValue() {
+        final var histogram = new Histogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(1L << 62);
+        final var snapshot = histogram.snapshot();
+
+        assertEquals(Histogram.upperBoundOf(480), snapshot.quantile(0.5));
+        assertEquals(Long.MAX_VALUE, snapshot.quantile(1));
+    }
+}
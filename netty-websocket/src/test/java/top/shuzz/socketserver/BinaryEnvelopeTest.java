@@ -0,0 +1,262 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>二进制消息信封测试</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class BinaryEnvelopeTest {
+
+    final private static ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
+
+    final private List<ByteBuf> buffers = new ArrayList<>();
+
+    @AfterEach
+    void release() {
+        buffers.forEach(ByteBuf::release);
+    }
+
+    private ByteBuf track(final ByteBuf buf) {
+        buffers.add(buf);
+        return buf;
+    }
+
+    private ByteBuf send(final byte[] payload, final int... targetIds) {
+        final var buf = track(Unpooled.buffer());
+        buf.writeByte(BinaryEnvelope.TYPE_SEND).writeByte(0).writeShort(targetIds.length);
+        for (final var targetId : targetIds) buf.writeInt(targetId);
+        buf.writeInt(payload.length).writeBytes(payload);
+        return buf;
+    }
+
+    private ByteBuf resolve(final String... names) {
+        final var buf = track(Unpooled.buffer());
+        buf.writeByte(BinaryEnvelope.TYPE_RESOLVE).writeByte(0).writeShort(names.length);
+        for (final var name : names) {
+            final var bytes = name.getBytes(StandardCharsets.UTF_8);
+            buf.writeShort(bytes.length).writeBytes(bytes);
+        }
+        return buf;
+    }
+
+    /**
+     * 去除 WebSocket 帧头部, 并校验其为完整的二进制帧且载荷长度一致
+     */
+    private static ByteBuf envelopeOf(final ByteBuf frame) {
+        assertEquals(PreEncodedFrame.FIN | PreEncodedFrame.OPCODE_BINARY, frame.getUnsignedByte(frame.readerIndex()));
+        final var offset = PreEncodedFrame.payloadOffset(frame);
+        final var length = frame.readableBytes() - offset;
+        final var lengthField = frame.getByte(frame.readerIndex() + 1) & 0x7F;
+        if (lengthField < 126) {
+            assertEquals(length, lengthField);
+        } else if (lengthField == 126) {
+            assertEquals(length, frame.getUnsignedShort(frame.readerIndex() + 2));
+        } else {
+            assertEquals(length, frame.getLong(frame.readerIndex() + 2));
+        }
+        return frame.slice(frame.readerIndex() + offset, length);
+    }
+
+    @Test
+    void typeRequiresFullHeader() {
+        assertEquals(-1, BinaryEnvelope.type(track(Unpooled.wrappedBuffer(new byte[]{0x01, 0, 0}))));
+        assertEquals(BinaryEnvelope.TYPE_SEND, BinaryEnvelope.type(send(new byte[0], 1)));
+        assertEquals(BinaryEnvelope.TYPE_ERROR, BinaryEnvelope.type(track(Unpooled.wrappedBuffer(new byte[]{(byte) 0xFF, 0, 0, 0}))));
+    }
+
+    @Test
+    void decodesSend() {
+        final var payload = "hello".getBytes(StandardCharsets.UTF_8);
+        final var buf = send(payload, 7, 0x7FFFFFFF, -1);
+
+        assertEquals(3, BinaryEnvelope.count(buf));
+        assertEquals(7, BinaryEnvelope.targetId(buf, 0));
+        assertEquals(0x7FFFFFFF, BinaryEnvelope.targetId(buf, 1));
+        assertEquals(-1, BinaryEnvelope.targetId(buf, 2));
+        assertArrayEquals(payload, ByteBufUtil.getBytes(BinaryEnvelope.payload(buf)));
+    }
+
+    @Test
+    void sendPayloadIsSliceWithoutCopy() {
+        final var buf = send(new byte[]{1, 2, 3}, 1);
+        final var payload = BinaryEnvelope.payload(buf);
+
+        assertEquals(1, buf.refCnt());
+        buf.setByte(buf.writerIndex() - 1, 9);
+        assertEquals(9, payload.getByte(2));
+        assertEquals(0, buf.readerIndex());
+    }
+
+    @Test
+    void decodesBroadcastSendAndEmptyPayload() {
+        final var buf = send(new byte[0]);
+
+        assertEquals(0, BinaryEnvelope.count(buf));
+        assertEquals(0, BinaryEnvelope.payload(buf).readableBytes());
+    }
+
+    @Test
+    void decodesSendAtNonZeroReaderIndex() {
+        final var buf = track(Unpooled.buffer());
+        buf.writeBytes(new byte[]{9, 9, 9});
+        buf.writeByte(BinaryEnvelope.TYPE_SEND).writeByte(0).writeShort(1).writeInt(42).writeInt(2).writeBytes(new byte[]{5, 6});
+        buf.readerIndex(3);
+
+        assertEquals(BinaryEnvelope.TYPE_SEND, BinaryEnvelope.type(buf));
+        assertEquals(42, BinaryEnvelope.targetId(buf, 0));
+        assertArrayEquals(new byte[]{5, 6}, ByteBufUtil.getBytes(BinaryEnvelope.payload(buf)));
+    }
+
+    @Test
+    void rejectsSendWithWrongLengths() {
+        // 载荷长度大于实际数据
+        final var tooLong = send(new byte[]{1, 2}, 1);
+        tooLong.setInt(8, 3);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.payload(tooLong));
+
+        // 载荷之后有多余数据
+        final var trailing = send(new byte[]{1, 2}, 1).writeByte(0);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.payload(trailing));
+
+        // 载荷长度为负
+        final var negative = send(new byte[0], 1);
+        negative.setInt(8, -1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.payload(negative));
+
+        // 目标数超出数据
+        final var tooManyTargets = send(new byte[0], 1);
+        tooManyTargets.setShort(2, 100);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.payload(tooManyTargets));
+
+        // 缺少载荷长度字段
+        final var truncated = track(Unpooled.buffer()).writeByte(BinaryEnvelope.TYPE_SEND).writeByte(0).writeShort(1).writeInt(1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.payload(truncated));
+    }
+
+    @Test
+    void decodesResolve() {
+        assertArrayEquals(new String[]{"alice", "用户", ""}, BinaryEnvelope.names(resolve("alice", "用户", "")));
+        assertArrayEquals(new String[0], BinaryEnvelope.names(resolve()));
+    }
+
+    @Test
+    void rejectsMalformedResolve() {
+        // 名称长度超出数据
+        final var truncatedName = resolve("alice");
+        truncatedName.writerIndex(truncatedName.writerIndex() - 1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.names(truncatedName));
+
+        // 名称数多于实际名称
+        final var missingName = resolve("alice");
+        missingName.setShort(2, 2);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.names(missingName));
+
+        // 缺少名称长度字段
+        final var missingLength = resolve("alice").writeByte(0);
+        missingLength.setShort(2, 2);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.names(missingLength));
+
+        // 名称之后有多余数据
+        final var trailing = resolve("alice").writeByte(0);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.names(trailing));
+    }
+
+    @Test
+    void decodesAck() {
+        final var buf = track(Unpooled.buffer()).writeByte(BinaryEnvelope.TYPE_ACK).writeByte(0).writeShort(0).writeLong(Long.MAX_VALUE - 1);
+
+        assertEquals(Long.MAX_VALUE - 1, BinaryEnvelope.ackSeq(buf));
+    }
+
+    @Test
+    void rejectsAckWithWrongLength() {
+        final var shortAck = track(Unpooled.buffer()).writeByte(BinaryEnvelope.TYPE_ACK).writeByte(0).writeShort(0).writeInt(1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.ackSeq(shortAck));
+
+        final var longAck = track(Unpooled.buffer()).writeByte(BinaryEnvelope.TYPE_ACK).writeByte(0).writeShort(0).writeLong(1).writeByte(0);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEnvelope.ackSeq(longAck));
+    }
+
+    @Test
+    void encodesDeliver() {
+        final var payload = track(Unpooled.buffer()).writeBytes(new byte[]{0, 1, 2, 3});
+        payload.readerIndex(1);
+        final var envelope = envelopeOf(track(BinaryEnvelope.encodeDeliver(ALLOC, 1234, payload)));
+
+        assertEquals(BinaryEnvelope.TYPE_DELIVER, envelope.getUnsignedByte(0));
+        assertEquals(0, envelope.getByte(1));
+        assertEquals(0, envelope.getShort(2));
+        assertEquals(1234, envelope.getInt(4));
+        assertEquals(3, envelope.getInt(8));
+        assertArrayEquals(new byte[]{1, 2, 3}, ByteBufUtil.getBytes(envelope, 12, 3));
+        assertEquals(15, envelope.readableBytes());
+        // 载荷读索引不变
+        assertEquals(1, payload.readerIndex());
+    }
+
+    @Test
+    void encodesLargeDeliverWithExtendedLength() {
+        for (final var size : new int[]{125 - 12, 126 - 12, 0xFFFF - 12, 0xFFFF - 11}) {
+            final var payload = track(Unpooled.wrappedBuffer(new byte[size]));
+            final var envelope = envelopeOf(track(BinaryEnvelope.encodeDeliver(ALLOC, 1, payload)));
+
+            assertEquals(size, envelope.getInt(8));
+            assertEquals(12 + size, envelope.readableBytes());
+        }
+    }
+
+    @Test
+    void encodesDeliverSeqFromDeliver() {
+        final var payload = track(Unpooled.wrappedBuffer(new byte[]{7, 8, 9}));
+        final var deliverFrame = track(BinaryEnvelope.encodeDeliver(ALLOC, 55, payload));
+        final var deliver = envelopeOf(deliverFrame);
+
+        final var frame = track(BinaryEnvelope.sequenced(ALLOC, 0x0102030405060708L, deliver));
+        final var envelope = envelopeOf(frame);
+
+        assertEquals(BinaryEnvelope.TYPE_DELIVER_SEQ, envelope.getUnsignedByte(0));
+        assertEquals(0x0102030405060708L, envelope.getLong(4));
+        assertEquals(55, envelope.getInt(12));
+        assertEquals(3, envelope.getInt(16));
+        assertArrayEquals(new byte[]{7, 8, 9}, ByteBufUtil.getBytes(envelope, 20, 3));
+        assertEquals(23, envelope.readableBytes());
+        // 共享 DELIVER 信封的内容, 释放顺序互不影响
+        assertEquals(2, deliverFrame.refCnt());
+    }
+
+    @Test
+    void encodesResolved() {
+        final var envelope = envelopeOf(track(BinaryEnvelope.encodeResolved(ALLOC, new int[]{3, 0, 9})));
+
+        assertEquals(BinaryEnvelope.TYPE_RESOLVED, envelope.getUnsignedByte(0));
+        assertEquals(3, envelope.getUnsignedShort(2));
+        assertEquals(3, envelope.getInt(4));
+        assertEquals(0, envelope.getInt(8));
+        assertEquals(9, envelope.getInt(12));
+        assertEquals(16, envelope.readableBytes());
+    }
+
+    @Test
+    void encodesError() {
+        final var envelope = envelopeOf(track(BinaryEnvelope.encodeError(ALLOC, BinaryEnvelope.ERROR_RATE_LIMITED)));
+
+        assertEquals(BinaryEnvelope.TYPE_ERROR, envelope.getUnsignedByte(0));
+        assertEquals(BinaryEnvelope.ERROR_RATE_LIMITED, envelope.getUnsignedByte(1));
+        assertEquals(4, envelope.readableBytes());
+    }
+}
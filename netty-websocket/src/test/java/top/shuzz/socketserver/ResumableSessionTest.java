@@ -0,0 +1,98 @@
+package top.shuzz.socketserver;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>可恢复会话序号帧测试</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class ResumableSessionTest {
+
+    final private static ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
+
+    final private List<ByteBuf> buffers = new ArrayList<>();
+
+    @AfterEach
+    void release() {
+        buffers.forEach(ByteBuf::release);
+    }
+
+    private ByteBuf track(final ByteBuf buf) {
+        buffers.add(buf);
+        return buf;
+    }
+
+    /**
+     * 附加序号并校验为完整的文本帧, 返回解析后的 JSON 对象
+     */
+    private JSONObject wrapText(final long seq, final String text, final boolean json) {
+        final var frame = track(PreEncodedFrame.text(ALLOC, text));
+        final var wrapped = track(ResumableSession.wrap(ALLOC, seq, frame, json));
+
+        assertEquals(PreEncodedFrame.FIN | PreEncodedFrame.OPCODE_TEXT, wrapped.getUnsignedByte(wrapped.readerIndex()));
+        final var offset = PreEncodedFrame.payloadOffset(wrapped);
+        final var payload = wrapped.toString(wrapped.readerIndex() + offset, wrapped.readableBytes() - offset, StandardCharsets.UTF_8);
+        assertTrue(JSONUtil.isTypeJSONObject(payload), payload);
+        // 原始帧的读索引不变
+        assertEquals(0, frame.readerIndex());
+        return JSONUtil.parseObj(payload);
+    }
+
+    @Test
+    void splicesJsonPayloadAsData() {
+        final var message = wrapText(42, "{\"source\":\"alice\",\"dataBody\":[1,2]}", true);
+
+        assertEquals(42L, message.getLong("seq"));
+        assertEquals("alice", message.getJSONObject("data").getStr("source"));
+        assertFalse(message.containsKey("text"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"[admin] hi", "{oops", "[", "{\"unterminated\"", "plain text", "", "say \"hi\" \\ 中"})
+    void quotesNonJsonTextEvenWhenItStartsWithBracket(final String text) {
+        final var message = wrapText(7, text, false);
+
+        assertEquals(7L, message.getLong("seq"));
+        assertEquals(text, message.getStr("text"));
+        assertFalse(message.containsKey("data"));
+    }
+
+    @Test
+    void largeJsonPayloadUsesExtendedLength() {
+        final var body = "x".repeat(70000);
+        final var message = wrapText(Long.MAX_VALUE, "{\"dataBody\":\"" + body + "\"}", true);
+
+        assertEquals(Long.MAX_VALUE, message.getLong("seq"));
+        assertEquals(body, message.getJSONObject("data").getStr("dataBody"));
+    }
+
+    @Test
+    void binaryFrameIsWrappedAsDeliverSeq() {
+        final var payload = track(Unpooled.wrappedBuffer(new byte[]{1, 2, 3}));
+        final var deliver = track(BinaryEnvelope.encodeDeliver(ALLOC, 9, payload));
+        final var wrapped = track(ResumableSession.wrap(ALLOC, 5, deliver, true));
+
+        final var offset = PreEncodedFrame.payloadOffset(wrapped);
+        assertEquals(BinaryEnvelope.TYPE_DELIVER_SEQ, wrapped.getUnsignedByte(wrapped.readerIndex() + offset));
+        assertEquals(5, wrapped.getLong(wrapped.readerIndex() + offset + 4));
+        assertArrayEquals(new byte[]{1, 2, 3}, ByteBufUtil.getBytes(wrapped, wrapped.writerIndex() - 3, 3));
+    }
+}
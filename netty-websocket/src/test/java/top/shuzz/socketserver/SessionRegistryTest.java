@@ -0,0 +1,140 @@
+package top.shuzz.socketserver;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>连接会话注册表测试</p>
+ * <p>注册表为全局状态, 同一测试线程的注册均落在同一分片; 各用例注销自身注册的会话, 断言不依赖分片的初始状态</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class SessionRegistryTest {
+
+    /**
+     * 分片号位数及单页槽位数, 与 {@link SessionRegistry} 一致
+     */
+    final private static int SHARD_BITS = 6;
+    final private static int PAGE_SIZE = 1024;
+
+    final private List<SessionRegistry.Session> registered = new ArrayList<>();
+
+    private SessionRegistry.Session register() {
+        final var session = SessionRegistry.register(new EmbeddedChannel());
+        registered.add(session);
+        return session;
+    }
+
+    @AfterEach
+    void unregisterAll() {
+        registered.forEach(session -> {
+            SessionRegistry.unregister(session);
+            session.channel().close();
+        });
+    }
+
+    @Test
+    void registeredSessionIsFoundById() {
+        final var size = SessionRegistry.size();
+        final var session = register();
+
+        assertTrue(session.id() > 0);
+        assertSame(session, SessionRegistry.get(session.id()));
+        assertEquals(size + 1, SessionRegistry.size());
+
+        SessionRegistry.unregister(session);
+        assertNull(SessionRegistry.get(session.id()));
+        assertEquals(size, SessionRegistry.size());
+    }
+
+    @Test
+    void invalidIdResolvesToNothing() {
+        assertNull(SessionRegistry.get(0));
+        assertNull(SessionRegistry.get(-1));
+        assertNull(SessionRegistry.get(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void slotReusedAfterUnregister() {
+        final var first = register();
+        final var staleId = first.id();
+        SessionRegistry.unregister(first);
+
+        final var second = register();
+        assertEquals(staleId, second.id());
+        assertNotSame(first, second);
+        assertSame(second, SessionRegistry.get(staleId));
+    }
+
+    @Test
+    void staleSessionIdResolvesToSessionOfAnotherUser() {
+        final var first = register();
+        first.join(5);
+        final var staleId = first.id();
+        SessionRegistry.unregister(first);
+
+        final var second = register();
+        second.join(9);
+
+        // 旧会话 ID 指向新会话, 调用方须以用户 ID 校验
+        final var resolved = SessionRegistry.get(staleId);
+        assertSame(second, resolved);
+        assertNotEquals(5, resolved.userId());
+        assertFalse(resolved.leave(5));
+        assertEquals(9, resolved.userId());
+    }
+
+    @Test
+    void staleUnregisterKeepsReusedSlot() {
+        final var first = register();
+        SessionRegistry.unregister(first);
+        final var second = register();
+
+        SessionRegistry.unregister(first);
+        assertSame(second, SessionRegistry.get(second.id()));
+    }
+
+    @Test
+    void pagesGrowAcrossBoundary() {
+        final var size = SessionRegistry.size();
+        // 分片中可能已有空闲槽位, 注册超过两页以保证跨越页边界
+        for (int i = 0; i < PAGE_SIZE * 2 + 1; i++) {
+            register();
+        }
+        assertEquals(size + PAGE_SIZE * 2 + 1, SessionRegistry.size());
+        assertTrue(registered.stream().anyMatch(session -> session.id() >>> SHARD_BITS >= PAGE_SIZE));
+
+        for (final var session : registered) {
+            assertSame(session, SessionRegistry.get(session.id()));
+        }
+
+        final var visited = new ArrayList<SessionRegistry.Session>();
+        SessionRegistry.forEach(visited::add);
+        assertTrue(visited.containsAll(registered));
+
+        registered.forEach(SessionRegistry::unregister);
+        for (final var session : registered) {
+            assertNull(SessionRegistry.get(session.id()));
+        }
+        assertEquals(size, SessionRegistry.size());
+    }
+
+    @Test
+    void leaveOnlyClearsMatchingUser() {
+        final var session = register();
+        assertEquals(0, session.join(5));
+        assertEquals(5, session.join(9));
+
+        assertFalse(session.leave(5));
+        assertEquals(9, session.userId());
+        assertTrue(session.leave(9));
+        assertEquals(0, session.leave());
+    }
+}
@@ -0,0 +1,162 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>慢消费者处理器测试</p>
+ * <p>以未刷新的 Ping 帧占满写缓冲使通道不可写; 可恢复会话按通道关联判断, 会话通道上的数据帧即为序号帧</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class SlowConsumerHandlerTest {
+
+    final private static int QUEUE_SIZE = 4;
+
+    final private static String USER_NAME = "slow-consumer-test";
+
+    final private List<EmbeddedChannel> channels = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        ResumableSession.discard(USER_NAME);
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+    }
+
+    private EmbeddedChannel channel(final SlowConsumerHandler.Policy policy) {
+        final var ch = new EmbeddedChannel();
+        ch.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        ch.pipeline().addLast(new SlowConsumerHandler(policy, QUEUE_SIZE, 60_000));
+        channels.add(ch);
+        return ch;
+    }
+
+    private EmbeddedChannel sequencedChannel(final SlowConsumerHandler.Policy policy) {
+        final var ch = channel(policy);
+        ResumableSession.attach(USER_NAME, ch, 0);
+        // 会话恢复结果
+        ReferenceCountUtil.release(ch.readOutbound());
+        assertNull(ch.readOutbound());
+        return ch;
+    }
+
+    private static void makeUnwritable(final EmbeddedChannel ch) {
+        ch.write(new PingWebSocketFrame(Unpooled.wrappedBuffer(new byte[32])));
+        assertFalse(ch.isWritable());
+    }
+
+    private static List<ChannelPromise> writeFrames(final EmbeddedChannel ch, final List<ByteBuf> frames, final int count) {
+        final var promises = new ArrayList<ChannelPromise>();
+        for (int seq = 1; seq <= count; seq++) {
+            final var frame = Unpooled.buffer(4).writeInt(seq);
+            final var promise = ch.newPromise();
+            frames.add(frame);
+            promises.add(promise);
+            ch.write(frame, promise);
+        }
+        return promises;
+    }
+
+    /**
+     * 读出已写出的数据帧序号, 跳过 Ping 帧
+     */
+    private static List<Integer> readSeqs(final EmbeddedChannel ch) {
+        final var seqs = new ArrayList<Integer>();
+        Object msg;
+        while ((msg = ch.readOutbound()) != null) {
+            if (msg instanceof ByteBuf buf) seqs.add(buf.getInt(0));
+            ReferenceCountUtil.release(msg);
+        }
+        return seqs;
+    }
+
+    @ParameterizedTest
+    @EnumSource(SlowConsumerHandler.Policy.class)
+    void sequencedFramesAreHeldInOrder(final SlowConsumerHandler.Policy policy) {
+        final var ch = sequencedChannel(policy);
+        makeUnwritable(ch);
+        final var promises = writeFrames(ch, new ArrayList<>(), QUEUE_SIZE);
+
+        // 丢弃任一帧都会被视为已写出
+        promises.forEach(promise -> assertFalse(promise.isDone()));
+
+        ch.flush();
+        assertTrue(ch.isWritable());
+        ch.runPendingTasks();
+        assertEquals(List.of(1, 2, 3, 4), readSeqs(ch));
+        promises.forEach(promise -> assertTrue(promise.isSuccess()));
+        assertTrue(ch.isActive());
+    }
+
+    @ParameterizedTest
+    @EnumSource(SlowConsumerHandler.Policy.class)
+    void sequencedFrameOverflowDisconnectsInsteadOfDropping(final SlowConsumerHandler.Policy policy) {
+        final var ch = sequencedChannel(policy);
+        makeUnwritable(ch);
+        final var frames = new ArrayList<ByteBuf>();
+        final var promises = writeFrames(ch, frames, QUEUE_SIZE + 1);
+        ch.runPendingTasks();
+
+        // 超出暂存上限时关闭连接, 由客户端重连后经会话重放, 不存在被跳过却视为成功的帧
+        assertFalse(ch.isActive());
+        assertEquals(List.of(), readSeqs(ch));
+        promises.forEach(promise -> {
+            assertTrue(promise.isDone());
+            assertFalse(promise.isSuccess());
+        });
+        frames.forEach(frame -> assertEquals(0, frame.refCnt()));
+    }
+
+    @Test
+    void plainChannelDropsNewest() {
+        final var ch = channel(SlowConsumerHandler.Policy.DROP_NEWEST);
+        makeUnwritable(ch);
+        final var frames = new ArrayList<ByteBuf>();
+        final var promises = writeFrames(ch, frames, 2);
+
+        promises.forEach(promise -> assertTrue(promise.isSuccess()));
+        frames.forEach(frame -> assertEquals(0, frame.refCnt()));
+        ch.flush();
+        assertEquals(List.of(), readSeqs(ch));
+        assertTrue(ch.isActive());
+    }
+
+    @Test
+    void plainChannelDropsOldest() {
+        final var ch = channel(SlowConsumerHandler.Policy.DROP_OLDEST);
+        makeUnwritable(ch);
+        final var promises = writeFrames(ch, new ArrayList<>(), QUEUE_SIZE + 2);
+
+        assertTrue(promises.get(0).isSuccess());
+        assertTrue(promises.get(1).isSuccess());
+        ch.flush();
+        ch.runPendingTasks();
+        assertEquals(List.of(3, 4, 5, 6), readSeqs(ch));
+    }
+
+    @Test
+    void plainChannelCoalesces() {
+        final var ch = channel(SlowConsumerHandler.Policy.COALESCE);
+        makeUnwritable(ch);
+        writeFrames(ch, new ArrayList<>(), 3);
+
+        ch.flush();
+        ch.runPendingTasks();
+        assertEquals(List.of(3), readSeqs(ch));
+    }
+}
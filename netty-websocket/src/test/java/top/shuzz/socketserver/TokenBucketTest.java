@@ -0,0 +1,124 @@
+package top.shuzz.socketserver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>令牌桶限流器测试</p>
+ * <p>使用手动推进的时钟, 结果不依赖运行耗时</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class TokenBucketTest {
+
+    /**
+     * 每秒 10 个令牌, 即每 100 毫秒补充一个
+     */
+    final private static long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    final private AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(1000));
+
+    private TokenBucket bucket(final int burst) {
+        return new TokenBucket(10, burst, now::get);
+    }
+
+    private static int drain(final TokenBucket bucket) {
+        var acquired = 0;
+        while (bucket.tryAcquire()) {
+            acquired++;
+            if (acquired > 1000) fail("Bucket Never Empties");
+        }
+        return acquired;
+    }
+
+    @Test
+    void startsFullAndAllowsBurst() {
+        final var bucket = bucket(5);
+
+        assertEquals(5, drain(bucket));
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void burstBelowOneIsTreatedAsOne() {
+        assertEquals(1, drain(bucket(0)));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        final var bucket = bucket(5);
+        drain(bucket);
+
+        now.addAndGet(INTERVAL_NANOS - 1);
+        assertFalse(bucket.tryAcquire());
+
+        now.addAndGet(1);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        now.addAndGet(3 * INTERVAL_NANOS);
+        assertEquals(3, drain(bucket));
+    }
+
+    @Test
+    void refillIsCappedAtBurst() {
+        final var bucket = bucket(5);
+        drain(bucket);
+
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertEquals(5, drain(bucket));
+    }
+
+    @Test
+    void steadyRateAtRefillSpeedNeverRejects() {
+        final var bucket = bucket(1);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.tryAcquire(), "acquire " + i);
+            now.addAndGet(INTERVAL_NANOS);
+        }
+    }
+
+    @Test
+    void rejectedAttemptsDoNotConsumeTokens() {
+        final var bucket = bucket(2);
+        drain(bucket);
+        for (int i = 0; i < 50; i++) {
+            assertFalse(bucket.tryAcquire());
+        }
+
+        now.addAndGet(INTERVAL_NANOS);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    void concurrentAcquireNeverExceedsBurst() throws InterruptedException {
+        final var bucket = bucket(1000);
+        final var acquired = new AtomicInteger();
+        final var threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 500; j++) {
+                    if (bucket.tryAcquire()) acquired.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, acquired.get());
+    }
+
+    @Test
+    void rejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(-1, 1));
+    }
+}
@@ -0,0 +1,187 @@
+package top.shuzz.socketserver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>用户表测试</p>
+ * <p>覆盖用户 ID 的回收: 反复加入离开不同用户名时表的大小及容量保持不变, 回收后旧 ID 失效</p>
+ * <p>及用户名表扩容, 清理墓碑后 ID 不变, 槽位页跨越边界, 解绑不影响重复登录后的新绑定</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class UserTableTest {
+
+    final private static int SESSION_ID = 7;
+
+    final private UserTable users = new UserTable();
+
+    /**
+     * 加入后立即离开, 无其他引用
+     */
+    private int joinAndLeave(final String name) {
+        final var binding = users.bind(name, SESSION_ID);
+        assertNotNull(binding);
+        assertTrue(users.unbind(binding.userId(), SESSION_ID));
+        assertTrue(users.release(name, n -> false));
+        return binding.userId();
+    }
+
+    @Test
+    void churnedNamesKeepTableFlat() {
+        final var capacity = users.capacity();
+        for (int i = 0; i < 200_000; i++) {
+            joinAndLeave("guest-" + i);
+        }
+
+        assertEquals(0, users.size());
+        assertEquals(capacity, users.capacity());
+        assertEquals(1, users.slotCount());
+        assertEquals(0, users.find("guest-0"));
+    }
+
+    @Test
+    void churnAroundLiveUsersKeepsTableFlat() {
+        for (int i = 0; i < 500; i++) {
+            assertNotNull(users.bind("member-" + i, i + 1));
+        }
+        final var capacity = users.capacity();
+        final var slots = users.slotCount();
+
+        for (int i = 0; i < 200_000; i++) {
+            joinAndLeave("guest-" + i);
+        }
+
+        assertEquals(500, users.size());
+        assertEquals(capacity, users.capacity());
+        assertEquals(slots + 1, users.slotCount());
+        for (int i = 0; i < 500; i++) {
+            final var id = users.find("member-" + i);
+            assertEquals("member-" + i, users.name(id));
+            assertEquals(i + 1, users.session(id));
+        }
+    }
+
+    @Test
+    void staleIdResolvesToNothingAfterReuse() {
+        final var stale = joinAndLeave("alice");
+        assertNull(users.name(stale));
+        assertEquals(0, users.session(stale));
+
+        final var reused = users.bind("bob", SESSION_ID).userId();
+        assertNotEquals(stale, reused);
+        assertEquals(stale & (UserTable.MAX_SLOTS - 1), reused & (UserTable.MAX_SLOTS - 1));
+
+        assertNull(users.name(stale));
+        assertEquals(0, users.session(stale));
+        assertFalse(users.unbind(stale, SESSION_ID));
+        assertEquals(0, users.unbind(stale));
+        assertEquals("bob", users.name(reused));
+        assertEquals(SESSION_ID, users.session(reused));
+    }
+
+    @Test
+    void boundOrRetainedIdIsNotReleased() {
+        final var id = users.bind("alice", SESSION_ID).userId();
+        assertFalse(users.release("alice", n -> false));
+
+        assertTrue(users.unbind(id, SESSION_ID));
+        assertFalse(users.release("alice", "alice"::equals));
+        assertEquals(id, users.find("alice"));
+        assertEquals("alice", users.name(id));
+
+        assertTrue(users.release("alice", n -> false));
+        assertFalse(users.release("alice", n -> false));
+        assertEquals(0, users.find("alice"));
+        assertEquals(0, users.size());
+    }
+
+    @Test
+    void rehashPreservesIds() {
+        final var capacity = users.capacity();
+        final var ids = new int[capacity * 2];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = users.intern("user-" + i);
+            assertEquals(ids[i], users.intern("user-" + i));
+        }
+
+        assertTrue(users.capacity() > capacity);
+        assertEquals(ids.length, users.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], users.find("user-" + i));
+            assertEquals("user-" + i, users.name(ids[i]));
+        }
+    }
+
+    @Test
+    void tombstoneCleanupPreservesIds() {
+        final var ids = new int[500];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = users.intern("user-" + i);
+        }
+        // 回收半数, 其余条目须在清理墓碑后仍可查找
+        for (int i = 0; i < ids.length; i += 2) {
+            assertTrue(users.release("user-" + i, n -> false));
+        }
+        for (int i = 0; i < users.capacity() * 2; i++) {
+            joinAndLeave("guest-" + i);
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            if (i % 2 == 0) {
+                assertEquals(0, users.find("user-" + i));
+                assertNull(users.name(ids[i]));
+            } else {
+                assertEquals(ids[i], users.find("user-" + i));
+                assertEquals("user-" + i, users.name(ids[i]));
+            }
+        }
+    }
+
+    @Test
+    void pagesGrowAcrossBoundary() {
+        final var ids = new int[1024 * 2 + 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = users.bind("user-" + i, i + 1).userId();
+        }
+
+        assertTrue(ids[ids.length - 1] % UserTable.MAX_SLOTS >= 2048);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals("user-" + i, users.name(ids[i]));
+            assertEquals(i + 1, users.session(ids[i]));
+        }
+        assertNull(users.name(ids[ids.length - 1] + 1024));
+        assertEquals(0, users.session(ids[ids.length - 1] + 1024));
+    }
+
+    @Test
+    void unbindKeepsNewerBinding() {
+        final var first = users.bind("alice", 1);
+        assertEquals(0, first.previousSessionId());
+
+        // 重复登录, 旧连接随后关闭
+        final var second = users.bind("alice", 2);
+        assertEquals(first.userId(), second.userId());
+        assertEquals(1, second.previousSessionId());
+
+        assertFalse(users.unbind(first.userId(), 1));
+        assertEquals(2, users.session(first.userId()));
+        assertFalse(users.release("alice", n -> false));
+
+        assertTrue(users.unbind(second.userId(), 2));
+        assertEquals(0, users.session(second.userId()));
+        assertFalse(users.unbind(second.userId(), 2));
+    }
+
+    @Test
+    void rejoinAfterReleaseAssignsFreshId() {
+        final var first = joinAndLeave("alice");
+        final var binding = users.bind("alice", SESSION_ID);
+
+        assertNotEquals(first, binding.userId());
+        assertEquals(0, binding.previousSessionId());
+        assertEquals(binding.userId(), users.find("alice"));
+    }
+}
@@ -0,0 +1,177 @@
+package top.shuzz.socketserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>消息路由信封解析器测试</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class WebSocketMsgEnvelopeParserTest {
+
+    private static ByteBuf buf(final String json) {
+        return Unpooled.copiedBuffer(json, StandardCharsets.UTF_8);
+    }
+
+    private static WebSocketMsgEnvelope parse(final String json) {
+        final var buf = buf(json);
+        try {
+            return WebSocketMsgEnvelopeParser.parse(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void extractsRoutingFields() {
+        final var envelope = parse("{\"source\":\"alice\",\"targets\":[\"bob\",\"carol\"],\"topic\":\"news.sports\","
+                + "\"subscribe\":[\"a.*\"],\"unsubscribe\":[\"b\"],\"ack\":42,\"dataBody\":\"hello\"}");
+
+        assertNotNull(envelope);
+        assertEquals("alice", envelope.getSource());
+        assertEquals(List.of("bob", "carol"), envelope.getTargets());
+        assertEquals("news.sports", envelope.getTopic());
+        assertEquals(List.of("a.*"), envelope.getSubscribe());
+        assertEquals(List.of("b"), envelope.getUnsubscribe());
+        assertEquals(42L, envelope.getAck());
+    }
+
+    @Test
+    void absentFieldsAreNull() {
+        final var envelope = parse("{}");
+
+        assertNotNull(envelope);
+        assertNull(envelope.getSource());
+        assertNull(envelope.getTargets());
+        assertNull(envelope.getTopic());
+        assertNull(envelope.getAck());
+    }
+
+    @Test
+    void toleratesWhitespace() {
+        final var envelope = parse("{ \"source\" :\t\"alice\" ,\r\n \"targets\" : [ \"bob\" , \"carol\" ] }");
+
+        assertEquals("alice", envelope.getSource());
+        assertEquals(List.of("bob", "carol"), envelope.getTargets());
+    }
+
+    @Test
+    void decodesEscapes() {
+        final var envelope = parse("{\"source\":\"a\\\"b\\\\c\\/d\\n\\t\\u00e9\\u4e2d\",\"targets\":[\"x\\\\\"]}");
+
+        assertEquals("a\"b\\c/d\n\té中", envelope.getSource());
+        assertEquals(List.of("x\\"), envelope.getTargets());
+    }
+
+    @Test
+    void decodesUtf8WithoutEscapes() {
+        assertEquals("用户一", parse("{\"source\":\"用户一\"}").getSource());
+    }
+
+    @Test
+    void readsNonStringScalarsVerbatim() {
+        final var envelope = parse("{\"source\":123,\"targets\":[1,true,null,\"bob\"]}");
+
+        assertEquals("123", envelope.getSource());
+        assertEquals(List.of("1", "true", "bob"), envelope.getTargets());
+    }
+
+    @Test
+    void nullValues() {
+        final var envelope = parse("{\"source\":null,\"targets\":null,\"ack\":null}");
+
+        assertNull(envelope.getSource());
+        assertNull(envelope.getTargets());
+        assertNull(envelope.getAck());
+    }
+
+    @Test
+    void skipsNestedValues() {
+        final var envelope = parse("{\"dataBody\":{\"source\":\"mallory\",\"list\":[{\"targets\":[\"x\"]},\"}]\\\"\"]},"
+                + "\"meta\":[[1,2],{\"a\":\"b\"}],\"flag\":false,\"source\":\"alice\",\"targets\":[[\"nested\"],{\"x\":1},\"bob\"]}");
+
+        assertEquals("alice", envelope.getSource());
+        assertEquals(List.of("bob"), envelope.getTargets());
+    }
+
+    @Test
+    void skipsStringsWithEscapedQuotesAndBackslashes() {
+        final var envelope = parse("{\"dataBody\":\"say \\\"hi\\\", \\\\\",\"source\":\"alice\"}");
+
+        assertEquals("alice", envelope.getSource());
+    }
+
+    @Test
+    void keysAreMatchedExactly() {
+        final var envelope = parse("{\"sources\":\"x\",\"Source\":\"y\",\"targets2\":[\"z\"]}");
+
+        assertNull(envelope.getSource());
+        assertNull(envelope.getTargets());
+    }
+
+    @Test
+    void lastDuplicateFieldWins() {
+        assertEquals("b", parse("{\"source\":\"a\",\"source\":\"b\"}").getSource());
+    }
+
+    @Test
+    void emptyTargets() {
+        assertEquals(List.of(), parse("{\"targets\":[ ]}").getTargets());
+    }
+
+    @Test
+    void respectsReaderIndexAndLeavesIndicesUnchanged() {
+        final var buf = buf("xx{\"source\":\"alice\"}");
+        try {
+            buf.readerIndex(2);
+            final var writerIndex = buf.writerIndex();
+            final var envelope = WebSocketMsgEnvelopeParser.parse(buf);
+
+            assertEquals("alice", envelope.getSource());
+            assertEquals(2, buf.readerIndex());
+            assertEquals(writerIndex, buf.writerIndex());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "{", "[]", "\"text\"", "plain text", " {}", "{} "})
+    void notAnObjectReturnsNull(final String json) {
+        assertNull(parse(json));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"source\"}",
+            "{\"source\":}",
+            "{\"source\" \"alice\"}",
+            "{\"source\":\"alice\" \"targets\":[]}",
+            "{\"source\":\"alice\",}",
+            "{\"source\":\"alice}",
+            "{source:\"alice\"}",
+            "{\"targets\":\"bob\"}",
+            "{\"targets\":[\"bob\"}",
+            "{\"targets\":[\"bob\" \"carol\"]}",
+            "{\"source\":\"\\x\"}",
+            "{\"source\":\"\\u12g4\"}",
+            "{\"source\":\"\\u12\"}",
+            "{\"dataBody\":{\"a\":[1,2}",
+            "{\"dataBody\":\"unterminated}",
+            "{\"ack\":\"abc\"}",
+            "{\"source\":\"a\"}}",
+    })
+    void malformedInputThrows(final String json) {
+        assertThrows(IllegalArgumentException.class, () -> parse(json));
+    }
+}
@@ -0,0 +1,253 @@
+package top.shuzz.store;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>分段追加日志测试</p>
+ * <p>每个用例使用独立的临时目录, 重新打开目录以模拟进程重启后的恢复</p>
+ *
+ * @author heng
+ * @since 2026/10/18
+ */
+class SegmentedLogTest {
+
+    /**
+     * 段大小: 可容纳 4 条 8 字节的条目
+     */
+    final private static int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    private static ByteBuf entry(final String text) {
+        return Unpooled.copiedBuffer(text, StandardCharsets.UTF_8);
+    }
+
+    private static String text(final ByteBuf entry) {
+        return entry.toString(StandardCharsets.UTF_8);
+    }
+
+    private static long append(final SegmentedLog log, final String text) throws IOException {
+        final var entry = entry(text);
+        try {
+            return log.append(entry);
+        } finally {
+            entry.release();
+        }
+    }
+
+    private static List<String> recover(final SegmentedLog log, final List<Long> positions) {
+        final var entries = new ArrayList<String>();
+        log.recover((position, entry) -> {
+            positions.add(position);
+            entries.add(text(entry));
+        });
+        return entries;
+    }
+
+    private Path segmentPath(final int id) {
+        return directory.resolve(String.format("%010d.log", id));
+    }
+
+    private void overwrite(final int segmentId, final long offset, final byte... bytes) throws IOException {
+        try (final var file = new RandomAccessFile(segmentPath(segmentId).toFile(), "rw")) {
+            file.seek(offset);
+            file.write(bytes);
+        }
+    }
+
+    @Test
+    void appendAndRead() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        final var first = append(log, "entry-01");
+        final var second = append(log, "entry-02");
+
+        assertEquals(1, first >>> 32);
+        assertEquals(0, (int) first);
+        assertEquals(LogSegment.ENTRY_HEADER_LENGTH + 8, (int) second);
+        assertEquals("entry-01", text(log.read(first)));
+        assertEquals("entry-02", text(log.read(second)));
+        assertEquals(1, log.segmentCount());
+        assertEquals(SEGMENT_SIZE, log.totalBytes());
+    }
+
+    @Test
+    void readRejectsInvalidPositions() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        final var position = append(log, "entry-01");
+
+        // 未写入的偏移, 条目中间的偏移及不存在的段
+        assertNull(log.read(position + LogSegment.ENTRY_HEADER_LENGTH + 8));
+        assertNull(log.read(position + 4));
+        assertNull(log.read(2L << 32));
+    }
+
+    @Test
+    void rollsOverToNewSegment() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        final var positions = new ArrayList<Long>();
+        for (int i = 0; i < 5; i++) {
+            positions.add(append(log, "entry-0" + i));
+        }
+
+        assertEquals(2, log.segmentCount());
+        assertTrue(Files.exists(segmentPath(2)));
+        assertEquals(1, positions.get(3) >>> 32);
+        assertEquals(2, positions.get(4) >>> 32);
+        assertEquals(0, (int) (long) positions.get(4));
+        for (int i = 1; i < positions.size(); i++) {
+            assertTrue(positions.get(i) > positions.get(i - 1));
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals("entry-0" + i, text(log.read(positions.get(i))));
+        }
+    }
+
+    @Test
+    void entryFillingWholeSegment() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        final var full = "x".repeat(SEGMENT_SIZE - LogSegment.ENTRY_HEADER_LENGTH);
+
+        assertEquals(1, append(log, full) >>> 32);
+        assertEquals(2, append(log, "next") >>> 32);
+        assertThrows(IllegalArgumentException.class, () -> append(log, full + "x"));
+    }
+
+    @Test
+    void recoverReplaysInWriteOrderAcrossSegments() throws IOException {
+        final var written = new ArrayList<Long>();
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        for (int i = 0; i < 10; i++) {
+            written.add(append(log, "entry-0" + i));
+        }
+        log.force();
+
+        final var reopened = new SegmentedLog(directory, SEGMENT_SIZE);
+        final var positions = new ArrayList<Long>();
+        final var entries = recover(reopened, positions);
+
+        assertEquals(3, reopened.segmentCount());
+        assertEquals(written, positions);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("entry-0" + i, entries.get(i));
+        }
+    }
+
+    @Test
+    void appendAfterRecoverContinuesAtTail() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        append(log, "entry-01");
+        final var last = append(log, "entry-02");
+
+        final var reopened = new SegmentedLog(directory, SEGMENT_SIZE);
+        recover(reopened, new ArrayList<>());
+        final var next = append(reopened, "entry-03");
+
+        assertEquals(last + LogSegment.ENTRY_HEADER_LENGTH + 8, next);
+        assertEquals(List.of("entry-01", "entry-02", "entry-03"), recover(new SegmentedLog(directory, SEGMENT_SIZE), new ArrayList<>()));
+    }
+
+    @Test
+    void recoverStopsAtCrcMismatch() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        append(log, "entry-01");
+        final var corrupted = append(log, "entry-02");
+        append(log, "entry-03");
+
+        // 破坏第二条的数据
+        overwrite(1, (int) corrupted + LogSegment.ENTRY_HEADER_LENGTH, (byte) 'X');
+
+        final var reopened = new SegmentedLog(directory, SEGMENT_SIZE);
+        assertEquals(List.of("entry-01"), recover(reopened, new ArrayList<>()));
+        // 写位置回退至损坏条目处, 其后的条目不再可读
+        assertNull(reopened.read(corrupted));
+        assertEquals(corrupted, append(reopened, "entry-04"));
+    }
+
+    @Test
+    void recoverTreatsTornTailAsEnd() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        append(log, "entry-01");
+        final var torn = append(log, "entry-02");
+
+        // 模拟写入校验和及数据后, 写入长度前进程退出
+        overwrite(1, (int) torn, (byte) 0, (byte) 0, (byte) 0, (byte) 0);
+
+        final var reopened = new SegmentedLog(directory, SEGMENT_SIZE);
+        assertEquals(List.of("entry-01"), recover(reopened, new ArrayList<>()));
+        assertEquals(torn, append(reopened, "entry-03"));
+    }
+
+    @Test
+    void recoverRejectsLengthBeyondSegment() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        append(log, "entry-01");
+        final var broken = append(log, "entry-02");
+
+        overwrite(1, (int) broken, (byte) 0, (byte) 0, (byte) 1, (byte) 0);
+
+        assertEquals(List.of("entry-01"), recover(new SegmentedLog(directory, SEGMENT_SIZE), new ArrayList<>()));
+    }
+
+    @Test
+    void recoverContinuesIntoLaterSegments() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        final var positions = new ArrayList<Long>();
+        for (int i = 0; i < 6; i++) {
+            positions.add(append(log, "entry-0" + i));
+        }
+
+        // 第一段末条损坏不影响第二段
+        overwrite(1, (int) (long) positions.get(3) + LogSegment.ENTRY_HEADER_LENGTH, (byte) 'X');
+
+        assertEquals(List.of("entry-00", "entry-01", "entry-02", "entry-04", "entry-05"),
+                recover(new SegmentedLog(directory, SEGMENT_SIZE), new ArrayList<>()));
+    }
+
+    @Test
+    void ignoresUnrelatedFiles() throws IOException {
+        Files.writeString(directory.resolve("notes.txt"), "x");
+        Files.writeString(directory.resolve("abc.log"), "x");
+
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        assertEquals(0, log.segmentCount());
+        assertEquals(1, append(log, "entry-01") >>> 32);
+    }
+
+    @Test
+    void deleteOldestKeepsCurrentSegment() throws IOException {
+        final var log = new SegmentedLog(directory, SEGMENT_SIZE);
+        final var positions = new ArrayList<Long>();
+        for (int i = 0; i < 9; i++) {
+            positions.add(append(log, "entry-0" + i));
+        }
+        assertEquals(3, log.segmentCount());
+        assertEquals(1L << 32, log.firstPosition());
+        assertTrue(log.oldestAppendMillis() <= System.currentTimeMillis());
+
+        assertTrue(log.deleteOldest());
+        assertFalse(Files.exists(segmentPath(1)));
+        assertEquals(2L << 32, log.firstPosition());
+        assertNull(log.read(positions.get(0)));
+        assertEquals("entry-04", text(log.read(positions.get(4))));
+
+        assertTrue(log.deleteOldest());
+        assertFalse(log.deleteOldest());
+        assertEquals(1, log.segmentCount());
+        assertEquals(Long.MAX_VALUE, log.oldestAppendMillis());
+        assertEquals("entry-08", text(log.read(positions.get(8))));
+    }
+}